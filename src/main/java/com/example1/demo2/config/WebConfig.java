@@ -16,8 +16,8 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry){
-        //登录注册不拦截
-        registry.addInterceptor(logininterceptor).excludePathPatterns("/user/register","/user/login","/**/OPTIONS" )
+        //登录注册不拦截；WebSocket握手不拦截，由STOMP CONNECT帧认证
+        registry.addInterceptor(logininterceptor).excludePathPatterns("/user/register","/user/login","/**/OPTIONS","/ws-notifications/**" )
                 .addPathPatterns("/**");
     }
 
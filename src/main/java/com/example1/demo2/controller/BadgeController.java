@@ -0,0 +1,54 @@
+package com.example1.demo2.controller;
+
+import com.example1.demo2.pojo.dto.BadgeCountDto;
+import com.example1.demo2.pojo.dto.ResponseMessage;
+import com.example1.demo2.service.IBadgeCountService;
+import com.example1.demo2.util.ThreadLocalUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 角标控制器
+ * 一次返回通知、私信、好友请求的全部未读数，替代前端分别轮询多个接口
+ */
+@RestController
+@RequestMapping("/badge")  // localhost:8081/badge/**
+public class BadgeController {
+
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
+    /**
+     * 获取当前用户的全部角标计数
+     * 前端请求方式：GET
+     * 请求URL：localhost:8081/badge/counts
+     *
+     * 返回示例：
+     * {
+     *   "code": 200,
+     *   "message": "success",
+     *   "data": {
+     *     "notificationTotal": 5,
+     *     "notificationByType": { "1": 2, "2": 1, "4": 2 },
+     *     "unreadMessages": 3,
+     *     "pendingFriendRequests": 1,
+     *     "total": 9
+     *   }
+     * }
+     */
+    @GetMapping("/counts")
+    public ResponseMessage<BadgeCountDto> getBadges() {
+        try {
+            Map<String, Object> userInfo = ThreadLocalUtil.get();
+            Integer userId = (Integer) userInfo.get("userId");
+
+            return ResponseMessage.success(badgeCountService.getBadges(userId));
+        } catch (Exception e) {
+            return ResponseMessage.error("获取角标计数失败: " + e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.example1.demo2.controller;
 
 import com.example1.demo2.pojo.dto.NotificationDto;
 import com.example1.demo2.pojo.dto.ResponseMessage;
+import com.example1.demo2.service.IBroadcastService;
 import com.example1.demo2.service.INotificationService;
+import com.example1.demo2.service.ISystemAdminService;
+import com.example1.demo2.util.ThreadLocalUtil;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
@@ -26,6 +29,12 @@ public class NotificationController {
     @Autowired
     private INotificationService notificationService;
 
+    @Autowired
+    private IBroadcastService broadcastService;
+
+    @Autowired
+    private ISystemAdminService systemAdminService;
+
     /**
      * 获取通知列表
      *
@@ -336,6 +345,74 @@ public class NotificationController {
         }
     }
 
+
+    /**
+     * 按受众群发系统通知（管理员接口）
+     *
+     * 前端请求方式：POST
+     * 请求URL：localhost:8081/notification/broadcast
+     * 请求体（JSON）：
+     * {
+     *   "audienceType": 1,      // 1-星系成员（创建者、管理员、星球作者） 2-用户的好友
+     *   "audienceId": 12,       // 星系ID或用户ID
+     *   "title": "星系公告",
+     *   "content": "本周六晚上举办线上分享会..."
+     * }
+     * 返回值：群发任务ID，可用于查询进度
+     * 面向全体用户请使用 /notification/system 并将 receiverId 设为 null，发布为全站公告
+     * 权限：系统管理员
+     */
+    @PostMapping("/broadcast")
+    public ResponseMessage startBroadcast(@RequestBody Map<String, Object> request) {
+        try {
+            Map<String, Object> userInfo = ThreadLocalUtil.get();
+            Integer adminId = (Integer) userInfo.get("userId");
+            if (!systemAdminService.isSystemAdmin(adminId)) {
+                return ResponseMessage.error("无系统管理员权限");
+            }
+
+            Integer audienceType = (Integer) request.get("audienceType");
+            Integer audienceId = (Integer) request.get("audienceId");
+            String title = (String) request.get("title");
+            String content = (String) request.get("content");
+
+            if (audienceType == null || title == null || content == null) {
+                return ResponseMessage.error("参数错误");
+            }
+
+            Integer jobId = broadcastService.startBroadcast(audienceType, audienceId, title, content);
+            return ResponseMessage.success(jobId);
+        } catch (Exception e) {
+            return ResponseMessage.error("群发失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询群发进度（管理员接口）
+     *
+     * 前端请求方式：GET
+     * 请求URL：localhost:8081/notification/broadcast/{jobId}
+     * 返回值：任务状态（0-进行中 1-已完成 2-失败）、已发送数量、游标、耗时和每秒发送数
+     * 权限：系统管理员
+     */
+    @GetMapping("/broadcast/{jobId}")
+    public ResponseMessage getBroadcastProgress(@PathVariable @NotNull Integer jobId) {
+        try {
+            Map<String, Object> userInfo = ThreadLocalUtil.get();
+            Integer adminId = (Integer) userInfo.get("userId");
+            if (!systemAdminService.isSystemAdmin(adminId)) {
+                return ResponseMessage.error("无系统管理员权限");
+            }
+
+            Map<String, Object> result = broadcastService.getProgress(jobId);
+            if (result == null) {
+                return ResponseMessage.error("群发任务不存在");
+            }
+            return ResponseMessage.success(result);
+        } catch (Exception e) {
+            return ResponseMessage.error("查询群发进度失败: " + e.getMessage());
+        }
+    }
     /**
      * 清理过期通知（系统接口）
      *
@@ -1,7 +1,7 @@
 package com.example1.demo2.controller;
 
+import com.example1.demo2.pojo.dto.UserPrincipal;
 import com.example1.demo2.service.impl.WebSocketNotificationService;
-import com.example1.demo2.util.ThreadLocalUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
@@ -9,6 +9,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 
+import java.security.Principal;
 import java.util.Map;
 
 /**
@@ -24,21 +25,15 @@ public class NotificationWebSocketController {
 
     /**
      * 用户连接WebSocket
+     * 登录主体已在CONNECT帧上绑定，会话登记由连接事件完成
      */
     @MessageMapping("/connect")
     @SendTo("/topic/connected")
-    public Map<String, Object> connect(SimpMessageHeaderAccessor headerAccessor) {
-        // 获取当前用户ID
-        Map<String, Object> userInfo = ThreadLocalUtil.get();
-        Integer userId = (Integer) userInfo.get("userId");
-
-        if (userId != null) {
-            String sessionId = headerAccessor.getSessionId();
-            webSocketService.userOnline(userId, sessionId);
-
+    public Map<String, Object> connect(Principal principal) {
+        if (principal instanceof UserPrincipal userPrincipal) {
             return Map.of(
                     "status", "connected",
-                    "userId", userId,
+                    "userId", userPrincipal.getUserId(),
                     "onlineCount", webSocketService.getOnlineUserCount()
             );
         }
@@ -50,12 +45,7 @@ public class NotificationWebSocketController {
      * 用户断开连接
      */
     @MessageMapping("/disconnect")
-    public void disconnect() {
-        Map<String, Object> userInfo = ThreadLocalUtil.get();
-        Integer userId = (Integer) userInfo.get("userId");
-
-        if (userId != null) {
-            webSocketService.userOffline(userId);
-        }
+    public void disconnect(SimpMessageHeaderAccessor headerAccessor) {
+        webSocketService.sessionClosed(headerAccessor.getSessionId());
     }
 }
\ No newline at end of file
@@ -45,18 +45,13 @@ public class PlanetAccessController {
         Map<String, Object> userInfo = ThreadLocalUtil.get();
         Integer userId = (Integer) userInfo.get("userId");
 
-        // 检查用户燃料值是否足够
-        if (!rewardService.hasSufficientFuel(userId, 1)) {
-            return ResponseMessage.error("燃料值不足，无法搜索星球");
-        }
-
         // 查询星球
         List<KnowledgePlanet> planets = planetAccessService.findByTitle(planetName);
         if(planets.isEmpty()) {
             return ResponseMessage.error("没有找到相关星球");
         }
 
-        // 扣除燃料值（只有找到星球才扣除）
+        // 扣除燃料值（只有找到星球才扣除），余额检查和扣减在同一条语句中完成
         try {
             rewardService.consumeForPlanetAccess(userId);
         } catch (Exception e) {
@@ -67,25 +62,32 @@ public class PlanetAccessController {
         List<KnowledgePlanetDto> dtoList = ConvertUtil.convertKnowledgePlanetListToDtoList(planets);
         return ResponseMessage.success(dtoList);
     }
+
+    /**
+     * 星球标题补全（按访问量排序，不消耗燃料值）
+     * 前端请求方式：GET
+     * 请求URL：localhost:8081/planet/access/suggest?prefix=标题前缀
+     * 返回值：成功返回标题列表
+     */
+    @GetMapping("/suggest")
+    public ResponseMessage<List<String>> suggest(@RequestParam("prefix") String prefix) {
+        return ResponseMessage.success(planetAccessService.suggestTitles(prefix, 10));
+    }
+
     /**
      * 随机访问星球
      * 前端请求方式：GET
-     * 请求URL：localhost:8081/planet/access/randomAccess
+     * 请求URL：localhost:8081/planet/access/randomAccess?mode=抽样方式（可选：uniform、brightness、popularity）
      * 返回值：成功返回星球信息，失败返回错误信息
      */
     @GetMapping("/randomAccess")
     @Transactional
-    public ResponseMessage<KnowledgePlanetDto> randomAccess() {
+    public ResponseMessage<KnowledgePlanetDto> randomAccess(@RequestParam(value = "mode", required = false) String mode) {
         // 获取当前用户ID
         Map<String, Object> userInfo = ThreadLocalUtil.get();
         Integer userId = (Integer) userInfo.get("userId");
 
-        // 检查用户燃料值是否足够
-        if (!rewardService.hasSufficientFuel(userId, 1)) {
-            return ResponseMessage.error("燃料值不足，无法访问星球");
-        }
-
-        // 扣除燃料值
+        // 扣除燃料值，余额检查和扣减在同一条语句中完成
         try {
             rewardService.consumeForPlanetAccess(userId);
         } catch (Exception e) {
@@ -93,7 +95,7 @@ public class PlanetAccessController {
         }
 
         // 随机访问星球
-        KnowledgePlanet p = planetAccessService.findRandomPlanet();
+        KnowledgePlanet p = planetAccessService.findRandomPlanet(userId, mode);
         if(p == null) {
             return ResponseMessage.error("没有可访问的星球");
         }
@@ -107,16 +109,18 @@ public class PlanetAccessController {
     }
 
     /**
-     * 展示访问量前10且visibility为1的星球
+     * 展示近期最热门的前10个公开星球（访问和评论点赞计入热度，热度随时间衰减）
      * 前端请求方式：GET
-     * 请求URL：localhost:8081/planet/access/loadinghotplanets
+     * 请求URL：localhost:8081/planet/access/loadinghotplanets?galaxyId=星系ID&themeId=主题ID（均可选）
      * 返回值：成功返回星球列表，失败返回错误信息
      */
 
     @GetMapping("/loadinghotplanets")
-    public ResponseMessage<List<KnowledgePlanetDto>> loadinghotplanets() {
-        //获取访问量前10的星球
-        List<KnowledgePlanet> planets = planetAccessService.getTop10Planets();
+    public ResponseMessage<List<KnowledgePlanetDto>> loadinghotplanets(
+            @RequestParam(value = "galaxyId", required = false) String galaxyId,
+            @RequestParam(value = "themeId", required = false) Integer themeId) {
+        //获取热度前10的星球
+        List<KnowledgePlanet> planets = planetAccessService.getHotPlanets(galaxyId, themeId, 10);
         if(planets.isEmpty()) {
             return ResponseMessage.error("没有可访问的星球");
         }
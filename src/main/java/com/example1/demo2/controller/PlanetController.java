@@ -3,6 +3,7 @@ package com.example1.demo2.controller;
 import com.example1.demo2.pojo.KnowledgePlanet;
 import com.example1.demo2.pojo.User;
 import com.example1.demo2.pojo.dto.KnowledgePlanetDto;
+import com.example1.demo2.pojo.dto.PlanetSearchHitDto;
 import com.example1.demo2.pojo.dto.ResponseMessage;
 import com.example1.demo2.service.IPlanetService;
 import com.example1.demo2.service.IRewardService;
@@ -19,6 +20,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -139,6 +141,25 @@ public class PlanetController {
         }
     }
 
+    /**
+     * 全文检索星球（标题、描述和详情）
+     * 前端请求方式：GET
+     * 请求URL：localhost:8081/planet/searchContent?keyword=关键词（多个用空格分隔）&limit=返回数量（可选，默认20，最多50）
+     * 返回值：成功返回命中的星球及摘要片段（公开星球和自己的私有星球）
+     */
+    @GetMapping("/searchContent")
+    public ResponseMessage<List<PlanetSearchHitDto>> searchContent(
+            @RequestParam("keyword") String keyword,
+            @RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+        Map<String,Object> map = ThreadLocalUtil.get();
+        Integer userId= (Integer) map.get("userId");
+        if (keyword.trim().isEmpty()) {
+            return ResponseMessage.error("关键词不能为空");
+        }
+        List<PlanetSearchHitDto> hits = planetService.searchContent(keyword, userId, Math.max(1, Math.min(limit, 50)));
+        return ResponseMessage.success(hits);
+    }
+
     /**
      * 更新星球标题
      * 前端请求方式：PUT
@@ -2,7 +2,9 @@ package com.example1.demo2.controller;
 
 import com.example1.demo2.pojo.SystemAdmin;
 import com.example1.demo2.pojo.dto.ResponseMessage;
+import com.example1.demo2.service.IPlanetService;
 import com.example1.demo2.service.ISystemAdminService;
+import com.example1.demo2.service.impl.PasswordHasher;
 import com.example1.demo2.util.ThreadLocalUtil;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,12 @@ public class SystemAdminController {
     @Autowired
     private ISystemAdminService systemAdminService;
 
+    @Autowired
+    private IPlanetService planetService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     /**
      * 删除星系违规评论
      * 前端请求方式：DELETE
@@ -252,6 +260,55 @@ public class SystemAdminController {
         }
     }
 
+    /**
+     * 重建星球全文索引（后台执行，重建期间检索继续使用旧索引）
+     * 前端请求方式：POST
+     * 请求URL：localhost:8081/admin/planet/reindex
+     * 返回值：成功信息
+     * 权限：系统管理员
+     */
+    @PostMapping("/planet/reindex")
+    public ResponseMessage reindexPlanets() {
+        try {
+            Map<String, Object> userInfo = ThreadLocalUtil.get();
+            Integer adminId = (Integer) userInfo.get("userId");
+
+            if (!systemAdminService.isSystemAdmin(adminId)) {
+                return ResponseMessage.error("无系统管理员权限");
+            }
+
+            if (planetService.reindexContent()) {
+                return ResponseMessage.success("已开始重建索引");
+            }
+            return ResponseMessage.error("索引正在重建中");
+        } catch (Exception e) {
+            return ResponseMessage.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 密码哈希运行统计
+     * 前端请求方式：GET
+     * 请求URL：localhost:8081/admin/password-hash/stats
+     * 返回值：哈希强度、线程数、排队数、哈希/校验次数、拒绝和超时次数、平均耗时和排队等待时间（毫秒）
+     * 权限：系统管理员
+     */
+    @GetMapping("/password-hash/stats")
+    public ResponseMessage passwordHashStats() {
+        try {
+            Map<String, Object> userInfo = ThreadLocalUtil.get();
+            Integer adminId = (Integer) userInfo.get("userId");
+
+            if (!systemAdminService.isSystemAdmin(adminId)) {
+                return ResponseMessage.error("无系统管理员权限");
+            }
+
+            return ResponseMessage.success(passwordHasher.getStats());
+        } catch (Exception e) {
+            return ResponseMessage.error(e.getMessage());
+        }
+    }
+
     /**
      * 判断是不是系统管理员接口
      * 前端请求方式：GET
@@ -9,7 +9,6 @@ import com.example1.demo2.pojo.dto.UserDto;
 import com.example1.demo2.pojo.dto.updatePasswordDto;
 import com.example1.demo2.service.IUserService;
 import com.example1.demo2.service.impl.PlanetService;
-import com.example1.demo2.util.BCryptUtil;
 import com.example1.demo2.util.ConvertUtil;
 import com.example1.demo2.util.JWTUtil;
 import com.example1.demo2.util.ThreadLocalUtil;
@@ -57,11 +56,14 @@ public class UserController {
             return ResponseMessage.error("缺少必要的参数！");
         }
 
-        User u=userService.findByNickname(user.getNickname());
-        if(u!=null) {
+        if(userService.isNicknameTaken(user.getNickname())) {
             //用户名已经占用
             return ResponseMessage.error("用户名已被占用，请重新输入");
         }
+        else if(userService.isEmailTaken(user.getEmail())) {
+            //邮箱已被其他用户绑定
+            return ResponseMessage.error("该邮箱已绑定其他用户！");
+        }
         else{
             //没有占用
             userService.register(user.getNickname(),user.getPassword(),user.getEmail());
@@ -84,7 +86,7 @@ public class UserController {
     public ResponseMessage<String> login(@Valid @RequestBody UserDto user) {
         //查询用户并匹配密码
         User u=userService.findByNickname(user.getNickname());
-        if(u!=null && BCryptUtil.verifyPassword(user.getPassword(),u.getPassword())) {
+        if(u!=null && userService.checkPassword(u,user.getPassword())) {
             //用户登录
             Map<String,Object> claims=new HashMap<>();
             claims.put("userId",u.getUserId());
@@ -102,6 +104,21 @@ public class UserController {
         }
     }
 
+    /**
+     * 退出登录接口
+     * 前端请求方式：POST
+     * 请求URL：localhost:8081/user/logout
+     * 请求参数：请求头Authorization中的令牌
+     * 返回值：成功返回成功信息，之后该令牌不能再使用；旧版本签发的令牌无法单独吊销，返回错误信息
+     */
+    @PostMapping("/logout")
+    public ResponseMessage<String> logout(@RequestHeader("Authorization") String token) {
+        if (!userService.logout(token)) {
+            return ResponseMessage.error("当前令牌不支持退出登录，请重新登录后再试");
+        }
+        return ResponseMessage.success("已退出登录");
+    }
+
     /**
      * 用户信息查看接口
      * 前端请求方式：GET
@@ -157,8 +174,7 @@ public class UserController {
         }
 
         //验证重复昵称
-        User u2=userService.findByNickname(user.getNickname());
-        if(u2!=null) {
+        if(userService.isNicknameTaken(user.getNickname())) {
             return ResponseMessage.error("该昵称已被占用");
         }
 
@@ -260,12 +276,12 @@ public class UserController {
         if(u==null) {
             return ResponseMessage.error("用户不存在或登录状态已过期");
         }
-        if(!BCryptUtil.verifyPassword(oldpassword,u.getPassword())) {
+        if(!userService.checkPassword(u,oldpassword)) {
             return ResponseMessage.error("原密码输入不正确！");
         }
 
         //验证新密码和旧密码
-        if(BCryptUtil.verifyPassword(newpassword,u.getPassword())) {
+        if(userService.checkPassword(u,newpassword)) {
             return ResponseMessage.success("新密码不能和原密码相同！");
         }
 
@@ -302,8 +318,7 @@ public class UserController {
         }
 
         //获取邮箱绑定情况
-        User u2=userService.findByEmail(user.getEmail());
-        if(u2!=null){
+        if(userService.isEmailTaken(user.getEmail())){
             //邮箱已被其他用户绑定
             return ResponseMessage.error("该邮箱已绑定其他用户！");
         }
@@ -476,11 +491,13 @@ public class UserController {
      * 请求参数（Param格式）：
      * {
      *   "name": String             // 星系名称（必填）
+     *   "labels": String           // 标签，多个用逗号分隔，命中任一即可（可选）
      * }
      * 返回值：用户自己的星系信息列表
      */
     @GetMapping("/selectmygalaxy")
-    public ResponseMessage<List<KnowledgeGalaxyDto>> selectMyGalaxy(@RequestParam("name") String name) {
+    public ResponseMessage<List<KnowledgeGalaxyDto>> selectMyGalaxy(@RequestParam("name") String name,
+                                                                    @RequestParam(value = "labels", required = false) List<String> labels) {
         // 获取当前用户ID
         Map<String, Object> map = ThreadLocalUtil.get();
         Integer userId = (Integer) map.get("userId");
@@ -498,7 +515,7 @@ public class UserController {
 
         // 根据星系名称和用户ID获取用户创建的星系列表
         // 这里假设有一个方法可以根据名称和创建者ID进行模糊搜索
-        List<KnowledgeGalaxy> myGalaxies = userService.GetGalaxiesByNameAndCreatorId(name, userId);
+        List<KnowledgeGalaxy> myGalaxies = userService.GetGalaxiesByNameAndCreatorId(name, userId, labels);
 
         if (myGalaxies == null || myGalaxies.isEmpty()) {
             return ResponseMessage.error("未找到您创建的相关星系");
@@ -519,11 +536,13 @@ public class UserController {
      * 请求参数（Param格式）：
      * {
      *   "name": String             // 星系名称（必填）
+     *   "labels": String           // 标签，多个用逗号分隔，命中任一即可（可选）
      * }
      * 返回值：他人公开的星系信息列表
      */
     @GetMapping("/selectothersgalaxy")
-    public ResponseMessage<List<KnowledgeGalaxyDto>> selectOthersGalaxy(@RequestParam("name") String name) {
+    public ResponseMessage<List<KnowledgeGalaxyDto>> selectOthersGalaxy(@RequestParam("name") String name,
+                                                                        @RequestParam(value = "labels", required = false) List<String> labels) {
         // 获取当前用户ID（用于排除自己的星系）
         Map<String, Object> map = ThreadLocalUtil.get();
         Integer userId = (Integer) map.get("userId");
@@ -541,7 +560,7 @@ public class UserController {
 
         // 根据星系名称获取所有匹配的星系（排除当前用户创建的）
         // 这里假设有一个方法可以进行模糊搜索并排除特定用户的星系
-        List<KnowledgeGalaxy> othersGalaxies = userService.GetGalaxiesByNameExcludeUser(name, userId);
+        List<KnowledgeGalaxy> othersGalaxies = userService.GetGalaxiesByNameExcludeUser(name, userId, labels);
 
         if (othersGalaxies == null || othersGalaxies.isEmpty()) {
             return ResponseMessage.error("未找到其他用户的相关星系");
@@ -0,0 +1,10 @@
+package com.example1.demo2.exception;
+
+//余额不足异常
+//扣减燃料值或知识星云值时余额不够，条件更新没有修改任何数据，
+//所以不需要回滚外层事务，调用方捕获后直接返回提示即可
+public class InsufficientBalanceException extends RuntimeException {
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,11 @@ package com.example1.demo2.interceptors;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.UserPrincipal;
 import com.example1.demo2.service.IUserService;
-import com.example1.demo2.util.JWTUtil;
+import com.example1.demo2.service.impl.AuthRevocationGate;
+import com.example1.demo2.service.impl.TokenPrincipalCache;
+import com.example1.demo2.service.impl.UserDataLoader;
 import com.example1.demo2.util.ThreadLocalUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -11,13 +14,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import java.util.Map;
 
 //登录拦截器
 @Component
 public class Logininterceptor implements HandlerInterceptor {
     @Autowired
     private IUserService userService;
+    @Autowired
+    private UserDataLoader userDataLoader;
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+    @Autowired
+    private AuthRevocationGate authRevocationGate;
     @Override
 
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception{
@@ -31,14 +39,19 @@ public class Logininterceptor implements HandlerInterceptor {
         }
         //令牌认证
         String token=request.getHeader("Authorization");
-        //验证Token
+        //验证Token，同一令牌的解析结果在过期前复用
         try {
-            Map<String,Object> claims= JWTUtil.ParseToken(token);
-
-            Integer userId = (Integer) claims.get("userId");
+            UserPrincipal principal = tokenPrincipalCache.authenticate(token);
+            //用户被封禁、已注销或令牌已吊销
+            if (authRevocationGate.isRevoked(principal)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return false;
+            }
 
             //将业务数据存储到Threadlocal中，多线程运行
-            ThreadLocalUtil.set(claims);
+            ThreadLocalUtil.set(principal.getClaims());
+            //开启请求级用户缓存
+            userDataLoader.open();
 
             //放行
             return true;
@@ -54,6 +67,7 @@ public class Logininterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,Exception ex) throws Exception {
         //清空，防止内存泄漏
         ThreadLocalUtil.remove();
+        userDataLoader.close();
     }
 }
 
@@ -0,0 +1,54 @@
+package com.example1.demo2.interceptors;
+
+import com.example1.demo2.pojo.dto.UserPrincipal;
+import com.example1.demo2.service.impl.AuthRevocationGate;
+import com.example1.demo2.service.impl.TokenPrincipalCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+//WebSocket登录拦截器
+//HTTP的登录拦截器不作用于WebSocket帧，这里在STOMP CONNECT帧上验证一次JWT，
+//把登录主体绑定到会话，之后的帧由Spring从会话中取出主体，不再解析令牌
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+
+    @Autowired
+    private AuthRevocationGate authRevocationGate;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        //令牌放在CONNECT帧的Authorization头中
+        String token = accessor.getFirstNativeHeader("Authorization");
+        try {
+            UserPrincipal principal = tokenPrincipalCache.authenticate(token);
+            if (authRevocationGate.isRevoked(principal)) {
+                throw new IllegalStateException("用户已被封禁或令牌已吊销");
+            }
+            accessor.setUser(principal);
+            return message;
+        } catch (Exception e) {
+            //拒绝连接，客户端收到ERROR帧
+            logger.debug("WebSocket连接认证失败，会话ID: {}", accessor.getSessionId());
+            throw new MessageDeliveryException(message, "未登录");
+        }
+    }
+}
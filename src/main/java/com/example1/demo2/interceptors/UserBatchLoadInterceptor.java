@@ -0,0 +1,107 @@
+package com.example1.demo2.interceptors;
+
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.UserDataLoader;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//MyBatis拦截器：批量补全结果映射中只填充了ID的用户对象
+//结果映射写成 @Result(property = "sender.userId", column = "sender_id") 即可，
+//一页结果中的所有用户只需一次 UserMapper.findByIds 查询
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class UserBatchLoadInterceptor implements Interceptor {
+    //延迟注入，避免 SqlSessionFactory -> 拦截器 -> Mapper 的循环依赖
+    @Lazy
+    @Autowired
+    private UserDataLoader userDataLoader;
+
+    //语句ID -> 需要补全的用户属性名
+    private final Map<String, List<String>> userPropertiesCache = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!(result instanceof List<?> rows) || rows.isEmpty()) {
+            return result;
+        }
+
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        List<String> properties = userPropertiesCache.computeIfAbsent(ms.getId(), id -> findUserProperties(ms));
+        if (properties.isEmpty()) {
+            return result;
+        }
+
+        //收集本页所有用户ID
+        Configuration configuration = ms.getConfiguration();
+        List<MetaObject> metaObjects = new ArrayList<>(rows.size());
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Object row : rows) {
+            MetaObject metaObject = configuration.newMetaObject(row);
+            metaObjects.add(metaObject);
+            for (String property : properties) {
+                if (metaObject.getValue(property) instanceof User user && user.getUserId() != null) {
+                    userIds.add(user.getUserId());
+                }
+            }
+        }
+
+        //一次查询取回，再回填到各行
+        Map<Integer, User> users = userDataLoader.loadMany(userIds);
+        for (MetaObject metaObject : metaObjects) {
+            for (String property : properties) {
+                if (metaObject.getValue(property) instanceof User user && user.getUserId() != null) {
+                    //与原先的嵌套查询保持一致：用户不存在时为null
+                    metaObject.setValue(property, users.get(user.getUserId()));
+                }
+            }
+        }
+        return result;
+    }
+
+    //找出结果映射中形如 xxx.userId 且 xxx 为 User 类型的属性
+    private List<String> findUserProperties(MappedStatement ms) {
+        List<String> properties = new ArrayList<>();
+        Configuration configuration = ms.getConfiguration();
+        for (ResultMap resultMap : ms.getResultMaps()) {
+            MetaClass metaClass = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+            for (ResultMapping mapping : resultMap.getPropertyResultMappings()) {
+                String property = mapping.getProperty();
+                if (property == null || !property.endsWith(".userId")) {
+                    continue;
+                }
+                String prefix = property.substring(0, property.length() - ".userId".length());
+                if (metaClass.hasGetter(prefix) && metaClass.getGetterType(prefix) == User.class
+                        && !properties.contains(prefix)) {
+                    properties.add(prefix);
+                }
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example1.demo2.mapper;
+
+import com.example1.demo2.pojo.Announcement;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 全站公告Mapper接口
+ */
+@Mapper
+public interface AnnouncementMapper {
+
+    /**
+     * 发布公告
+     * create_time 由调用方设置，保证与推送给前端的时间一致
+     */
+    @Insert("INSERT INTO tab_announcement(title, content, status, create_time) " +
+            "VALUES(#{title}, #{content}, #{status}, #{createTime})")
+    @Options(useGeneratedKeys = true, keyProperty = "announcementId", keyColumn = "announcement_id")
+    void insertAnnouncement(Announcement announcement);
+
+    /**
+     * 查询最近若干天内的有效公告，按ID从新到旧
+     */
+    @Select("SELECT * FROM tab_announcement " +
+            "WHERE status = 0 AND create_time > DATE_SUB(NOW(), INTERVAL #{days} DAY) " +
+            "ORDER BY announcement_id DESC")
+    List<Announcement> getRecentAnnouncements(@Param("days") int days);
+}
@@ -0,0 +1,83 @@
+package com.example1.demo2.mapper;
+
+import com.example1.demo2.pojo.BroadcastJob;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 群发任务Mapper接口
+ * 包括任务进度的读写和按受众游标分页查询接收者
+ */
+@Mapper
+public interface BroadcastJobMapper {
+
+    /**
+     * 创建群发任务
+     */
+    @Insert("INSERT INTO tab_broadcast_job(audience_type, audience_id, title, content, status, " +
+            "cursor_user_id, sent_count, create_time, update_time) " +
+            "VALUES(#{audienceType}, #{audienceId}, #{title}, #{content}, #{status}, " +
+            "#{cursorUserId}, #{sentCount}, now(), now())")
+    @Options(useGeneratedKeys = true, keyProperty = "jobId", keyColumn = "job_id")
+    void insertJob(BroadcastJob job);
+
+    /**
+     * 根据ID查询群发任务
+     */
+    @Select("SELECT * FROM tab_broadcast_job WHERE job_id = #{jobId}")
+    BroadcastJob getJobById(Integer jobId);
+
+    /**
+     * 查询未完成的群发任务，用于服务重启后继续发送
+     */
+    @Select("SELECT * FROM tab_broadcast_job WHERE status = 0 ORDER BY job_id")
+    List<BroadcastJob> getRunningJobs();
+
+    /**
+     * 保存进度游标
+     */
+    @Update("UPDATE tab_broadcast_job SET cursor_user_id = #{cursorUserId}, sent_count = #{sentCount}, " +
+            "update_time = now() WHERE job_id = #{jobId}")
+    void updateProgress(@Param("jobId") Integer jobId,
+                        @Param("cursorUserId") Integer cursorUserId,
+                        @Param("sentCount") Integer sentCount);
+
+    /**
+     * 结束任务
+     */
+    @Update("UPDATE tab_broadcast_job SET status = #{status}, update_time = now(), finish_time = now() " +
+            "WHERE job_id = #{jobId}")
+    void finishJob(@Param("jobId") Integer jobId, @Param("status") Integer status);
+
+    /**
+     * 按用户ID游标查询一页接收者
+     * 只返回ID大于游标的用户，按ID升序，避免 OFFSET 翻页越翻越慢
+     * 受众类型：0-全体正常用户 1-星系创建者、管理员和星球作者 2-用户的好友
+     */
+    @Select("<script>" +
+            "<choose>" +
+            "<when test='audienceType == 1'>" +
+            "SELECT uid FROM (" +
+            "SELECT user_id AS uid FROM tab_knowledge_galaxy WHERE galaxy_id = #{audienceId} " +
+            "UNION SELECT user_id FROM tab_galaxy_admins WHERE galaxy_id = #{audienceId} AND status = 0 " +
+            "UNION SELECT user_id FROM tab_knowledge_planet WHERE galaxy_id = #{audienceId}" +
+            ") members WHERE uid &gt; #{afterUserId} ORDER BY uid LIMIT #{size}" +
+            "</when>" +
+            "<when test='audienceType == 2'>" +
+            "SELECT uid FROM (" +
+            "SELECT friend_user_id AS uid FROM tab_friend WHERE user_id = #{audienceId} AND status = 1 " +
+            "UNION SELECT user_id FROM tab_friend WHERE friend_user_id = #{audienceId} AND status = 1" +
+            ") friends WHERE uid &gt; #{afterUserId} ORDER BY uid LIMIT #{size}" +
+            "</when>" +
+            "<otherwise>" +
+            "SELECT user_id FROM tab_user WHERE status = 0 AND user_id &gt; #{afterUserId} " +
+            "ORDER BY user_id LIMIT #{size}" +
+            "</otherwise>" +
+            "</choose>" +
+            "</script>")
+    List<Integer> getAudienceUserIds(@Param("audienceType") Integer audienceType,
+                                     @Param("audienceId") Integer audienceId,
+                                     @Param("afterUserId") Integer afterUserId,
+                                     @Param("size") int size);
+}
@@ -54,6 +54,12 @@ public interface FriendMapper {
             "AND status = 0 ORDER BY create_time DESC")
     List<Friend> getPendingRequests(Integer userId);
 
+    /**
+     * 统计待处理的好友请求数量
+     */
+    @Select("SELECT COUNT(*) FROM tab_friend WHERE friend_user_id = #{userId} AND status = 0")
+    int countPendingRequests(Integer userId);
+
     /**
      * 删除好友关系
      */
@@ -86,6 +92,12 @@ public interface FriendMapper {
 
     // ==================== 级联删除相关方法 ====================
 
+    /**
+     * 获取用户发出的、尚待对方处理的好友请求的接收者ID
+     */
+    @Select("SELECT DISTINCT friend_user_id FROM tab_friend WHERE user_id = #{userId} AND status = 0")
+    List<Integer> getPendingReceiverIds(Integer userId);
+
     /**
      * 删除用户的所有好友关系记录（硬删除）
      * 包括用户作为请求方和被请求方的所有记录
@@ -3,7 +3,9 @@ package com.example1.demo2.mapper;
 import com.example1.demo2.pojo.GalaxyComment;
 import jakarta.validation.constraints.NotNull;
 import org.apache.ibatis.annotations.*;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface GalaxyCommentMapper {
@@ -26,8 +28,7 @@ public interface GalaxyCommentMapper {
     @Select("SELECT * FROM tab_galaxy_comment WHERE galaxy_comment_id = #{commentId}")
     @Results({
             @Result(property = "galaxyCommentId", column = "galaxy_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgeGalaxy", column = "galaxy_id",
                     one = @One(select = "com.example1.demo2.mapper.GalaxyMapper.getKnowledgeGalaxyById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -46,8 +47,7 @@ public interface GalaxyCommentMapper {
             "ORDER BY release_time DESC LIMIT #{offset}, #{size}")
     @Results({
             @Result(property = "galaxyCommentId", column = "galaxy_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgeGalaxy", column = "galaxy_id",
                     one = @One(select = "com.example1.demo2.mapper.GalaxyMapper.getKnowledgeGalaxyById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -67,8 +67,7 @@ public interface GalaxyCommentMapper {
             "AND status = 0 ORDER BY release_time ASC")
     @Results({
             @Result(property = "galaxyCommentId", column = "galaxy_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgeGalaxy", column = "galaxy_id",
                     one = @One(select = "com.example1.demo2.mapper.GalaxyMapper.getKnowledgeGalaxyById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -78,6 +77,42 @@ public interface GalaxyCommentMapper {
     })
     List<GalaxyComment> getRepliesByParentId(Integer parentId);
 
+    // ==================== 评论树批量加载相关方法 ====================
+
+    /**
+     * 查询星系的一级评论（分页，不级联查询星系）
+     * 用户只映射ID，由 UserBatchLoadInterceptor 在查询返回后按整页批量补全；
+     * 星系只填充ID，由评论树加载器统一补全
+     */
+    @Select("SELECT * FROM tab_galaxy_comment WHERE galaxy_id = #{galaxyId} " +
+            "AND parent_comment_id = 0 AND status = 0 " +
+            "ORDER BY release_time DESC LIMIT #{offset}, #{size}")
+    @Results(id = "galaxyCommentRowMap", value = {
+            @Result(property = "galaxyCommentId", column = "galaxy_comment_id", id = true),
+            @Result(property = "user.userId", column = "user_id"),
+            @Result(property = "knowledgeGalaxy.galaxyId", column = "galaxy_id"),
+            @Result(property = "parentId", column = "parent_comment_id"),
+            @Result(property = "replyToUserId", column = "reply_to_user_id"),
+            @Result(property = "createTime", column = "release_time"),
+            @Result(property = "updateTime", column = "update_time")
+    })
+    List<GalaxyComment> getFirstLevelCommentRows(@Param("galaxyId") @NotNull Integer galaxyId,
+                                                 @Param("offset") int offset,
+                                                 @Param("size") int size);
+
+    /**
+     * 批量查询多个父评论的直接回复（不级联查询星系，用户由拦截器批量补全）
+     */
+    @Select("<script>" +
+            "SELECT * FROM tab_galaxy_comment WHERE status = 0 AND parent_comment_id IN " +
+            "<foreach collection='parentIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach> " +
+            "ORDER BY release_time ASC" +
+            "</script>")
+    @ResultMap("galaxyCommentRowMap")
+    List<GalaxyComment> getReplyRowsByParentIds(@Param("parentIds") List<Integer> parentIds);
+
     /**
      * 更新评论状态（软删除）
      */
@@ -92,17 +127,33 @@ public interface GalaxyCommentMapper {
     void deleteComment(Integer commentId);
 
     /**
-     * 增加点赞数
+     * 批量写回点赞数增量
+     * 一条 UPDATE ... CASE 更新多条评论，点赞数不会被减到0以下
      */
-    @Update("UPDATE tab_galaxy_comment SET like_count = like_count + 1 WHERE galaxy_comment_id = #{commentId}")
-    void increaseLikeCount(Integer commentId);
+    @Update("<script>" +
+            "UPDATE tab_galaxy_comment SET like_count = GREATEST(like_count + CASE galaxy_comment_id " +
+            "<foreach collection='deltas' index='id' item='delta'>" +
+            "WHEN #{id} THEN #{delta} " +
+            "</foreach>" +
+            "END, 0) WHERE galaxy_comment_id IN " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int applyLikeDeltas(@Param("deltas") Map<Integer, Long> deltas);
 
     /**
-     * 减少点赞数
+     * 按点赞表重新统计点赞数
      */
-    @Update("UPDATE tab_galaxy_comment SET like_count = like_count - 1 WHERE galaxy_comment_id = #{commentId} " +
-            "AND like_count > 0")
-    void decreaseLikeCount(Integer commentId);
+    @Update("<script>" +
+            "UPDATE tab_galaxy_comment c SET like_count = " +
+            "(SELECT COUNT(*) FROM tab_galaxy_comment_like l WHERE l.galaxy_comment_id = c.galaxy_comment_id) " +
+            "WHERE c.galaxy_comment_id IN " +
+            "<foreach collection='commentIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int recountLikes(@Param("commentIds") Collection<Integer> commentIds);
 
     /**
      * 增加回复数
@@ -126,9 +177,22 @@ public interface GalaxyCommentMapper {
 
     /**
      * 删除点赞记录
+     * @return 删除的行数，为0说明尚未点赞
      */
     @Delete("DELETE FROM tab_galaxy_comment_like WHERE user_id = #{userId} AND galaxy_comment_id = #{commentId}")
-    void deleteLike(@Param("userId") Integer userId, @Param("commentId") Integer commentId);
+    int deleteLike(@Param("userId") Integer userId, @Param("commentId") Integer commentId);
+
+    /**
+     * 批量查询评论的全部点赞用户
+     * 每行包含 comment_id 和 user_id
+     */
+    @Select("<script>" +
+            "SELECT galaxy_comment_id AS comment_id, user_id FROM tab_galaxy_comment_like WHERE galaxy_comment_id IN " +
+            "<foreach collection='commentIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Map<String, Object>> getLikersByCommentIds(@Param("commentIds") Collection<Integer> commentIds);
 
     /**
      * 检查是否已点赞
@@ -110,6 +110,23 @@ public interface GalaxyMapper {
     @Select("select * from tab_knowledge_galaxy where name like concat('%', #{name}, '%') and user_id != #{userId}")
     List<KnowledgeGalaxy> searchByNameExcludeUser(String name, Integer userId);
 
+    /**
+     * 星系目录启动加载用，只取建索引需要的列
+     */
+    @Select("select galaxy_id, user_id, name, label from tab_knowledge_galaxy")
+    List<KnowledgeGalaxy> getDirectoryRows();
+
+    /**
+     * 按ID批量查询星系，不保证顺序
+     */
+    @Select("<script>" +
+            "select * from tab_knowledge_galaxy where galaxy_id in " +
+            "<foreach collection='galaxyIds' item='galaxyId' open='(' separator=',' close=')'>" +
+            "#{galaxyId}" +
+            "</foreach>" +
+            "</script>")
+    List<KnowledgeGalaxy> getGalaxiesByIds(@Param("galaxyIds") List<Integer> galaxyIds);
+
     /**
      * 获取最大星系ID
      * return 返回当前最大的星系ID，如果没有星系则返回null
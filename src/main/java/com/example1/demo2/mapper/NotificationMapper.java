@@ -13,6 +13,21 @@ import java.util.Map;
 @Mapper
 public interface NotificationMapper {
 
+    /**
+     * 连接已读水位线：m_all 为全部类型的水位线，m_type 为通知所属类型的水位线
+     * 使用时通知表别名为 n
+     */
+    String READ_MARK_JOIN =
+            "LEFT JOIN tab_notification_read_mark m_all ON m_all.user_id = n.receiver_id AND m_all.type = 0 " +
+            "LEFT JOIN tab_notification_read_mark m_type ON m_type.user_id = n.receiver_id AND m_type.type = n.type ";
+
+    /**
+     * 未读条件：行上未标记已读，且通知ID高于两条水位线
+     */
+    String UNREAD_CONDITION =
+            "(n.is_read = 0 AND n.notification_id > IFNULL(m_all.read_up_to, 0) " +
+            "AND n.notification_id > IFNULL(m_type.read_up_to, 0))";
+
     /**
      * 插入一条新通知
      * 注意：target_id已改为VARCHAR类型以支持不同格式的ID
@@ -26,19 +41,20 @@ public interface NotificationMapper {
 
     /**
      * 批量插入通知
-     * 用于一次性发送多条通知，比如群发功能
+     * 用于一次性发送多条通知，比如群发功能和通知发件箱的批量派发
      */
     @Insert("<script>" +
             "INSERT INTO tab_notification(receiver_id, sender_id, type, title, content, " +
-            "target_type, target_id, create_time) VALUES " +
+            "target_type, target_id, extra_data, create_time) VALUES " +
             "<foreach collection='notifications' item='n' separator=','>" +
             "(#{n.receiver.userId}, " +
             "<if test='n.sender != null'>#{n.sender.userId}</if>" +
             "<if test='n.sender == null'>NULL</if>, " +
             "#{n.type}, #{n.title}, #{n.content}, " +
-            "#{n.targetType}, #{n.targetId}, now())" +
+            "#{n.targetType}, #{n.targetId}, #{n.extraData}, now())" +
             "</foreach>" +
             "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notifications.notificationId", keyColumn = "notification_id")
     void insertNotificationBatch(@Param("notifications") List<Notification> notifications);
 
     /**
@@ -48,10 +64,8 @@ public interface NotificationMapper {
     @Select("SELECT * FROM tab_notification WHERE notification_id = #{notificationId}")
     @Results({
             @Result(property = "notificationId", column = "notification_id"),
-            @Result(property = "receiver", column = "receiver_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
-            @Result(property = "sender", column = "sender_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "receiver.userId", column = "receiver_id"),
+            @Result(property = "sender.userId", column = "sender_id"),
             @Result(property = "targetType", column = "target_type"),
             @Result(property = "targetId", column = "target_id"),
             @Result(property = "isRead", column = "is_read"),
@@ -63,22 +77,24 @@ public interface NotificationMapper {
 
     /**
      * 查询用户的通知列表（分页）
-     * 支持按通知类型和已读状态筛选
+     * 支持按通知类型和已读状态筛选，已读状态综合了行上的标记和已读水位线
      */
     @Select("<script>" +
-            "SELECT * FROM tab_notification " +
-            "WHERE receiver_id = #{receiverId} AND status = 0 " +
-            "<if test='type != null'>AND type = #{type}</if> " +
-            "<if test='isRead != null'>AND is_read = #{isRead}</if> " +
-            "ORDER BY create_time DESC " +
+            "SELECT n.notification_id, n.receiver_id, n.sender_id, n.type, n.title, n.content, " +
+            "n.target_type, n.target_id, n.extra_data, n.status, n.create_time, n.read_time, " +
+            "CASE WHEN " + UNREAD_CONDITION + " THEN 0 ELSE 1 END AS is_read " +
+            "FROM tab_notification n " + READ_MARK_JOIN +
+            "WHERE n.receiver_id = #{receiverId} AND n.status = 0 " +
+            "<if test='type != null'>AND n.type = #{type}</if> " +
+            "<if test='isRead != null and isRead == 0'>AND " + UNREAD_CONDITION + "</if> " +
+            "<if test='isRead != null and isRead == 1'>AND NOT " + UNREAD_CONDITION + "</if> " +
+            "ORDER BY n.create_time DESC " +
             "LIMIT #{offset}, #{size}" +
             "</script>")
     @Results({
             @Result(property = "notificationId", column = "notification_id"),
-            @Result(property = "receiver", column = "receiver_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
-            @Result(property = "sender", column = "sender_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "receiver.userId", column = "receiver_id"),
+            @Result(property = "sender.userId", column = "sender_id"),
             @Result(property = "targetType", column = "target_type"),
             @Result(property = "targetId", column = "target_id"),
             @Result(property = "isRead", column = "is_read"),
@@ -97,9 +113,9 @@ public interface NotificationMapper {
      * 支持按通知类型统计
      */
     @Select("<script>" +
-            "SELECT COUNT(*) FROM tab_notification " +
-            "WHERE receiver_id = #{receiverId} AND is_read = 0 AND status = 0 " +
-            "<if test='type != null'>AND type = #{type}</if>" +
+            "SELECT COUNT(*) FROM tab_notification n " + READ_MARK_JOIN +
+            "WHERE n.receiver_id = #{receiverId} AND n.status = 0 AND " + UNREAD_CONDITION + " " +
+            "<if test='type != null'>AND n.type = #{type}</if>" +
             "</script>")
     int countUnreadNotifications(@Param("receiverId") Integer receiverId,
                                  @Param("type") Integer type);
@@ -108,9 +124,9 @@ public interface NotificationMapper {
      * 按类型统计未读通知数量
      * 返回每种类型的未读数量
      */
-    @Select("SELECT type, COUNT(*) as count FROM tab_notification " +
-            "WHERE receiver_id = #{receiverId} AND is_read = 0 AND status = 0 " +
-            "GROUP BY type")
+    @Select("SELECT n.type, COUNT(*) as count FROM tab_notification n " + READ_MARK_JOIN +
+            "WHERE n.receiver_id = #{receiverId} AND n.status = 0 AND " + UNREAD_CONDITION + " " +
+            "GROUP BY n.type")
     @MapKey("type")
     List<Map<String, Object>> countUnreadByType(Integer receiverId);
 
@@ -136,18 +152,16 @@ public interface NotificationMapper {
                         @Param("notificationIds") List<Integer> notificationIds);
 
     /**
-     * 标记用户所有通知为已读
+     * 获取用户最新一条通知的ID，用于推进已读水位线
+     * 支持按通知类型查询，没有通知时返回0
      */
-    @Update("UPDATE tab_notification SET is_read = 1, read_time = now() " +
-            "WHERE receiver_id = #{receiverId} AND is_read = 0")
-    int markAllAsRead(Integer receiverId);
-
-    /**
-     * 标记特定类型的所有通知为已读
-     */
-    @Update("UPDATE tab_notification SET is_read = 1, read_time = now() " +
-            "WHERE receiver_id = #{receiverId} AND type = #{type} AND is_read = 0")
-    int markTypeAsRead(@Param("receiverId") Integer receiverId, @Param("type") Integer type);
+    @Select("<script>" +
+            "SELECT IFNULL(MAX(notification_id), 0) FROM tab_notification " +
+            "WHERE receiver_id = #{receiverId} " +
+            "<if test='type != null'>AND type = #{type}</if>" +
+            "</script>")
+    int getMaxNotificationId(@Param("receiverId") Integer receiverId,
+                             @Param("type") Integer type);
 
     /**
      * 软删除通知
@@ -193,6 +207,55 @@ public interface NotificationMapper {
                                    @Param("targetId") String targetId,
                                    @Param("minutes") int minutes);
 
+    /**
+     * 在给定用户中查出已经收到某条群发通知的用户
+     * 用于任务恢复时跳过崩溃前已经插入的那一页
+     */
+    @Select("<script>" +
+            "SELECT receiver_id FROM tab_notification " +
+            "WHERE target_type = #{targetType} AND target_id = #{targetId} AND receiver_id IN " +
+            "<foreach collection='receiverIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Integer> getDeliveredReceiverIds(@Param("targetType") Integer targetType,
+                                          @Param("targetId") String targetId,
+                                          @Param("receiverIds") List<Integer> receiverIds);
+
+    /**
+     * 查找可聚合的通知
+     * 同一接收者、同一类型、同一目标，在窗口内创建且仍未读的最新一条
+     */
+    @Select("SELECT n.* FROM tab_notification n " + READ_MARK_JOIN +
+            "WHERE n.receiver_id = #{receiverId} AND n.type = #{type} AND n.target_id = #{targetId} " +
+            "AND n.status = 0 AND " + UNREAD_CONDITION + " " +
+            "AND n.create_time > DATE_SUB(NOW(), INTERVAL #{minutes} MINUTE) " +
+            "ORDER BY n.notification_id DESC LIMIT 1")
+    @Results({
+            @Result(property = "notificationId", column = "notification_id"),
+            @Result(property = "receiver.userId", column = "receiver_id"),
+            @Result(property = "sender.userId", column = "sender_id"),
+            @Result(property = "targetType", column = "target_type"),
+            @Result(property = "targetId", column = "target_id"),
+            @Result(property = "isRead", column = "is_read"),
+            @Result(property = "createTime", column = "create_time"),
+            @Result(property = "readTime", column = "read_time"),
+            @Result(property = "extraData", column = "extra_data")
+    })
+    Notification getAggregationTarget(@Param("receiverId") Integer receiverId,
+                                      @Param("type") Integer type,
+                                      @Param("targetId") String targetId,
+                                      @Param("minutes") int minutes);
+
+    /**
+     * 原地更新聚合通知
+     * 发送者更新为最近的点赞者，创建时间刷新为当前时间，使其回到列表顶部
+     */
+    @Update("UPDATE tab_notification SET sender_id = #{sender.userId}, title = #{title}, content = #{content}, " +
+            "extra_data = #{extraData}, create_time = now() " +
+            "WHERE notification_id = #{notificationId}")
+    int updateAggregatedNotification(Notification notification);
+
     /**
      * 获取特定目标的通知
      * 比如获取某个评论的所有相关通知
@@ -202,10 +265,8 @@ public interface NotificationMapper {
             "ORDER BY create_time DESC")
     @Results({
             @Result(property = "notificationId", column = "notification_id"),
-            @Result(property = "receiver", column = "receiver_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
-            @Result(property = "sender", column = "sender_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "receiver.userId", column = "receiver_id"),
+            @Result(property = "sender.userId", column = "sender_id"),
             @Result(property = "targetType", column = "target_type"),
             @Result(property = "targetId", column = "target_id"),
             @Result(property = "isRead", column = "is_read"),
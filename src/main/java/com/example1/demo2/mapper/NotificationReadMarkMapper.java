@@ -0,0 +1,35 @@
+package com.example1.demo2.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 通知已读水位线Mapper接口
+ * 每个用户每种类型一行，类型0表示全部类型，类型-1表示全站公告
+ */
+@Mapper
+public interface NotificationReadMarkMapper {
+
+    /**
+     * 推进水位线
+     * 水位线只前进不后退，已存在时取较大值
+     */
+    @Insert("INSERT INTO tab_notification_read_mark(user_id, type, read_up_to, update_time) " +
+            "VALUES(#{userId}, #{type}, #{readUpTo}, now()) " +
+            "ON DUPLICATE KEY UPDATE read_up_to = GREATEST(read_up_to, VALUES(read_up_to)), update_time = now()")
+    int advanceMark(@Param("userId") Integer userId,
+                    @Param("type") Integer type,
+                    @Param("readUpTo") Integer readUpTo);
+
+    /**
+     * 查询水位线，不存在时返回null
+     */
+    @Select("SELECT read_up_to FROM tab_notification_read_mark WHERE user_id = #{userId} AND type = #{type}")
+    Integer getReadUpTo(@Param("userId") Integer userId, @Param("type") Integer type);
+
+    /**
+     * 删除用户的所有水位线
+     * 用于用户注销时清理数据
+     */
+    @Delete("DELETE FROM tab_notification_read_mark WHERE user_id = #{userId}")
+    void deleteMarksByUserId(Integer userId);
+}
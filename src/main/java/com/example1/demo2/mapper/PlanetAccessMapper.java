@@ -12,10 +12,15 @@ public interface PlanetAccessMapper {
     //根据星球名查找(模糊查询)
     @Select("select * from tab_knowledge_planet where content_title like concat('%', #{title}, '%') and visibility=1 limit 10")
     List<KnowledgePlanet> findByTitle(String title);
-    //随机访问
+    //随机访问（随机抽样未加载完成时的回退）
     @Select("select * from tab_knowledge_planet where visibility=1 order by rand() limit 1")
     KnowledgePlanet findRandomPlanet();
 
-    @Select("select * from tab_knowledge_planet where visibility=1 order by visit_count DESC limit 10")
-    List<KnowledgePlanet> getTop10Planets();
+    //所有公开星球的ID和抽样权重
+    @Select("select planet_id, brightness, visit_count from tab_knowledge_planet where visibility=1")
+    List<KnowledgePlanet> getVisiblePlanetWeights();
+
+    //按历史访问量取公开星球，用于启动时预热热门榜单
+    @Select("select * from tab_knowledge_planet where visibility=1 order by visit_count DESC limit #{limit}")
+    List<KnowledgePlanet> getTopPlanetsByVisitCount(int limit);
 }
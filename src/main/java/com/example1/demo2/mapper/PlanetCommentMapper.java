@@ -3,7 +3,9 @@ package com.example1.demo2.mapper;
 import com.example1.demo2.pojo.PlanetComment;
 import jakarta.validation.constraints.NotNull;
 import org.apache.ibatis.annotations.*;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface PlanetCommentMapper {
@@ -25,8 +27,7 @@ public interface PlanetCommentMapper {
     @Select("SELECT * FROM tab_planet_comment WHERE planet_comment_id = #{commentId}")
     @Results({
             @Result(property = "planetCommentId", column = "planet_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgePlanet", column = "planet_id",
                     one = @One(select = "com.example1.demo2.mapper.PlanetMapper.getPlanetById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -44,8 +45,7 @@ public interface PlanetCommentMapper {
             "ORDER BY create_time DESC LIMIT #{offset}, #{size}")
     @Results({
             @Result(property = "planetCommentId", column = "planet_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgePlanet", column = "planet_id",
                     one = @One(select = "com.example1.demo2.mapper.PlanetMapper.getPlanetById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -64,8 +64,7 @@ public interface PlanetCommentMapper {
             "AND status = 0 ORDER BY create_time ASC")
     @Results({
             @Result(property = "planetCommentId", column = "planet_comment_id"),
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "user.userId", column = "user_id"),
             @Result(property = "knowledgePlanet", column = "planet_id",
                     one = @One(select = "com.example1.demo2.mapper.PlanetMapper.getPlanetById")),
             @Result(property = "parentId", column = "parent_comment_id"),
@@ -89,17 +88,33 @@ public interface PlanetCommentMapper {
     void deleteComment(Integer commentId);
 
     /**
-     * 增加点赞数
+     * 批量写回点赞数增量
+     * 一条 UPDATE ... CASE 更新多条评论，点赞数不会被减到0以下
      */
-    @Update("UPDATE tab_planet_comment SET like_count = like_count + 1 WHERE planet_comment_id = #{commentId}")
-    void increaseLikeCount(Integer commentId);
+    @Update("<script>" +
+            "UPDATE tab_planet_comment SET like_count = GREATEST(like_count + CASE planet_comment_id " +
+            "<foreach collection='deltas' index='id' item='delta'>" +
+            "WHEN #{id} THEN #{delta} " +
+            "</foreach>" +
+            "END, 0) WHERE planet_comment_id IN " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int applyLikeDeltas(@Param("deltas") Map<Integer, Long> deltas);
 
     /**
-     * 减少点赞数
+     * 按点赞表重新统计点赞数
      */
-    @Update("UPDATE tab_planet_comment SET like_count = like_count - 1 WHERE planet_comment_id = #{commentId} " +
-            "AND like_count > 0")
-    void decreaseLikeCount(Integer commentId);
+    @Update("<script>" +
+            "UPDATE tab_planet_comment c SET like_count = " +
+            "(SELECT COUNT(*) FROM tab_planet_comment_like l WHERE l.planet_comment_id = c.planet_comment_id) " +
+            "WHERE c.planet_comment_id IN " +
+            "<foreach collection='commentIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int recountLikes(@Param("commentIds") Collection<Integer> commentIds);
 
     /**
      * 增加回复数
@@ -123,9 +138,22 @@ public interface PlanetCommentMapper {
 
     /**
      * 删除点赞记录
+     * @return 删除的行数，为0说明尚未点赞
      */
     @Delete("DELETE FROM tab_planet_comment_like WHERE user_id = #{userId} AND planet_comment_id = #{commentId}")
-    void deleteLike(@Param("userId") Integer userId, @Param("commentId") Integer commentId);
+    int deleteLike(@Param("userId") Integer userId, @Param("commentId") Integer commentId);
+
+    /**
+     * 批量查询评论的全部点赞用户
+     * 每行包含 comment_id 和 user_id
+     */
+    @Select("<script>" +
+            "SELECT planet_comment_id AS comment_id, user_id FROM tab_planet_comment_like WHERE planet_comment_id IN " +
+            "<foreach collection='commentIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Map<String, Object>> getLikersByCommentIds(@Param("commentIds") Collection<Integer> commentIds);
 
     /**
      * 检查是否已点赞
@@ -4,6 +4,7 @@ import com.example1.demo2.pojo.KnowledgePlanet;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface PlanetMapper {
@@ -54,6 +55,23 @@ public interface PlanetMapper {
     @Select("SELECT * FROM tab_knowledge_planet WHERE content_title LIKE #{keyword}")
     List<KnowledgePlanet> searchPlanets(String s);
 
+    // 标题索引启动加载用，只取建索引和筛选需要的列
+    @Select("SELECT planet_id, user_id, content_title, visibility, visit_count FROM tab_knowledge_planet")
+    List<KnowledgePlanet> getTitleIndexRows();
+
+    // 全文索引启动时与快照比对用
+    @Select("SELECT planet_id, update_time FROM tab_knowledge_planet")
+    List<KnowledgePlanet> getContentIndexVersions();
+
+    // 按ID批量查询星球，不保证顺序
+    @Select("<script>" +
+            "SELECT * FROM tab_knowledge_planet WHERE planet_id IN " +
+            "<foreach collection='planetIds' item='planetId' open='(' separator=',' close=')'>" +
+            "#{planetId}" +
+            "</foreach>" +
+            "</script>")
+    List<KnowledgePlanet> getPlanetsByIds(@Param("planetIds") List<String> planetIds);
+
     @Update("UPDATE tab_knowledge_planet " +
             "SET description = #{description}, update_time = NOW() " +
             "WHERE planet_id = #{planetId}")
@@ -74,10 +92,18 @@ public interface PlanetMapper {
             "WHERE planet_id = #{planetId}")
     void updatefuelvalue(String planetId, Integer fuelValue);
 
-    @Update("UPDATE tab_knowledge_planet " +
-            "SET visit_count = visit_count+1, update_time = NOW() " +
-            "WHERE planet_id = #{planetId}")
-    void updatevisitCount(String planetId);
+    // 批量累加访问量，访问不算编辑，不更新update_time
+    @Update("<script>" +
+            "UPDATE tab_knowledge_planet SET visit_count = visit_count + CASE planet_id " +
+            "<foreach collection='counts' index='planetId' item='count'>" +
+            "WHEN #{planetId} THEN #{count} " +
+            "</foreach>" +
+            "END WHERE planet_id IN " +
+            "<foreach collection='counts' index='planetId' item='count' open='(' separator=',' close=')'>" +
+            "#{planetId}" +
+            "</foreach>" +
+            "</script>")
+    int addVisitCounts(@Param("counts") Map<String, Long> counts);
 
     @Update("UPDATE tab_knowledge_planet " +
             "SET visibility = 1, update_time = NOW() " +
@@ -27,10 +27,8 @@ public interface PrivateMessageMapper {
             "AND status = 0 ORDER BY send_time DESC LIMIT #{offset}, #{size}")
     @Results({
             @Result(property = "messageId", column = "message_id"),
-            @Result(property = "sender", column = "sender_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
-            @Result(property = "receiver", column = "receiver_id",
-                    one = @One(select = "com.example1.demo2.mapper.UserMapper.findById")),
+            @Result(property = "sender.userId", column = "sender_id"),
+            @Result(property = "receiver.userId", column = "receiver_id"),
             @Result(property = "sendTime", column = "send_time"),
             @Result(property = "readTime", column = "read_time")
     })
@@ -46,8 +44,8 @@ public interface PrivateMessageMapper {
     @Update("UPDATE tab_private_message SET is_read = 1, read_time = NOW() " +
             "WHERE receiver_id = #{receiverId} AND sender_id = #{senderId} " +
             "AND is_read = 0")
-    void markMessagesAsRead(@Param("receiverId") Integer receiverId,
-                            @Param("senderId") Integer senderId);
+    int markMessagesAsRead(@Param("receiverId") Integer receiverId,
+                           @Param("senderId") Integer senderId);
 
     /**
      * 获取未读消息数量
@@ -68,6 +66,12 @@ public interface PrivateMessageMapper {
     int recallMessage(@Param("messageId") Long messageId,
                       @Param("senderId") Integer senderId);
 
+    /**
+     * 获取消息的接收者ID
+     */
+    @Select("SELECT receiver_id FROM tab_private_message WHERE message_id = #{messageId}")
+    Integer getReceiverIdByMessageId(Long messageId);
+
     // ==================== 级联删除相关方法 ====================
 
     /**
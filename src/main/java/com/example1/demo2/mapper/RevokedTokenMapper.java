@@ -0,0 +1,38 @@
+package com.example1.demo2.mapper;
+
+import com.example1.demo2.pojo.RevokedToken;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 已吊销令牌Mapper接口
+ */
+@Mapper
+public interface RevokedTokenMapper {
+
+    /**
+     * 记录吊销的令牌，重复退出登录时忽略
+     */
+    @Insert("INSERT IGNORE INTO tab_revoked_token(token_id, user_id, expire_time) " +
+            "VALUES(#{tokenId}, #{userId}, #{expireTime})")
+    int insert(RevokedToken token);
+
+    /**
+     * 查询尚未过期的吊销记录（启动时重建吊销名单）
+     */
+    @Select("SELECT * FROM tab_revoked_token WHERE expire_time > now()")
+    List<RevokedToken> getActive();
+
+    /**
+     * 令牌是否已被吊销（吊销名单加载失败时使用）
+     */
+    @Select("SELECT COUNT(*) > 0 FROM tab_revoked_token WHERE token_id = #{tokenId}")
+    boolean isRevoked(String tokenId);
+
+    /**
+     * 删除已过期的吊销记录
+     */
+    @Delete("DELETE FROM tab_revoked_token WHERE expire_time <= now()")
+    int deleteExpired();
+}
@@ -0,0 +1,25 @@
+package com.example1.demo2.mapper;
+
+import com.example1.demo2.pojo.RewardTransaction;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 奖励流水Mapper接口
+ * 流水只追加，由奖励账本在后台批量写入
+ */
+@Mapper
+public interface RewardTransactionMapper {
+
+    /**
+     * 批量追加流水
+     */
+    @Insert("<script>" +
+            "INSERT INTO tab_reward_transaction(user_id, currency, amount, balance_after, reason, create_time) VALUES " +
+            "<foreach collection='transactions' item='t' separator=','>" +
+            "(#{t.userId}, #{t.currency}, #{t.amount}, #{t.balanceAfter}, #{t.reason}, #{t.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("transactions") List<RewardTransaction> transactions);
+}
@@ -1,9 +1,11 @@
 package com.example1.demo2.mapper;
 
+import com.example1.demo2.pojo.RewardTransaction;
 import com.example1.demo2.pojo.User;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
+import java.util.Map;
 
 
 @Mapper
@@ -28,15 +30,42 @@ public interface UserMapper {
     @Select("select * from tab_user where user_id=#{Userid}")
     User findById(Integer Userid);
 
-    //更新用户最后登录时间
-    @Update("update tab_user set last_login_time=now() where user_id=#{userId}")
-    void updatelastLoginTime(Integer Userid);
+    //用户目录启动加载用，只取建索引需要的列
+    @Select("select user_id, nickname, email, status from tab_user")
+    List<User> getDirectoryRows();
+
+    //根据ID批量查询用户
+    @Select("<script>" +
+            "select * from tab_user where user_id in " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<User> findByIds(@Param("userIds") List<Integer> userIds);
+
+    //批量更新最后登录时间（登录时间写后合并），ages为用户ID -> 登录距今的微秒数，时间以数据库的now()为准
+    @Update("<script>" +
+            "update tab_user set last_login_time = case user_id " +
+            "<foreach collection='ages' index='userId' item='age'>" +
+            "when #{userId} then date_sub(now(), interval #{age} microsecond) " +
+            "</foreach>" +
+            "end where user_id in " +
+            "<foreach collection='ages' index='userId' item='age' open='(' separator=',' close=')'>" +
+            "#{userId}" +
+            "</foreach>" +
+            "</script>")
+    int updateLastLoginTimes(@Param("ages") Map<Integer, Long> ages);
 
     //更新用户密码
     @Update("update tab_user set password=#{newpasswordHash}" +
             " where user_id=#{userId}")
     void updatepassword(String newpasswordHash,Integer userId);
 
+    //登录时按新强度重新哈希密码，期间密码被修改过则不覆盖
+    @Update("update tab_user set password=#{newpasswordHash}" +
+            " where user_id=#{userId} and password=#{oldpasswordHash}")
+    int rehashpassword(String newpasswordHash,Integer userId,String oldpasswordHash);
+
     //更新用户邮箱和邮箱绑定状态
     @Update("update tab_user set email=#{email} " +
             ",email_verified=1" +
@@ -81,6 +110,18 @@ public interface UserMapper {
     @Update("UPDATE tab_user SET status = 0 WHERE user_id = #{userId}")
     void unbanUser(Integer userId);
 
+    /**
+     * 查询所有被封禁的用户ID（启动时重建封禁名单）
+     */
+    @Select("SELECT user_id FROM tab_user WHERE status = 1")
+    List<Integer> getBannedUserIds();
+
+    /**
+     * 查询所有用户ID（启动时记录哪些用户存在，已注销用户的令牌据此拒绝）
+     */
+    @Select("SELECT user_id FROM tab_user")
+    List<Integer> getAllUserIds();
+
     /**
      * 搜索用户（用于添加好友）
      */
@@ -98,51 +139,28 @@ public interface UserMapper {
                            @Param("limit") int limit);
 
     /**
-     * 更新用户燃料值
-     * @param userId 用户ID
-     * @param fuelValue 新的燃料值
-     */
-    @Update("UPDATE tab_user SET fuel_value = #{fuelValue} WHERE user_id = #{userId}")
-    void updateFuelValue(@Param("userId") Integer userId, @Param("fuelValue") Integer fuelValue);
-
-    /**
-     * 更新用户知识星云值
-     * @param userId 用户ID
-     * @param knowledgeDust 新的知识星云值
-     */
-    @Update("UPDATE tab_user SET knowledge_dust = #{knowledgeDust} WHERE user_id = #{userId}")
-    void updateKnowledgeDust(@Param("userId") Integer userId, @Param("knowledgeDust") Integer knowledgeDust);
-
-    /**
-     * 增加用户燃料值
-     * @param userId 用户ID
-     * @param amount 增加的数量
-     */
-    @Update("UPDATE tab_user SET fuel_value = fuel_value + #{amount} WHERE user_id = #{userId}")
-    void increaseFuelValue(@Param("userId") Integer userId, @Param("amount") Integer amount);
-
-    /**
-     * 减少用户燃料值（确保不会小于0）
-     * @param userId 用户ID
-     * @param amount 减少的数量
+     * 按流水变动燃料值，变动后小于0时不更新（单条语句完成检查和扣减）；注册时未设置的余额按0计
+     * 变动后的余额通过 LAST_INSERT_ID 在同一连接上取回，写入流水的 balanceAfter
+     * @return 更新的行数，0表示用户不存在或余额不足
      */
-    @Update("UPDATE tab_user SET fuel_value = GREATEST(fuel_value - #{amount}, 0) WHERE user_id = #{userId}")
-    void decreaseFuelValue(@Param("userId") Integer userId, @Param("amount") Integer amount);
+    @Update("UPDATE tab_user SET fuel_value = LAST_INSERT_ID(COALESCE(fuel_value, 0) + #{amount}) " +
+            "WHERE user_id = #{userId} AND COALESCE(fuel_value, 0) + #{amount} >= 0")
+    @SelectKey(statement = "SELECT LAST_INSERT_ID()", keyProperty = "balanceAfter", before = false, resultType = Integer.class)
+    int applyFuelDelta(RewardTransaction transaction);
 
     /**
-     * 增加用户知识星云值
-     * @param userId 用户ID
-     * @param amount 增加的数量
+     * 按流水变动知识星云值，变动后小于0时不更新
+     * @return 更新的行数，0表示用户不存在或余额不足
      */
-    @Update("UPDATE tab_user SET knowledge_dust = knowledge_dust + #{amount} WHERE user_id = #{userId}")
-    void increaseKnowledgeDust(@Param("userId") Integer userId, @Param("amount") Integer amount);
+    @Update("UPDATE tab_user SET knowledge_dust = LAST_INSERT_ID(COALESCE(knowledge_dust, 0) + #{amount}) " +
+            "WHERE user_id = #{userId} AND COALESCE(knowledge_dust, 0) + #{amount} >= 0")
+    @SelectKey(statement = "SELECT LAST_INSERT_ID()", keyProperty = "balanceAfter", before = false, resultType = Integer.class)
+    int applyKnowledgeDustDelta(RewardTransaction transaction);
 
     /**
-     * 减少用户知识星云值（确保不会小于0）
-     * @param userId 用户ID
-     * @param amount 减少的数量
+     * 只查询燃料值和知识星云值（奖励余额缓存加载用）
      */
-    @Update("UPDATE tab_user SET knowledge_dust = GREATEST(knowledge_dust - #{amount}, 0) WHERE user_id = #{userId}")
-    void decreaseKnowledgeDust(@Param("userId") Integer userId, @Param("amount") Integer amount);
+    @Select("SELECT user_id, fuel_value, knowledge_dust FROM tab_user WHERE user_id = #{userId}")
+    User getRewardBalances(Integer userId);
 
 }
@@ -0,0 +1,76 @@
+package com.example1.demo2.pojo;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * 全站公告
+ * 面向全体用户的系统通知只写一行，用户读取通知时再合并进来，
+ * 每个用户是否已读由已读水位线（NotificationReadMark.ANNOUNCEMENTS）记录
+ */
+@Entity
+@Table(name = "tab_announcement")
+public class Announcement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "announcement_id")
+    private Integer announcementId;
+
+    @Column(name = "title", length = 100, nullable = false)
+    private String title;
+
+    @Column(name = "content", length = 500)
+    private String content;
+
+    /**
+     * 状态：0-正常 1-已删除
+     */
+    @Column(name = "status", nullable = false, columnDefinition = "tinyint default 0")
+    private Integer status = 0;
+
+    @Column(name = "create_time", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createTime = new Date();
+
+    // Getters and Setters
+    public Integer getAnnouncementId() {
+        return announcementId;
+    }
+
+    public void setAnnouncementId(Integer announcementId) {
+        this.announcementId = announcementId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+}
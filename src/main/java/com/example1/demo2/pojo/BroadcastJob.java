@@ -0,0 +1,160 @@
+package com.example1.demo2.pojo;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * 群发任务
+ * 记录群发的受众、内容和进度游标，服务重启后从游标处继续发送
+ */
+@Entity
+@Table(name = "tab_broadcast_job")
+public class BroadcastJob {
+
+    /**
+     * 受众类型：0-全体用户 1-星系成员（创建者、管理员、星球作者） 2-用户的好友
+     */
+    public static final int AUDIENCE_ALL = 0;
+    public static final int AUDIENCE_GALAXY = 1;
+    public static final int AUDIENCE_FRIENDS = 2;
+
+    /**
+     * 任务状态：0-进行中 1-已完成 2-失败
+     */
+    public static final int STATUS_RUNNING = 0;
+    public static final int STATUS_FINISHED = 1;
+    public static final int STATUS_FAILED = 2;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Integer jobId;
+
+    @Column(name = "audience_type", nullable = false, columnDefinition = "tinyint default 0")
+    private Integer audienceType;
+
+    /**
+     * 受众参数：星系受众为星系ID，好友受众为用户ID，全体用户为空
+     */
+    @Column(name = "audience_id")
+    private Integer audienceId;
+
+    @Column(name = "title", length = 100, nullable = false)
+    private String title;
+
+    @Column(name = "content", length = 500)
+    private String content;
+
+    @Column(name = "status", nullable = false, columnDefinition = "tinyint default 0")
+    private Integer status = STATUS_RUNNING;
+
+    /**
+     * 进度游标：已发送到的用户ID，按用户ID升序推进
+     */
+    @Column(name = "cursor_user_id", nullable = false, columnDefinition = "int default 0")
+    private Integer cursorUserId = 0;
+
+    @Column(name = "sent_count", nullable = false, columnDefinition = "int default 0")
+    private Integer sentCount = 0;
+
+    @Column(name = "create_time", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createTime = new Date();
+
+    @Column(name = "update_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updateTime = new Date();
+
+    @Column(name = "finish_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date finishTime;
+
+    // Getters and Setters
+    public Integer getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Integer jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getAudienceType() {
+        return audienceType;
+    }
+
+    public void setAudienceType(Integer audienceType) {
+        this.audienceType = audienceType;
+    }
+
+    public Integer getAudienceId() {
+        return audienceId;
+    }
+
+    public void setAudienceId(Integer audienceId) {
+        this.audienceId = audienceId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Integer getCursorUserId() {
+        return cursorUserId;
+    }
+
+    public void setCursorUserId(Integer cursorUserId) {
+        this.cursorUserId = cursorUserId;
+    }
+
+    public Integer getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(Integer sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    public Date getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(Date finishTime) {
+        this.finishTime = finishTime;
+    }
+}
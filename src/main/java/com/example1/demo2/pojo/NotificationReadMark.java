@@ -0,0 +1,90 @@
+package com.example1.demo2.pojo;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * 通知已读水位线
+ * 记录用户"已读到哪条通知"，ID不大于水位线的通知都视为已读，
+ * 全部已读、按类型已读只需写一行，不再逐行更新通知表
+ */
+@Entity
+@Table(name = "tab_notification_read_mark",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_type", columnNames = {"user_id", "type"}))
+public class NotificationReadMark {
+
+    /**
+     * 类型为0的水位线对所有类型的通知生效
+     */
+    public static final int ALL_TYPES = 0;
+
+    /**
+     * 类型为-1的水位线记录全站公告的已读位置，值为公告ID
+     */
+    public static final int ANNOUNCEMENTS = -1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "mark_id")
+    private Integer markId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    /**
+     * 通知类型，0表示所有类型，-1表示全站公告
+     */
+    @Column(name = "type", nullable = false)
+    private Integer type;
+
+    /**
+     * 已读到的通知ID（含）
+     */
+    @Column(name = "read_up_to", nullable = false)
+    private Integer readUpTo;
+
+    @Column(name = "update_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updateTime = new Date();
+
+    // Getters and Setters
+    public Integer getMarkId() {
+        return markId;
+    }
+
+    public void setMarkId(Integer markId) {
+        this.markId = markId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public void setType(Integer type) {
+        this.type = type;
+    }
+
+    public Integer getReadUpTo() {
+        return readUpTo;
+    }
+
+    public void setReadUpTo(Integer readUpTo) {
+        this.readUpTo = readUpTo;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+}
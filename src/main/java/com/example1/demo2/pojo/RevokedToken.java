@@ -0,0 +1,57 @@
+package com.example1.demo2.pojo;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * 已吊销的令牌
+ * 用户退出登录后记录令牌ID，保留到令牌本身过期为止；
+ * 重启后从这里重建吊销名单，退出登录的令牌不会重新生效
+ */
+@Entity
+@Table(name = "tab_revoked_token",
+        indexes = @Index(name = "idx_expire_time", columnList = "expire_time"))
+public class RevokedToken {
+
+    /**
+     * 令牌ID（JWT的jti）
+     */
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    /**
+     * 令牌过期时间，过期后记录可以删除
+     */
+    @Column(name = "expire_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expireTime;
+
+    // Getters and Setters
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Date getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(Date expireTime) {
+        this.expireTime = expireTime;
+    }
+}
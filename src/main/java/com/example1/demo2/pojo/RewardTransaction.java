@@ -0,0 +1,118 @@
+package com.example1.demo2.pojo;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * 奖励流水
+ * 燃料值和知识星云值的每一次增减追加一行，只插入不修改，
+ * 记录变动量和变动后的余额，用于对账和追查
+ */
+@Entity
+@Table(name = "tab_reward_transaction",
+        indexes = @Index(name = "idx_user_time", columnList = "user_id, create_time"))
+public class RewardTransaction {
+
+    /**
+     * 币种：燃料值
+     */
+    public static final int FUEL = 0;
+
+    /**
+     * 币种：知识星云值
+     */
+    public static final int KNOWLEDGE_DUST = 1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    /**
+     * 币种，0-燃料值，1-知识星云值
+     */
+    @Column(name = "currency", nullable = false)
+    private Integer currency;
+
+    /**
+     * 变动量，奖励为正，消耗为负
+     */
+    @Column(name = "amount", nullable = false)
+    private Integer amount;
+
+    /**
+     * 变动后的余额
+     */
+    @Column(name = "balance_after", nullable = false)
+    private Integer balanceAfter;
+
+    /**
+     * 变动原因，如 planet_creation、planet_access
+     */
+    @Column(name = "reason", nullable = false, length = 50)
+    private String reason;
+
+    @Column(name = "create_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createTime = new Date();
+
+    // Getters and Setters
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Integer currency) {
+        this.currency = currency;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public Integer getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(Integer balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+}
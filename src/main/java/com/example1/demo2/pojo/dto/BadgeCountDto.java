@@ -0,0 +1,67 @@
+package com.example1.demo2.pojo.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 角标计数DTO
+ * 一次返回通知、私信、好友请求的未处理数量
+ */
+public class BadgeCountDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 未读通知总数
+    private Integer notificationTotal;
+
+    // 分类未读通知数（通知类型 -> 数量）
+    private Map<Integer, Integer> notificationByType;
+
+    // 未读私信数
+    private Integer unreadMessages;
+
+    // 待处理好友请求数
+    private Integer pendingFriendRequests;
+
+    // 全部角标之和
+    private Integer total;
+
+    public Integer getNotificationTotal() {
+        return notificationTotal;
+    }
+
+    public void setNotificationTotal(Integer notificationTotal) {
+        this.notificationTotal = notificationTotal;
+    }
+
+    public Map<Integer, Integer> getNotificationByType() {
+        return notificationByType;
+    }
+
+    public void setNotificationByType(Map<Integer, Integer> notificationByType) {
+        this.notificationByType = notificationByType;
+    }
+
+    public Integer getUnreadMessages() {
+        return unreadMessages;
+    }
+
+    public void setUnreadMessages(Integer unreadMessages) {
+        this.unreadMessages = unreadMessages;
+    }
+
+    public Integer getPendingFriendRequests() {
+        return pendingFriendRequests;
+    }
+
+    public void setPendingFriendRequests(Integer pendingFriendRequests) {
+        this.pendingFriendRequests = pendingFriendRequests;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example1.demo2.pojo.dto;
+
+/**
+ * 通知事件
+ * 业务方只需投递这个轻量对象，用户查询、去重、序列化、入库和推送都由通知派发器在事务提交后批量完成
+ */
+public class NotificationEvent {
+
+    // 通知类型（1-8，与 Notification.type 一致）
+    private final Integer type;
+
+    // 发送者ID（系统通知为null）
+    private final Integer senderId;
+
+    // 接收者ID
+    private final Integer receiverId;
+
+    // 目标类型和目标ID
+    private final Integer targetType;
+    private final String targetId;
+
+    // 业务文本：评论内容、星系/星球名称或系统通知内容
+    private final String text;
+
+    // 标题（系统通知、管理员任命等由调用方直接给出标题的场景使用）
+    private final String title;
+
+    // 是否为自定义通知（/notification/send 发出的通知，标题和跳转固定）
+    private final boolean custom;
+
+    // 事件产生时间
+    private final long createTime = System.currentTimeMillis();
+
+    public NotificationEvent(Integer type, Integer senderId, Integer receiverId,
+                             Integer targetType, String targetId, String text, String title) {
+        this(type, senderId, receiverId, targetType, targetId, text, title, false);
+    }
+
+    private NotificationEvent(Integer type, Integer senderId, Integer receiverId,
+                              Integer targetType, String targetId, String text, String title, boolean custom) {
+        this.type = type;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.text = text;
+        this.title = title;
+        this.custom = custom;
+    }
+
+    /**
+     * 创建自定义通知事件
+     */
+    public static NotificationEvent custom(Integer type, Integer senderId, Integer receiverId, String content) {
+        return new NotificationEvent(type, senderId, receiverId, 5, null, content, "新通知", true);
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public Integer getSenderId() {
+        return senderId;
+    }
+
+    public Integer getReceiverId() {
+        return receiverId;
+    }
+
+    public Integer getTargetType() {
+        return targetType;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isCustom() {
+        return custom;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationEvent{" +
+                "type=" + type +
+                ", senderId=" + senderId +
+                ", receiverId=" + receiverId +
+                ", targetType=" + targetType +
+                ", targetId='" + targetId + '\'' +
+                '}';
+    }
+}
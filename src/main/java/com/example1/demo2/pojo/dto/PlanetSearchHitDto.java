@@ -0,0 +1,77 @@
+package com.example1.demo2.pojo.dto;
+
+import java.io.Serializable;
+
+/**
+ * 星球全文检索结果DTO
+ * 星球基本信息加上命中关键词的摘要片段
+ */
+public class PlanetSearchHitDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 星球ID
+    private String planetId;
+
+    // 星球标题
+    private String contentTitle;
+
+    // 封面URL
+    private String coverUrl;
+
+    // 创建者ID
+    private Integer userId;
+
+    // 可见性：0-私有，1-公开
+    private Integer visibility;
+
+    // 命中片段，关键词用<em></em>标出，其余内容已做HTML转义
+    private String highlight;
+
+    public String getPlanetId() {
+        return planetId;
+    }
+
+    public void setPlanetId(String planetId) {
+        this.planetId = planetId;
+    }
+
+    public String getContentTitle() {
+        return contentTitle;
+    }
+
+    public void setContentTitle(String contentTitle) {
+        this.contentTitle = contentTitle;
+    }
+
+    public String getCoverUrl() {
+        return coverUrl;
+    }
+
+    public void setCoverUrl(String coverUrl) {
+        this.coverUrl = coverUrl;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getVisibility() {
+        return visibility;
+    }
+
+    public void setVisibility(Integer visibility) {
+        this.visibility = visibility;
+    }
+
+    public String getHighlight() {
+        return highlight;
+    }
+
+    public void setHighlight(String highlight) {
+        this.highlight = highlight;
+    }
+}
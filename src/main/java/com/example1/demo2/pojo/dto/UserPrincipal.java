@@ -0,0 +1,65 @@
+package com.example1.demo2.pojo.dto;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 登录用户主体
+ * 由JWT解析得到，WebSocket会话在CONNECT时绑定，之后的帧直接使用，不再重复解析令牌；
+ * HTTP请求按令牌缓存解析结果，缓存到令牌过期为止
+ * getName() 返回用户ID，用于 convertAndSendToUser 按用户投递
+ */
+public class UserPrincipal implements Principal {
+
+    private final Integer userId;
+
+    private final Map<String, Object> claims;
+
+    // 令牌ID，用于单独吊销令牌；旧令牌没有ID时为null
+    private final String tokenId;
+
+    // 令牌过期时间（毫秒时间戳）
+    private final long expiresAt;
+
+    public UserPrincipal(Integer userId, Map<String, Object> claims) {
+        this(userId, claims, null, Long.MAX_VALUE);
+    }
+
+    public UserPrincipal(Integer userId, Map<String, Object> claims, String tokenId, long expiresAt) {
+        this.userId = userId;
+        this.claims = claims != null ? Collections.unmodifiableMap(claims) : Collections.emptyMap();
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal{userId=" + userId + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example1.demo2.service;
+
+import com.example1.demo2.pojo.Announcement;
+
+import java.util.List;
+
+/**
+ * 全站公告服务接口
+ * 公告只存一份，用户读取通知时合并，已读状态由每个用户的公告水位线决定
+ */
+public interface IAnnouncementService {
+
+    /**
+     * 发布全站公告，并通过共享主题推送一次
+     *
+     * @return 公告ID
+     */
+    Integer publish(String title, String content);
+
+    /**
+     * 获取有效期内的公告，按ID从新到旧
+     */
+    List<Announcement> getAnnouncements();
+
+    /**
+     * 获取用户的公告已读水位线，没有时返回0
+     */
+    int getReadUpTo(Integer userId);
+
+    /**
+     * 统计用户未读的公告数
+     */
+    int countUnread(Integer userId);
+
+    /**
+     * 把当前所有公告标记为已读
+     */
+    void markAllAsRead(Integer userId);
+}
@@ -0,0 +1,82 @@
+package com.example1.demo2.service;
+
+import com.example1.demo2.pojo.dto.BadgeCountDto;
+
+import java.util.Map;
+
+/**
+ * 角标计数服务接口
+ * 在内存中维护每个用户的未读通知、未读私信和待处理好友请求数量，
+ * 写操作时增量更新，首次读取或失效后从数据库重建
+ */
+public interface IBadgeCountService {
+
+    /**
+     * 获取用户的全部角标
+     * @param userId 用户ID
+     * @return 角标计数
+     */
+    BadgeCountDto getBadges(Integer userId);
+
+    /**
+     * 获取未读通知总数
+     */
+    int getUnreadNotificationCount(Integer userId);
+
+    /**
+     * 获取分类未读通知数
+     */
+    Map<Integer, Integer> getUnreadNotificationCountByType(Integer userId);
+
+    /**
+     * 获取未读私信数
+     */
+    int getUnreadMessageCount(Integer userId);
+
+    /**
+     * 新通知入库
+     * @param receiverId 接收者ID
+     * @param type 通知类型
+     */
+    void onNotificationCreated(Integer receiverId, Integer type);
+
+    /**
+     * 发布了全站公告，所有用户的系统通知未读数加一
+     */
+    void onAnnouncementPublished();
+
+    /**
+     * 用户的所有通知被标记为已读
+     */
+    void onAllNotificationsRead(Integer userId);
+
+    /**
+     * 用户某一类型的通知被标记为已读
+     */
+    void onNotificationTypeRead(Integer userId, Integer type);
+
+    /**
+     * 收到新私信
+     */
+    void onMessageSent(Integer receiverId);
+
+    /**
+     * 私信被标记为已读
+     * @param receiverId 接收者ID
+     * @param count 标记的条数
+     */
+    void onMessagesRead(Integer receiverId, int count);
+
+    /**
+     * 待处理好友请求数变化
+     * @param userId 请求接收者ID
+     * @param delta 变化量（新请求+1，处理请求-1）
+     */
+    void onFriendRequestChanged(Integer userId, int delta);
+
+    /**
+     * 使用户的角标失效，下次读取时从数据库重建
+     * 用于无法精确计算增量的场景（单条已读、删除、撤回等）
+     */
+    void invalidate(Integer userId);
+}
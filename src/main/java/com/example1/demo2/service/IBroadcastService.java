@@ -0,0 +1,31 @@
+package com.example1.demo2.service;
+
+import java.util.Map;
+
+/**
+ * 群发服务接口
+ * 按受众（星系成员、用户的好友）群发系统通知，后台分批发送，可查询进度
+ * 面向全体用户的通知发布为全站公告，不经过群发
+ */
+public interface IBroadcastService {
+
+    /**
+     * 创建群发任务并在后台开始发送
+     *
+     * @param audienceType 受众类型：1-星系成员 2-用户的好友
+     * @param audienceId 受众参数：星系ID或用户ID
+     * @param title 通知标题
+     * @param content 通知内容
+     * @return 群发任务ID
+     */
+    Integer startBroadcast(Integer audienceType, Integer audienceId, String title, String content);
+
+    /**
+     * 查询群发进度
+     * 包括任务状态、已发送数量、游标、耗时和发送速率
+     *
+     * @param jobId 群发任务ID
+     * @return 进度信息，任务不存在时返回null
+     */
+    Map<String, Object> getProgress(Integer jobId);
+}
@@ -11,8 +11,13 @@ public interface IPlanetAccessService {
 
     //按标题查找知识星球
     List<KnowledgePlanet> findByTitle(String contentTitle);
+    //按标题前缀补全，只返回公开星球的标题
+    List<String> suggestTitles(String prefix, int limit);
     //随机查找知识星球
     KnowledgePlanet findRandomPlanet();
+    //随机查找知识星球，mode为抽样方式（uniform、brightness、popularity），尽量避开用户最近随机到过的星球
+    KnowledgePlanet findRandomPlanet(Integer userId, String mode);
 
-    List<KnowledgePlanet> getTop10Planets();
+    //热门星球榜单，可按星系或主题筛选
+    List<KnowledgePlanet> getHotPlanets(String galaxyId, Integer themeId, int limit);
 }
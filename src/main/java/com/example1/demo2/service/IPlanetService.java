@@ -2,6 +2,7 @@ package com.example1.demo2.service;
 
 import com.example1.demo2.pojo.KnowledgePlanet;
 import com.example1.demo2.pojo.dto.KnowledgePlanetDto;
+import com.example1.demo2.pojo.dto.PlanetSearchHitDto;
 import jakarta.validation.Valid;
 import java.util.List;
 
@@ -27,6 +28,12 @@ public interface IPlanetService {
 
     List<KnowledgePlanet> searchPlanets(String keyword);
 
+    //全文检索星球标题、描述和详情，返回公开星球和当前用户自己的私有星球
+    List<PlanetSearchHitDto> searchContent(String keyword, Integer userId, int limit);
+
+    //后台全量重建全文索引，已有重建任务时返回false
+    boolean reindexContent();
+
     void updatedescription(String planetId, String description);
 
     void updatedetail(String planetId, String contentDetail);
@@ -18,6 +18,12 @@ public interface IUserService {
     //根据邮箱查询用户
     User findByEmail(String email);
 
+    //昵称是否已被占用
+    boolean isNicknameTaken(String nickname);
+
+    //邮箱是否已被绑定
+    boolean isEmailTaken(String email);
+
     //删除用户
     void delete(Integer userId);
 
@@ -30,6 +36,12 @@ public interface IUserService {
     //更新最后登录时间
     void updatelastLoginTime(Integer userId);
 
+    //校验密码，哈希强度与配置不一致时在后台重新哈希
+    boolean checkPassword(User user, String rawPassword);
+
+    //退出登录，吊销当前令牌；令牌没有ID无法吊销时返回false
+    boolean logout(String token);
+
     //更新密码
     void updatepassword(String newpassword, Integer userId);
     
@@ -56,9 +68,11 @@ public interface IUserService {
 
     void updateFavoriteGalaxy(Integer userId, Integer galaxyId);
 
-    List<KnowledgeGalaxy> GetGalaxiesByNameAndCreatorId(String name, Integer userId);
+    //搜索用户自己的星系，labels不为空时只返回带有其中任一标签的星系
+    List<KnowledgeGalaxy> GetGalaxiesByNameAndCreatorId(String name, Integer userId, List<String> labels);
 
-    List<KnowledgeGalaxy> GetGalaxiesByNameExcludeUser(String name, Integer userId);
+    //搜索他人的星系，labels不为空时只返回带有其中任一标签的星系
+    List<KnowledgeGalaxy> GetGalaxiesByNameExcludeUser(String name, Integer userId, List<String> labels);
 
     KnowledgePlanet getFavorPlanet(String favorPlanetId);
 
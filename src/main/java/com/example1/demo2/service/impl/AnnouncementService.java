@@ -0,0 +1,136 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.AnnouncementMapper;
+import com.example1.demo2.mapper.NotificationReadMarkMapper;
+import com.example1.demo2.pojo.Announcement;
+import com.example1.demo2.pojo.NotificationReadMark;
+import com.example1.demo2.service.IAnnouncementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 全站公告服务实现类
+ * 有效期内的公告很少，整体缓存在内存中，读取通知和统计未读数时不访问公告表
+ */
+@Service
+public class AnnouncementService implements IAnnouncementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnouncementService.class);
+
+    // 公告有效期（天），超过有效期的公告不再合并到通知列表
+    private static final int RETENTION_DAYS = 30;
+
+    // 缓存刷新间隔，用于剔除过期公告和同步其他节点发布的公告
+    private static final long REFRESH_MILLIS = 5 * 60 * 1000L;
+
+    @Autowired
+    private AnnouncementMapper announcementMapper;
+
+    @Autowired
+    private NotificationReadMarkMapper readMarkMapper;
+
+    @Autowired(required = false)
+    private WebSocketNotificationService webSocketService;  // 实时推送服务（可选）
+
+    // 按ID从新到旧的公告快照，整体替换，不在原列表上修改
+    private volatile List<Announcement> announcements;
+
+    private volatile long loadedAt;
+
+    @Override
+    public Integer publish(String title, String content) {
+        Announcement announcement = new Announcement();
+        announcement.setTitle(title);
+        announcement.setContent(content);
+        announcement.setCreateTime(new Date());
+        announcementMapper.insertAnnouncement(announcement);
+        logger.info("发布全站公告{}：{}", announcement.getAnnouncementId(), title);
+
+        Runnable afterCommit = () -> {
+            prepend(announcement);
+            if (webSocketService != null) {
+                webSocketService.sendAnnouncement(announcement);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterCommit.run();
+                }
+            });
+        } else {
+            afterCommit.run();
+        }
+        return announcement.getAnnouncementId();
+    }
+
+    @Override
+    public List<Announcement> getAnnouncements() {
+        List<Announcement> current = announcements;
+        if (current == null || System.currentTimeMillis() - loadedAt > REFRESH_MILLIS) {
+            current = reload();
+        }
+        return current;
+    }
+
+    @Override
+    public int getReadUpTo(Integer userId) {
+        Integer readUpTo = readMarkMapper.getReadUpTo(userId, NotificationReadMark.ANNOUNCEMENTS);
+        return readUpTo != null ? readUpTo : 0;
+    }
+
+    @Override
+    public int countUnread(Integer userId) {
+        List<Announcement> current = getAnnouncements();
+        if (current.isEmpty()) {
+            return 0;
+        }
+        int readUpTo = getReadUpTo(userId);
+        int count = 0;
+        for (Announcement announcement : current) {
+            // 列表按ID从新到旧，遇到已读的即可停止
+            if (announcement.getAnnouncementId() <= readUpTo) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void markAllAsRead(Integer userId) {
+        List<Announcement> current = getAnnouncements();
+        if (!current.isEmpty()) {
+            readMarkMapper.advanceMark(userId, NotificationReadMark.ANNOUNCEMENTS, current.get(0).getAnnouncementId());
+        }
+    }
+
+    private synchronized List<Announcement> reload() {
+        List<Announcement> loaded = Collections.unmodifiableList(announcementMapper.getRecentAnnouncements(RETENTION_DAYS));
+        announcements = loaded;
+        loadedAt = System.currentTimeMillis();
+        return loaded;
+    }
+
+    private synchronized void prepend(Announcement announcement) {
+        List<Announcement> current = announcements;
+        if (current == null) {
+            // 还没有加载过，下次读取时会从数据库加载到
+            return;
+        }
+        List<Announcement> updated = new ArrayList<>(current.size() + 1);
+        updated.add(announcement);
+        updated.addAll(current);
+        announcements = Collections.unmodifiableList(updated);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.RevokedTokenMapper;
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.RevokedToken;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.UserPrincipal;
+import com.example1.demo2.util.IntBitmap;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 登录吊销闸门
+ * JWT在24小时内一直有效，封禁、注销或退出登录后需要让已签发的令牌立即失效。
+ * 内存中维护被封禁（含已注销）的用户ID位图、已知存在的用户ID位图和被吊销的令牌ID，
+ * 登录拦截器每个请求检查一次，只有遇到不认识的用户时才查一次数据库。
+ * 启动时从数据库重建：封禁用户、全部用户ID、尚未过期的吊销令牌；
+ * 注销的用户不在用户表中，重启后按"不认识的用户"查库拒绝
+ */
+@Service
+public class AuthRevocationGate {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthRevocationGate.class);
+
+    // 被吊销的令牌超过该数量时清理已过期的
+    private static final int PURGE_THRESHOLD = 1000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RevokedTokenMapper revokedTokenMapper;
+
+    // 被封禁或已注销的用户
+    private final IntBitmap blockedUsers = new IntBitmap();
+
+    // 确认存在的用户，不在其中的用户第一次出现时查库
+    private final IntBitmap knownUsers = new IntBitmap();
+
+    // 被吊销的令牌ID -> 令牌过期时间
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    /**
+     * 启动时同步加载，加载完成前不放行被封禁的用户
+     */
+    @PostConstruct
+    public void load() {
+        try {
+            List<Integer> bannedIds = userMapper.getBannedUserIds();
+            List<Integer> userIds = userMapper.getAllUserIds();
+            revokedTokenMapper.deleteExpired();
+            List<RevokedToken> tokens = revokedTokenMapper.getActive();
+            lock.writeLock().lock();
+            try {
+                for (Integer userId : userIds) {
+                    knownUsers.add(userId);
+                }
+                for (Integer userId : bannedIds) {
+                    blockedUsers.add(userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (RevokedToken token : tokens) {
+                revokedTokens.put(token.getTokenId(), token.getExpireTime().getTime());
+            }
+            loaded = true;
+            logger.info("吊销名单已加载，封禁用户{}个，已吊销令牌{}个", bannedIds.size(), tokens.size());
+        } catch (Exception e) {
+            logger.error("加载吊销名单失败，登录检查回退到数据库查询", e);
+        }
+    }
+
+    /**
+     * 登录主体是否已失效（用户被封禁、已注销，或令牌已被吊销）
+     */
+    public boolean isRevoked(UserPrincipal principal) {
+        String tokenId = principal.getTokenId();
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        int userId = principal.getUserId();
+        if (!loaded) {
+            return (tokenId != null && revokedTokenMapper.isRevoked(tokenId)) || isBlockedInDatabase(userId);
+        }
+        lock.readLock().lock();
+        try {
+            if (blockedUsers.contains(userId)) {
+                return true;
+            }
+            if (knownUsers.contains(userId)) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // 启动后注册的用户，或启动前已注销的用户：查一次库后记住结果
+        boolean blocked = isBlockedInDatabase(userId);
+        lock.writeLock().lock();
+        try {
+            if (blocked) {
+                blockedUsers.add(userId);
+            } else {
+                knownUsers.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return blocked;
+    }
+
+    /**
+     * 封禁或注销用户，有事务时挂到事务提交之后
+     */
+    public void blockUser(Integer userId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                blockedUsers.add(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 解封用户，有事务时挂到事务提交之后
+     */
+    public void unblockUser(Integer userId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                blockedUsers.remove(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 吊销单个令牌（退出登录），记录保留到令牌过期为止
+     * @return 令牌没有ID（旧版本签发）时无法单独吊销，返回false
+     */
+    public boolean revokeToken(UserPrincipal principal) {
+        if (principal.getTokenId() == null) {
+            return false;
+        }
+        RevokedToken token = new RevokedToken();
+        token.setTokenId(principal.getTokenId());
+        token.setUserId(principal.getUserId());
+        token.setExpireTime(new Date(principal.getExpiresAt()));
+        revokedTokenMapper.insert(token);
+
+        long now = System.currentTimeMillis();
+        if (revokedTokens.size() >= PURGE_THRESHOLD) {
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        }
+        revokedTokens.put(principal.getTokenId(), principal.getExpiresAt());
+        return true;
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private boolean isBlockedInDatabase(int userId) {
+        User user = userMapper.findById(userId);
+        return user == null || (user.getStatus() != null && user.getStatus() != 0);
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.FriendMapper;
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.mapper.PrivateMessageMapper;
+import com.example1.demo2.pojo.dto.BadgeCountDto;
+import com.example1.demo2.service.IAnnouncementService;
+import com.example1.demo2.service.IBadgeCountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 角标计数服务实现类
+ * 每个用户一组内存计数器：首次读取时从数据库重建，之后由写操作在事务提交后增量更新，
+ * 稳定状态下读取角标不访问数据库；计数器定期过期重建，以纠正可能的偏差
+ */
+@Service
+public class BadgeCountService implements IBadgeCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BadgeCountService.class);
+
+    // 计数器过期时间，过期后下次读取时重建
+    private static final long REFRESH_MILLIS = 10 * 60 * 1000L;
+
+    // 最多缓存的用户数
+    private static final int MAX_USERS = 100000;
+
+    // 全站公告计入系统通知
+    private static final int ANNOUNCEMENT_TYPE = 7;
+
+    // 版本号分段数
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private PrivateMessageMapper messageMapper;
+
+    @Autowired
+    private FriendMapper friendMapper;
+
+    @Autowired
+    private IAnnouncementService announcementService;
+
+    private final Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    // 按用户分段的版本号，计数变化提交后加一；重建期间版本号变了则不写入缓存，避免缓存旧值
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    /**
+     * 单个用户的计数器
+     */
+    private static final class Counters {
+        private final long loadedAt = System.currentTimeMillis();
+        private final Map<Integer, Integer> notificationByType = new HashMap<>();
+        private int notificationTotal;
+        private int unreadMessages;
+        private int pendingFriendRequests;
+
+        private boolean isExpired(long now) {
+            return now - loadedAt > REFRESH_MILLIS;
+        }
+
+        private synchronized void addNotification(Integer type, int delta) {
+            int current = notificationByType.getOrDefault(type, 0);
+            int updated = Math.max(current + delta, 0);
+            if (updated == 0) {
+                notificationByType.remove(type);
+            } else {
+                notificationByType.put(type, updated);
+            }
+            notificationTotal = Math.max(notificationTotal + (updated - current), 0);
+        }
+
+        private synchronized void clearNotificationType(Integer type) {
+            Integer count = notificationByType.remove(type);
+            if (count != null) {
+                notificationTotal = Math.max(notificationTotal - count, 0);
+            }
+        }
+
+        private synchronized void clearNotifications() {
+            notificationByType.clear();
+            notificationTotal = 0;
+        }
+
+        private synchronized void addMessages(int delta) {
+            unreadMessages = Math.max(unreadMessages + delta, 0);
+        }
+
+        private synchronized void addFriendRequests(int delta) {
+            pendingFriendRequests = Math.max(pendingFriendRequests + delta, 0);
+        }
+
+        private synchronized BadgeCountDto toDto() {
+            BadgeCountDto dto = new BadgeCountDto();
+            dto.setNotificationTotal(notificationTotal);
+            dto.setNotificationByType(new HashMap<>(notificationByType));
+            dto.setUnreadMessages(unreadMessages);
+            dto.setPendingFriendRequests(pendingFriendRequests);
+            dto.setTotal(notificationTotal + unreadMessages + pendingFriendRequests);
+            return dto;
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    @Override
+    public BadgeCountDto getBadges(Integer userId) {
+        return load(userId).toDto();
+    }
+
+    @Override
+    public int getUnreadNotificationCount(Integer userId) {
+        return getBadges(userId).getNotificationTotal();
+    }
+
+    @Override
+    public Map<Integer, Integer> getUnreadNotificationCountByType(Integer userId) {
+        return getBadges(userId).getNotificationByType();
+    }
+
+    @Override
+    public int getUnreadMessageCount(Integer userId) {
+        return getBadges(userId).getUnreadMessages();
+    }
+
+    // ==================== 增量更新 ====================
+
+    @Override
+    public void onNotificationCreated(Integer receiverId, Integer type) {
+        update(receiverId, c -> c.addNotification(type, 1));
+    }
+
+    @Override
+    public void onAnnouncementPublished() {
+        afterCommit(() -> {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                versions.incrementAndGet(stripe);
+            }
+            counters.values().forEach(c -> c.addNotification(ANNOUNCEMENT_TYPE, 1));
+        });
+    }
+
+    @Override
+    public void onAllNotificationsRead(Integer userId) {
+        update(userId, Counters::clearNotifications);
+    }
+
+    @Override
+    public void onNotificationTypeRead(Integer userId, Integer type) {
+        update(userId, c -> c.clearNotificationType(type));
+    }
+
+    @Override
+    public void onMessageSent(Integer receiverId) {
+        update(receiverId, c -> c.addMessages(1));
+    }
+
+    @Override
+    public void onMessagesRead(Integer receiverId, int count) {
+        if (count > 0) {
+            update(receiverId, c -> c.addMessages(-count));
+        }
+    }
+
+    @Override
+    public void onFriendRequestChanged(Integer userId, int delta) {
+        update(userId, c -> c.addFriendRequests(delta));
+    }
+
+    @Override
+    public void invalidate(Integer userId) {
+        afterCommit(() -> {
+            versions.incrementAndGet(stripe(userId));
+            counters.remove(userId);
+        });
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 获取用户计数器，不存在或已过期时从数据库重建
+     * 查询在 compute 之外进行，不在哈希表的锁内做数据库IO；
+     * 查询期间计数有变化时本次结果只用于这次读取，不写入缓存
+     */
+    private Counters load(Integer userId) {
+        long now = System.currentTimeMillis();
+        Counters current = counters.get(userId);
+        if (current != null && !current.isExpired(now)) {
+            return current;
+        }
+        if (current == null && counters.size() >= MAX_USERS) {
+            evict(now);
+        }
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        Counters rebuilt = rebuild(userId);
+        Counters cached = counters.compute(userId, (key, old) -> {
+            if (old != null && !old.isExpired(now)) {
+                return old;
+            }
+            return versions.get(stripe) == version ? rebuilt : old;
+        });
+        return cached != null && cached != current ? cached : rebuilt;
+    }
+
+    /**
+     * 从数据库重建计数器
+     */
+    private Counters rebuild(Integer userId) {
+        Counters rebuilt = new Counters();
+        for (Map<String, Object> row : notificationMapper.countUnreadByType(userId)) {
+            Integer type = ((Number) row.get("type")).intValue();
+            int count = ((Number) row.get("count")).intValue();
+            rebuilt.notificationByType.put(type, count);
+            rebuilt.notificationTotal += count;
+        }
+        int announcements = announcementService.countUnread(userId);
+        if (announcements > 0) {
+            rebuilt.notificationByType.merge(ANNOUNCEMENT_TYPE, announcements, Integer::sum);
+            rebuilt.notificationTotal += announcements;
+        }
+        rebuilt.unreadMessages = messageMapper.getUnreadCount(userId);
+        rebuilt.pendingFriendRequests = friendMapper.countPendingRequests(userId);
+        logger.debug("重建用户{}的角标计数", userId);
+        return rebuilt;
+    }
+
+    /**
+     * 只更新已缓存的计数器；未缓存的用户下次读取时会从数据库得到最新值
+     * 在事务中调用时推迟到事务提交后执行，回滚则不更新
+     */
+    private void update(Integer userId, Consumer<Counters> action) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            versions.incrementAndGet(stripe(userId));
+            counters.computeIfPresent(userId, (key, c) -> {
+                action.accept(c);
+                return c;
+            });
+        });
+    }
+
+    private static int stripe(Integer userId) {
+        return Math.floorMod(userId, STRIPES);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 缓存用户数达到上限时，先清理过期计数器，仍然超限则清理一半
+     */
+    private void evict(long now) {
+        counters.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+        if (counters.size() >= MAX_USERS) {
+            Iterator<Integer> iterator = counters.keySet().iterator();
+            int toRemove = counters.size() / 2;
+            while (iterator.hasNext() && toRemove-- > 0) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.BroadcastJobMapper;
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.BroadcastJob;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.IBadgeCountService;
+import com.example1.demo2.service.IBroadcastService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 群发服务实现类
+ * 按用户ID游标流式读取受众，每页拆成多批并行插入，每批一个独立的短事务；
+ * 每页结束后保存游标，服务重启后从游标处继续；某页失败时退避重试，重试用尽才标记任务失败；
+ * 根据批量插入的实测耗时节流，数据库变慢时自动放缓
+ */
+@Service
+public class BroadcastService implements IBroadcastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastService.class);
+
+    // 每页从游标读取的接收者数
+    private static final int PAGE_SIZE = 1000;
+
+    // 单次批量插入的通知数
+    private static final int INSERT_BATCH_SIZE = 200;
+
+    // 并行插入的线程数
+    private static final int INSERT_THREADS = 4;
+
+    // 单页之后最长的节流等待
+    private static final long MAX_PAUSE_MILLIS = 2000;
+
+    // 一页连续失败的最多重试次数，用尽后任务才标记为失败
+    private static final int MAX_PAGE_RETRIES = 5;
+
+    // 重试退避的初始等待和上限，每次失败翻倍
+    private static final long RETRY_BASE_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 30000;
+
+    // 群发通知的类型和目标类型：系统通知、其他
+    private static final int NOTIFICATION_TYPE = 7;
+    private static final int TARGET_TYPE = 5;
+
+    @Autowired
+    private BroadcastJobMapper jobMapper;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private WebSocketNotificationService webSocketService;  // 实时推送服务（可选）
+
+    // 期望的单批插入耗时（毫秒），实测平均耗时超过它就开始节流
+    @Value("${notification.broadcast.target-latency-ms:50}")
+    private long targetLatencyMillis;
+
+    // 运行中任务的进度
+    private final Map<Integer, JobProgress> progress = new ConcurrentHashMap<>();
+
+    // 批量插入耗时的指数加权平均（毫秒）
+    private double avgLatencyMillis;
+
+    private ExecutorService coordinator;
+
+    private ExecutorService inserters;
+
+    private volatile boolean running;
+
+    /**
+     * 一页中有批次插入失败，其余批次已插入的通知数随异常带出
+     */
+    private static final class BatchFailure extends Exception {
+        private final int inserted;
+
+        private BatchFailure(int inserted, Throwable cause) {
+            super(cause);
+            this.inserted = inserted;
+        }
+    }
+
+    /**
+     * 运行中任务的进度快照
+     */
+    private static final class JobProgress {
+        private final long startNanos = System.nanoTime();
+        private final int startSent;
+        private volatile int sentCount;
+        private volatile int cursorUserId;
+        private volatile int status = BroadcastJob.STATUS_RUNNING;
+
+        private JobProgress(BroadcastJob job) {
+            this.startSent = job.getSentCount();
+            this.sentCount = job.getSentCount();
+            this.cursorUserId = job.getCursorUserId();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        coordinator = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "broadcast-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        inserters = Executors.newFixedThreadPool(INSERT_THREADS, r -> {
+            Thread thread = new Thread(r, "broadcast-insert-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        coordinator.submit(this::resumeRunningJobs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 未完成的任务保持进行中状态，下次启动时从游标继续
+        running = false;
+        coordinator.shutdownNow();
+        inserters.shutdownNow();
+        try {
+            coordinator.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Integer startBroadcast(Integer audienceType, Integer audienceId, String title, String content) {
+        if (audienceType != null && audienceType == BroadcastJob.AUDIENCE_ALL) {
+            // 全体用户走全站公告，不逐个插入通知
+            throw new RuntimeException("全体用户请发布全站公告");
+        }
+        if (audienceType == null || audienceType < BroadcastJob.AUDIENCE_GALAXY || audienceType > BroadcastJob.AUDIENCE_FRIENDS) {
+            throw new RuntimeException("不支持的受众类型");
+        }
+        if (audienceId == null) {
+            throw new RuntimeException("受众参数不能为空");
+        }
+
+        BroadcastJob job = new BroadcastJob();
+        job.setAudienceType(audienceType);
+        job.setAudienceId(audienceId);
+        job.setTitle(title);
+        job.setContent(content);
+        jobMapper.insertJob(job);
+        logger.info("创建群发任务{}：受众类型{}，受众参数{}，标题{}", job.getJobId(), audienceType, audienceId, title);
+
+        // 在事务中创建时，等事务提交后再开始发送
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    coordinator.submit(() -> runJob(job, false));
+                }
+            });
+        } else {
+            coordinator.submit(() -> runJob(job, false));
+        }
+        return job.getJobId();
+    }
+
+    @Override
+    public Map<String, Object> getProgress(Integer jobId) {
+        BroadcastJob job = jobMapper.getJobById(jobId);
+        if (job == null) {
+            return null;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", jobId);
+        result.put("title", job.getTitle());
+        result.put("audienceType", job.getAudienceType());
+        result.put("audienceId", job.getAudienceId());
+
+        JobProgress current = progress.get(jobId);
+        if (current != null) {
+            // 运行中的任务以内存进度为准，数据库里的游标只在每页结束时保存
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.startNanos);
+            result.put("status", current.status);
+            result.put("sentCount", current.sentCount);
+            result.put("cursorUserId", current.cursorUserId);
+            result.put("elapsedMillis", elapsedMillis);
+            result.put("throughputPerSecond", elapsedMillis > 0
+                    ? (current.sentCount - current.startSent) * 1000L / elapsedMillis : 0);
+            result.put("avgInsertLatencyMillis", getAvgLatencyMillis());
+        } else {
+            result.put("status", job.getStatus());
+            result.put("sentCount", job.getSentCount());
+            result.put("cursorUserId", job.getCursorUserId());
+            if (job.getFinishTime() != null) {
+                long elapsedMillis = job.getFinishTime().getTime() - job.getCreateTime().getTime();
+                result.put("elapsedMillis", elapsedMillis);
+                result.put("throughputPerSecond", elapsedMillis > 0 ? job.getSentCount() * 1000L / elapsedMillis : 0);
+            }
+        }
+        return result;
+    }
+
+    // ==================== 后台发送 ====================
+
+    /**
+     * 启动时继续上次未完成的任务
+     */
+    private void resumeRunningJobs() {
+        try {
+            for (BroadcastJob job : jobMapper.getRunningJobs()) {
+                logger.info("继续群发任务{}，从用户{}之后开始，已发送{}条", job.getJobId(), job.getCursorUserId(), job.getSentCount());
+                runJob(job, true);
+            }
+        } catch (Exception e) {
+            logger.error("恢复群发任务失败", e);
+        }
+    }
+
+    private void runJob(BroadcastJob job, boolean resumed) {
+        Integer jobId = job.getJobId();
+        JobProgress current = new JobProgress(job);
+        progress.put(jobId, current);
+
+        String targetId = targetId(jobId);
+        String extraData = buildExtraData(jobId);
+        int cursor = job.getCursorUserId();
+        int sent = job.getSentCount();
+        // 崩溃可能发生在插入一页之后、保存游标之前，恢复后的第一页需要跳过已插入的用户
+        boolean checkDelivered = resumed;
+
+        int failures = 0;
+
+        try {
+            while (running) {
+                try {
+                    List<Integer> userIds = jobMapper.getAudienceUserIds(job.getAudienceType(), job.getAudienceId(), cursor, PAGE_SIZE);
+                    if (userIds.isEmpty()) {
+                        break;
+                    }
+
+                    List<Integer> receivers = userIds;
+                    if (checkDelivered) {
+                        Set<Integer> delivered = new HashSet<>(notificationMapper.getDeliveredReceiverIds(TARGET_TYPE, targetId, userIds));
+                        receivers = new ArrayList<>(userIds);
+                        receivers.removeAll(delivered);
+                        checkDelivered = false;
+                    }
+
+                    try {
+                        sent += insertInParallel(job, receivers, targetId, extraData);
+                    } catch (BatchFailure e) {
+                        sent += e.inserted;
+                        throw e;
+                    }
+                    cursor = userIds.get(userIds.size() - 1);
+                    jobMapper.updateProgress(jobId, cursor, sent);
+                    current.cursorUserId = cursor;
+                    current.sentCount = sent;
+                    failures = 0;
+                } catch (BatchFailure | RuntimeException e) {
+                    // 本页可能已部分插入：任务保持进行中，退避后重试本页，重试前回查已收到的用户
+                    if (++failures > MAX_PAGE_RETRIES) {
+                        throw e;
+                    }
+                    long backoff = Math.min(RETRY_BASE_MILLIS << (failures - 1), MAX_RETRY_MILLIS);
+                    logger.warn("群发任务{}在用户{}之后的一页发送失败，{}ms后第{}次重试", jobId, cursor, backoff, failures, e);
+                    current.sentCount = sent;
+                    checkDelivered = true;
+                    Thread.sleep(backoff);
+                    continue;
+                }
+
+                throttle();
+            }
+
+            if (running) {
+                jobMapper.finishJob(jobId, BroadcastJob.STATUS_FINISHED);
+                current.status = BroadcastJob.STATUS_FINISHED;
+                logger.info("群发任务{}完成，共发送给 {} 个用户", jobId, sent);
+            } else {
+                logger.info("群发任务{}暂停于用户{}，下次启动时继续", jobId, cursor);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("群发任务{}被中断于用户{}，下次启动时继续", jobId, cursor);
+        } catch (Exception e) {
+            logger.error("群发任务{}重试{}次后仍失败，已发送{}条", jobId, MAX_PAGE_RETRIES, sent, e);
+            current.status = BroadcastJob.STATUS_FAILED;
+            try {
+                jobMapper.finishJob(jobId, BroadcastJob.STATUS_FAILED);
+            } catch (Exception ex) {
+                // 数据库仍不可用时任务保持进行中，下次启动时继续
+                logger.error("标记群发任务{}失败时出错", jobId, ex);
+            }
+        } finally {
+            progress.remove(jobId);
+        }
+    }
+
+    /**
+     * 把一页接收者拆成多批并行插入，返回插入的通知数
+     * 等所有批次结束后再报告失败，失败时已成功的批次数一并带出
+     */
+    private int insertInParallel(BroadcastJob job, List<Integer> receivers, String targetId, String extraData)
+            throws InterruptedException, BatchFailure {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < receivers.size(); from += INSERT_BATCH_SIZE) {
+            List<Integer> batch = receivers.subList(from, Math.min(from + INSERT_BATCH_SIZE, receivers.size()));
+            futures.add(inserters.submit(() -> insertBatch(job, batch, targetId, extraData)));
+        }
+        int inserted = 0;
+        Throwable failure = null;
+        for (Future<Integer> future : futures) {
+            try {
+                inserted += future.get();
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+        }
+        if (failure != null) {
+            throw new BatchFailure(inserted, failure);
+        }
+        return inserted;
+    }
+
+    /**
+     * 插入一批通知，单条批量插入语句即一个短事务
+     */
+    private int insertBatch(BroadcastJob job, List<Integer> receiverIds, String targetId, String extraData) {
+        List<Notification> notifications = new ArrayList<>(receiverIds.size());
+        for (Integer receiverId : receiverIds) {
+            User receiver = new User();
+            receiver.setUserId(receiverId);
+
+            Notification notification = new Notification();
+            notification.setReceiver(receiver);
+            notification.setSender(null); // 系统通知没有发送者
+            notification.setType(NOTIFICATION_TYPE);
+            notification.setTitle(job.getTitle());
+            notification.setContent(job.getContent());
+            notification.setTargetType(TARGET_TYPE);
+            notification.setTargetId(targetId);
+            notification.setExtraData(extraData);
+            notifications.add(notification);
+        }
+
+        long start = System.nanoTime();
+        notificationMapper.insertNotificationBatch(notifications);
+        recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        for (Integer receiverId : receiverIds) {
+            badgeCountService.onNotificationCreated(receiverId, NOTIFICATION_TYPE);
+        }
+        if (webSocketService != null) {
+            webSocketService.sendRealtimeNotifications(notifications);
+        }
+        return notifications.size();
+    }
+
+    /**
+     * 按实测插入耗时节流：平均耗时超出期望值越多，页间等待越久
+     */
+    private void throttle() throws InterruptedException {
+        double overshoot = getAvgLatencyMillis() - targetLatencyMillis;
+        if (overshoot <= 0) {
+            return;
+        }
+        long batchesPerPage = (PAGE_SIZE + INSERT_BATCH_SIZE - 1) / INSERT_BATCH_SIZE;
+        long pause = Math.min((long) (overshoot * batchesPerPage), MAX_PAUSE_MILLIS);
+        logger.debug("数据库批量插入平均耗时{}ms，群发暂停{}ms", getAvgLatencyMillis(), pause);
+        Thread.sleep(pause);
+    }
+
+    private synchronized void recordLatency(long millis) {
+        avgLatencyMillis = avgLatencyMillis == 0 ? millis : avgLatencyMillis * 0.8 + millis * 0.2;
+    }
+
+    private synchronized double getAvgLatencyMillis() {
+        return avgLatencyMillis;
+    }
+
+    // 同一任务的通知共用目标ID，任务恢复时据此判断哪些用户已经收到
+    private String targetId(Integer jobId) {
+        return "broadcast-" + jobId;
+    }
+
+    private String buildExtraData(Integer jobId) {
+        Map<String, Object> extraData = new HashMap<>();
+        extraData.put("systemNotice", true);
+        extraData.put("broadcast", true);
+        extraData.put("jobId", jobId);
+        try {
+            return objectMapper.writeValueAsString(extraData);
+        } catch (Exception e) {
+            logger.error("序列化额外数据失败", e);
+            return null;
+        }
+    }
+}
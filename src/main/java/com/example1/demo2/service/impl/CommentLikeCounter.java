@@ -0,0 +1,344 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.PlanetCommentMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 评论点赞数写后合并
+ * 点赞和取消点赞只在内存中累加增量（LongAdder分段累加，热门评论上的并发点赞不争用同一行），
+ * 后台线程定期用一条 UPDATE ... CASE 批量写回；读取点赞数时叠加尚未写回的增量。
+ * 每个增量同时追加到本地日志，进程崩溃后重启时，按日志中的评论ID从点赞表重新统计点赞数
+ */
+@Service
+public class CommentLikeCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentLikeCounter.class);
+
+    // 评论类型
+    public static final int GALAXY = 1;
+    public static final int PLANET = 2;
+
+    // 写回间隔（毫秒）
+    private static final long FLUSH_MILLIS = 1000;
+
+    // 单条UPDATE最多更新的评论数
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SEGMENT_PREFIX = "likes-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    @Autowired
+    private GalaxyCommentMapper galaxyCommentMapper;
+
+    @Autowired
+    private PlanetCommentMapper planetCommentMapper;
+
+    @Value("${comment.like.journal-dir:data/comment-like-journal}")
+    private String journalDir;
+
+    private final Deltas galaxyDeltas = new Deltas();
+    private final Deltas planetDeltas = new Deltas();
+
+    // 记录增量时持读锁，切换日志段时持写锁，保证每个日志段恰好覆盖一次写回的全部增量
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+
+    // 已封存、等待写回成功后删除的日志段
+    private final List<Path> sealedSegments = new ArrayList<>();
+
+    private Path directory;
+    private Path currentSegment;
+    private FileChannel journal;
+    private int segmentSeq;
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * 一类评论的待写回增量
+     */
+    private static final class Deltas {
+        // 评论ID -> 尚未写回的增量
+        volatile Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+        // 正在写回的增量，写回完成前读取时仍需叠加
+        volatile Map<Integer, Long> flushing = Collections.emptyMap();
+
+        long get(Integer commentId) {
+            long delta = flushing.getOrDefault(commentId, 0L);
+            LongAdder adder = pending.get(commentId);
+            return adder != null ? delta + adder.sum() : delta;
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+        recover();
+        openSegment();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "comment-like-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            closeQuietly(journal);
+            // 全部写回后当前日志段为空，直接删除；写回失败的日志段留给下次启动恢复
+            if (sealedSegments.isEmpty()) {
+                deleteQuietly(currentSegment);
+            }
+        }
+    }
+
+    /**
+     * 记录点赞数变化
+     * 有事务时挂到事务提交之后，回滚时不计数
+     */
+    public void record(int type, Integer commentId, int delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(type, commentId, delta);
+                }
+            });
+        } else {
+            add(type, commentId, delta);
+        }
+    }
+
+    /**
+     * 获取点赞数：数据库中的值加上尚未写回的增量
+     */
+    public Integer getLikeCount(int type, Integer commentId, Integer storedCount) {
+        long count = (storedCount != null ? storedCount : 0) + deltas(type).get(commentId);
+        return (int) Math.max(count, 0);
+    }
+
+    /**
+     * 把累积的增量批量写回数据库
+     */
+    public synchronized void flush() {
+        Map<Integer, LongAdder> galaxy;
+        Map<Integer, LongAdder> planet;
+        journalLock.writeLock().lock();
+        try {
+            if (galaxyDeltas.pending.isEmpty() && planetDeltas.pending.isEmpty()) {
+                return;
+            }
+            galaxy = galaxyDeltas.pending;
+            planet = planetDeltas.pending;
+            galaxyDeltas.pending = new ConcurrentHashMap<>();
+            planetDeltas.pending = new ConcurrentHashMap<>();
+            rotateSegment();
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+
+        boolean galaxyDone = apply(galaxyDeltas, galaxy, galaxyCommentMapper::applyLikeDeltas);
+        boolean planetDone = apply(planetDeltas, planet, planetCommentMapper::applyLikeDeltas);
+        if (galaxyDone && planetDone) {
+            // 封存的日志段中的增量都已写回
+            sealedSegments.forEach(this::deleteQuietly);
+            sealedSegments.clear();
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void add(int type, Integer commentId, int delta) {
+        journalLock.readLock().lock();
+        try {
+            deltas(type).pending.computeIfAbsent(commentId, k -> new LongAdder()).add(delta);
+            append(type, commentId);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private Deltas deltas(int type) {
+        return type == GALAXY ? galaxyDeltas : planetDeltas;
+    }
+
+    /**
+     * 写回一类评论的增量，失败时把增量放回待写回队列，下次重试
+     */
+    private boolean apply(Deltas deltas, Map<Integer, LongAdder> drained, Function<Map<Integer, Long>, Integer> update) {
+        Map<Integer, Long> values = new HashMap<>();
+        drained.forEach((commentId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                values.put(commentId, delta);
+            }
+        });
+        if (values.isEmpty()) {
+            return true;
+        }
+
+        List<Map<Integer, Long>> batches = new ArrayList<>();
+        Map<Integer, Long> batch = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : values.entrySet()) {
+            if (batch.size() >= BATCH_SIZE) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        batches.add(batch);
+
+        deltas.flushing = values;
+        int done = 0;
+        try {
+            for (Map<Integer, Long> each : batches) {
+                update.apply(each);
+                done++;
+            }
+            return true;
+        } catch (Exception e) {
+            // 只放回未写回的批次，已写回的批次不重复计数
+            logger.error("写回评论点赞数失败，剩余{}批", batches.size() - done, e);
+            for (Map<Integer, Long> each : batches.subList(done, batches.size())) {
+                each.forEach((commentId, delta) ->
+                        deltas.pending.computeIfAbsent(commentId, k -> new LongAdder()).add(delta));
+            }
+            return false;
+        } finally {
+            deltas.flushing = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 启动时处理上次遗留的日志段：按其中的评论ID从点赞表重新统计点赞数
+     * 重新统计是幂等的，不关心上次进程停在写回的哪一步
+     */
+    private void recover() {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        } catch (IOException e) {
+            logger.error("读取点赞日志目录失败: {}", directory, e);
+            return;
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> galaxyIds = new HashSet<>();
+        Set<Integer> planetIds = new HashSet<>();
+        try {
+            for (Path segment : segments) {
+                for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                    String[] parts = line.trim().split(" ");
+                    if (parts.length != 2) {
+                        // 崩溃时可能写了半行
+                        continue;
+                    }
+                    int type = Integer.parseInt(parts[0]);
+                    Integer commentId = Integer.valueOf(parts[1]);
+                    (type == GALAXY ? galaxyIds : planetIds).add(commentId);
+                }
+            }
+            recount(galaxyIds, galaxyCommentMapper::recountLikes);
+            recount(planetIds, planetCommentMapper::recountLikes);
+        } catch (Exception e) {
+            // 保留日志段，下次启动再恢复
+            logger.error("恢复评论点赞数失败", e);
+            return;
+        }
+
+        segments.forEach(this::deleteQuietly);
+        logger.info("已按点赞日志重新统计点赞数：星系评论{}条，星球评论{}条", galaxyIds.size(), planetIds.size());
+    }
+
+    private void recount(Set<Integer> commentIds, Function<Collection<Integer>, Integer> update) {
+        List<Integer> ids = new ArrayList<>(commentIds);
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            update.apply(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+        }
+    }
+
+    /**
+     * 追加一行日志：类型 评论ID
+     * 直接写入文件通道，进程崩溃后已写入的内容仍在操作系统中
+     */
+    private void append(int type, Integer commentId) {
+        byte[] line = (type + " " + commentId + "\n").getBytes(StandardCharsets.US_ASCII);
+        try {
+            journal.write(ByteBuffer.wrap(line));
+        } catch (IOException e) {
+            logger.error("写入点赞日志失败，评论ID: {}", commentId, e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        currentSegment = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + "-" + (++segmentSeq) + SEGMENT_SUFFIX);
+        journal = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 封存当前日志段并打开新日志段，调用方持有写锁
+     */
+    private void rotateSegment() {
+        closeQuietly(journal);
+        sealedSegments.add(currentSegment);
+        try {
+            openSegment();
+        } catch (IOException e) {
+            // 继续累加内存增量，只是没有日志保护
+            logger.error("打开点赞日志失败: {}", directory, e);
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("关闭点赞日志失败", e);
+        }
+    }
+
+    private void deleteQuietly(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            logger.warn("删除点赞日志失败: {}", segment, e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.PlanetCommentMapper;
+import com.example1.demo2.util.IntBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * 评论点赞用户缓存
+ * 每条评论的点赞用户集合以压缩位图保存在内存中，首次用到时从点赞表批量加载，
+ * 点赞和取消点赞在事务提交后同步更新位图；整页评论的“我是否点过赞”直接在内存中判断。
+ * 按LRU淘汰，总内存不超过预算；点赞数为0的评论不加载，直接判定为未点赞
+ */
+@Service
+public class CommentLikerCache {
+
+    // 单次批量加载的评论数
+    private static final int LOAD_BATCH_SIZE = 200;
+
+    @Autowired
+    private GalaxyCommentMapper galaxyCommentMapper;
+
+    @Autowired
+    private PlanetCommentMapper planetCommentMapper;
+
+    @Autowired
+    private CommentLikeCounter likeCounter;
+
+    // 位图总内存预算（字节），默认64MB
+    @Value("${comment.liker-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    // 评论键 -> 点赞用户位图，按访问顺序排列，最久未用的在前
+    private final LinkedHashMap<Long, IntBitmap> bitmaps = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 正在加载的评论键 -> 加载期间是否有点赞变化（有变化时加载结果不入缓存）
+    private final Map<Long, Boolean> loading = new HashMap<>();
+
+    private long totalBytes;
+
+    /**
+     * 判断用户是否点赞过某条评论
+     * @param storedCount 数据库中的点赞数
+     */
+    public boolean isLiked(int type, Integer userId, Integer commentId, Integer storedCount) {
+        return getLikedCommentIds(type, userId, Collections.singletonMap(commentId, storedCount)).contains(commentId);
+    }
+
+    /**
+     * 在给定评论中筛选出用户点赞过的评论ID
+     * @param storedCounts 评论ID -> 数据库中的点赞数
+     */
+    public Set<Integer> getLikedCommentIds(int type, Integer userId, Map<Integer, Integer> storedCounts) {
+        Set<Integer> liked = new HashSet<>();
+        if (userId == null || storedCounts.isEmpty()) {
+            return liked;
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Integer, Integer> entry : storedCounts.entrySet()) {
+                Integer commentId = entry.getKey();
+                if (likeCounter.getLikeCount(type, commentId, entry.getValue()) == 0) {
+                    continue;
+                }
+                IntBitmap bitmap = bitmaps.get(key(type, commentId));
+                if (bitmap == null) {
+                    missing.add(commentId);
+                    loading.putIfAbsent(key(type, commentId), Boolean.FALSE);
+                } else if (bitmap.contains(userId)) {
+                    liked.add(commentId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Integer, IntBitmap> loaded;
+            try {
+                loaded = load(type, missing);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    missing.forEach(commentId -> loading.remove(key(type, commentId)));
+                }
+                throw e;
+            }
+            synchronized (this) {
+                loaded.forEach((commentId, bitmap) -> {
+                    if (bitmap.contains(userId)) {
+                        liked.add(commentId);
+                    }
+                    Long key = key(type, commentId);
+                    // 加载期间有点赞变化，或同一评论被并发加载时，不缓存这次的结果
+                    if (Boolean.FALSE.equals(loading.remove(key)) && !bitmaps.containsKey(key)) {
+                        bitmaps.put(key, bitmap);
+                        totalBytes += bitmap.getSizeInBytes();
+                    }
+                });
+                evict();
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * 点赞状态变化，事务提交后更新已缓存的位图
+     */
+    public void onLikeChanged(int type, Integer commentId, Integer userId, boolean liked) {
+        afterCommit(() -> update(type, commentId, userId, liked));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 更新已缓存的位图；评论正在加载时标记为有变化，加载结果不入缓存
+     */
+    private synchronized void update(int type, Integer commentId, Integer userId, boolean liked) {
+        Long key = key(type, commentId);
+        if (loading.containsKey(key)) {
+            loading.put(key, Boolean.TRUE);
+        }
+        IntBitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        long before = bitmap.getSizeInBytes();
+        if (liked) {
+            bitmap.add(userId);
+        } else {
+            bitmap.remove(userId);
+        }
+        totalBytes += bitmap.getSizeInBytes() - before;
+        evict();
+    }
+
+    /**
+     * 从点赞表批量加载位图，没有点赞记录的评论得到空位图
+     */
+    private Map<Integer, IntBitmap> load(int type, List<Integer> commentIds) {
+        Map<Integer, IntBitmap> loaded = new HashMap<>();
+        for (Integer commentId : commentIds) {
+            loaded.put(commentId, new IntBitmap());
+        }
+        for (int i = 0; i < commentIds.size(); i += LOAD_BATCH_SIZE) {
+            List<Integer> batch = commentIds.subList(i, Math.min(i + LOAD_BATCH_SIZE, commentIds.size()));
+            List<Map<String, Object>> rows = type == CommentLikeCounter.GALAXY
+                    ? galaxyCommentMapper.getLikersByCommentIds(batch)
+                    : planetCommentMapper.getLikersByCommentIds(batch);
+            for (Map<String, Object> row : rows) {
+                Integer commentId = ((Number) row.get("comment_id")).intValue();
+                loaded.get(commentId).add(((Number) row.get("user_id")).intValue());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 超出内存预算时淘汰最久未用的位图
+     */
+    private void evict() {
+        Iterator<IntBitmap> iterator = bitmaps.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getSizeInBytes();
+            iterator.remove();
+        }
+    }
+
+    private static Long key(int type, Integer commentId) {
+        return ((long) type << 32) | (commentId & 0xFFFFFFFFL);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
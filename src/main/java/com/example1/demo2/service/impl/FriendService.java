@@ -8,6 +8,7 @@ import com.example1.demo2.pojo.User;
 import com.example1.demo2.pojo.dto.FriendDto;
 import com.example1.demo2.pojo.dto.UserDto;
 import com.example1.demo2.service.IFriendService;
+import com.example1.demo2.service.IBadgeCountService;
 import com.example1.demo2.service.INotificationService;
 import com.example1.demo2.util.ConvertUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,12 +28,18 @@ public class FriendService implements IFriendService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
     @Autowired
     private PrivateMessageMapper messageMapper;
 
     @Autowired
     private INotificationService notificationService;
 
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
     @Override
     @Transactional
     public boolean sendFriendRequest(FriendDto friendDto) {
@@ -61,6 +68,7 @@ public class FriendService implements IFriendService {
         friend.setRequestMessage(friendDto.getRequestMessage());
 
         friendMapper.insertFriendRequest(friend);
+        badgeCountService.onFriendRequestChanged(friendDto.getFriendUserId(), 1);
 
         // 发送好友请求通知
         sendFriendRequestNotification(friendDto.getUserId(), friendDto.getFriendUserId());
@@ -89,6 +97,7 @@ public class FriendService implements IFriendService {
 
         // 更新状态为已接受
         friendMapper.updateFriendStatus(friendId, 1);
+        badgeCountService.onFriendRequestChanged(userId, -1);
 
         // 发送接受通知
         sendFriendAcceptNotification(request.getFriendUserId(), request.getUserId());
@@ -111,6 +120,7 @@ public class FriendService implements IFriendService {
 
         // 更新状态为已拒绝
         friendMapper.updateFriendStatus(friendId, 2);
+        badgeCountService.onFriendRequestChanged(userId, -1);
 
         return true;
     }
@@ -181,7 +191,7 @@ public class FriendService implements IFriendService {
 
     @Override
     public List<UserDto> searchUsersForFriend(String keyword, Integer userId) {
-        List<User> users = userMapper.searchUsers(keyword, userId, 20);
+        List<User> users = userDirectory.search(keyword, userId, 20);
 
         return users.stream()
                 .map(ConvertUtil::convertUserToDto)
@@ -41,6 +41,15 @@ public class GalaxyCommentService implements IGalaxyCommentService {
     @Autowired
     private ISystemAdminService systemAdminService;
 
+    @Autowired
+    private GalaxyCommentTreeLoader commentTreeLoader;
+
+    @Autowired
+    private CommentLikeCounter likeCounter;
+
+    @Autowired
+    private CommentLikerCache likerCache;
+
     @Override
     @Transactional
     public GalaxyCommentDto publishComment(GalaxyCommentDto commentDto) {
@@ -194,18 +203,11 @@ public class GalaxyCommentService implements IGalaxyCommentService {
         // 计算偏移量
         int offset = (page - 1) * size;
 
-        // 获取一级评论
-        List<GalaxyComment> firstLevelComments = commentMapper.getFirstLevelComments(galaxyId, offset, size);
-
-        // 转换为DTO并加载回复
-        return firstLevelComments.stream()
-                .map(comment -> {
-                    GalaxyCommentDto dto = convertToDto(comment, userId);
-                    // 加载所有层级的回复
-                    loadReplies(dto, userId);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        // 获取一级评论（用户由拦截器批量补全，星系由评论树加载器补全）
+        List<GalaxyComment> firstLevelComments = commentMapper.getFirstLevelCommentRows(galaxyId, offset, size);
+
+        // 批量加载整棵评论树并转换为DTO
+        return commentTreeLoader.loadTree(firstLevelComments, userId);
     }
 
     @Override
@@ -217,18 +219,18 @@ public class GalaxyCommentService implements IGalaxyCommentService {
             throw new RuntimeException("评论不存在或已被删除");
         }
 
-        // 检查是否已点赞
-        boolean isLiked = commentMapper.isLiked(userId, galaxyCommentId);
-
-        if (isLiked) {
+        // 先尝试取消点赞，删除不到记录说明尚未点赞，省去单独的查询
+        // 点赞数只记内存增量，由 CommentLikeCounter 批量写回
+        if (commentMapper.deleteLike(userId, galaxyCommentId) > 0) {
             // 取消点赞
-            commentMapper.deleteLike(userId, galaxyCommentId);
-            commentMapper.decreaseLikeCount(galaxyCommentId);
+            likeCounter.record(CommentLikeCounter.GALAXY, galaxyCommentId, -1);
+            likerCache.onLikeChanged(CommentLikeCounter.GALAXY, galaxyCommentId, userId, false);
             return false;
         } else {
             // 点赞
             commentMapper.insertLike(userId, galaxyCommentId);
-            commentMapper.increaseLikeCount(galaxyCommentId);
+            likeCounter.record(CommentLikeCounter.GALAXY, galaxyCommentId, 1);
+            likerCache.onLikeChanged(CommentLikeCounter.GALAXY, galaxyCommentId, userId, true);
 
 // 发送点赞通知（类型2：星系评论点赞）
             try {
@@ -316,13 +318,8 @@ public class GalaxyCommentService implements IGalaxyCommentService {
             throw new RuntimeException("评论不存在或已被删除");
         }
 
-        // 转换为DTO
-        GalaxyCommentDto dto = convertToDto(comment, userId);
-
-        // 加载所有回复
-        loadReplies(dto, userId);
-
-        return dto;
+        // 批量加载所有回复并转换为DTO
+        return commentTreeLoader.loadTree(List.of(comment), userId).get(0);
     }
 
     /**
@@ -370,7 +367,7 @@ public class GalaxyCommentService implements IGalaxyCommentService {
         dto.setParentId(comment.getParentId());
         dto.setReplyToUserId(comment.getReplyToUserId());
         dto.setCreatorRole(comment.getCreatorRole());
-        dto.setLikeCount(comment.getLikeCount());
+        dto.setLikeCount(likeCounter.getLikeCount(CommentLikeCounter.GALAXY, comment.getGalaxyCommentId(), comment.getLikeCount()));
         dto.setReplyCount(comment.getReplyCount());
         dto.setStatus(comment.getStatus());
         dto.setCreateTime(comment.getCreateTime());
@@ -386,7 +383,7 @@ public class GalaxyCommentService implements IGalaxyCommentService {
 
         // 判断当前用户是否已点赞
         if (currentUserId != null) {
-            dto.setIsLiked(commentMapper.isLiked(currentUserId, comment.getGalaxyCommentId()));
+            dto.setIsLiked(likerCache.isLiked(CommentLikeCounter.GALAXY, currentUserId, comment.getGalaxyCommentId(), comment.getLikeCount()));
         }
 
         return dto;
@@ -0,0 +1,179 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.GalaxyMapper;
+import com.example1.demo2.pojo.GalaxyComment;
+import com.example1.demo2.pojo.KnowledgeGalaxy;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.GalaxyCommentDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 星系评论树加载器
+ * 一次性批量查出可见的整棵评论子树、相关用户、星系和当前用户的点赞状态，
+ * 再在内存中组装DTO树，查询次数与评论数量无关（最多 层数 + 3 次）
+ */
+@Service
+public class GalaxyCommentTreeLoader {
+
+    // 评论最多三级，三级评论不再挂载子回复
+    private static final int MAX_LEVEL = 3;
+
+    @Autowired
+    private GalaxyCommentMapper commentMapper;
+
+    @Autowired
+    private GalaxyMapper galaxyMapper;
+
+    @Autowired
+    private UserDataLoader userDataLoader;
+
+    @Autowired
+    private CommentLikeCounter likeCounter;
+
+    @Autowired
+    private CommentLikerCache likerCache;
+
+    /**
+     * 为给定的根评论加载完整的回复树
+     * @param roots 根评论（可以只填充了用户ID和星系ID）
+     * @param currentUserId 当前用户ID（可为空，为空时不判断点赞状态）
+     * @return 与roots顺序一致的DTO列表，回复挂在replies中
+     */
+    public List<GalaxyCommentDto> loadTree(List<GalaxyComment> roots, Integer currentUserId) {
+        if (roots == null || roots.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. 按层批量查询回复：每一层一条IN查询
+        Map<Integer, List<GalaxyComment>> childrenByParent = new HashMap<>();
+        List<GalaxyComment> all = new ArrayList<>(roots);
+        List<Integer> frontier = collectIds(roots);
+        for (int depth = 1; depth < MAX_LEVEL && !frontier.isEmpty(); depth++) {
+            List<GalaxyComment> replies = commentMapper.getReplyRowsByParentIds(frontier);
+            frontier = new ArrayList<>();
+            for (GalaxyComment reply : replies) {
+                childrenByParent.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>()).add(reply);
+                all.add(reply);
+                // 只有二级评论才会继续挂载子回复
+                if (reply.getLevel() != null && reply.getLevel() == 2) {
+                    frontier.add(reply.getGalaxyCommentId());
+                }
+            }
+        }
+
+        // 2. 批量查询作者和被回复用户（本次请求中已加载的用户直接命中缓存）
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> galaxyIds = new HashSet<>();
+        for (GalaxyComment comment : all) {
+            if (comment.getUser() != null && comment.getUser().getUserId() != null) {
+                userIds.add(comment.getUser().getUserId());
+            }
+            if (comment.getReplyToUserId() != null) {
+                userIds.add(comment.getReplyToUserId());
+            }
+            if (comment.getKnowledgeGalaxy() != null && comment.getKnowledgeGalaxy().getGalaxyId() != null) {
+                galaxyIds.add(comment.getKnowledgeGalaxy().getGalaxyId());
+            }
+        }
+        Map<Integer, User> users = userDataLoader.loadMany(userIds);
+
+        // 3. 星系信息（一棵树通常只属于一个星系）
+        Map<Integer, KnowledgeGalaxy> galaxies = new HashMap<>();
+        for (Integer galaxyId : galaxyIds) {
+            KnowledgeGalaxy galaxy = galaxyMapper.getKnowledgeGalaxyById(galaxyId);
+            if (galaxy != null) {
+                galaxies.put(galaxyId, galaxy);
+            }
+        }
+
+        // 4. 当前用户的点赞状态，由点赞用户位图在内存中判断
+        Set<Integer> likedIds = new HashSet<>();
+        if (currentUserId != null) {
+            Map<Integer, Integer> likeCounts = new HashMap<>();
+            for (GalaxyComment comment : all) {
+                likeCounts.put(comment.getGalaxyCommentId(), comment.getLikeCount());
+            }
+            likedIds.addAll(likerCache.getLikedCommentIds(CommentLikeCounter.GALAXY, currentUserId, likeCounts));
+        }
+
+        // 5. 在内存中组装DTO树
+        List<GalaxyCommentDto> result = new ArrayList<>(roots.size());
+        for (GalaxyComment root : roots) {
+            result.add(buildNode(root, childrenByParent, users, galaxies, likedIds, currentUserId));
+        }
+        return result;
+    }
+
+    private GalaxyCommentDto buildNode(GalaxyComment comment,
+                                       Map<Integer, List<GalaxyComment>> childrenByParent,
+                                       Map<Integer, User> users,
+                                       Map<Integer, KnowledgeGalaxy> galaxies,
+                                       Set<Integer> likedIds,
+                                       Integer currentUserId) {
+        GalaxyCommentDto dto = toDto(comment, users, galaxies);
+        if (currentUserId != null) {
+            dto.setIsLiked(likedIds.contains(comment.getGalaxyCommentId()));
+        }
+
+        List<GalaxyComment> children = childrenByParent.getOrDefault(comment.getGalaxyCommentId(), Collections.emptyList());
+        List<GalaxyCommentDto> replyDtos = new ArrayList<>(children.size());
+        for (GalaxyComment child : children) {
+            replyDtos.add(buildNode(child, childrenByParent, users, galaxies, likedIds, currentUserId));
+        }
+        dto.setReplies(replyDtos);
+        return dto;
+    }
+
+    private GalaxyCommentDto toDto(GalaxyComment comment, Map<Integer, User> users,
+                                   Map<Integer, KnowledgeGalaxy> galaxies) {
+        GalaxyCommentDto dto = new GalaxyCommentDto();
+        dto.setGalaxyCommentId(comment.getGalaxyCommentId());
+
+        Integer authorId = comment.getUser() != null ? comment.getUser().getUserId() : null;
+        dto.setUserId(authorId);
+        User author = users.get(authorId);
+        if (author != null) {
+            dto.setUsername(author.getNickname());
+        } else if (comment.getUser() != null) {
+            dto.setUsername(comment.getUser().getNickname());
+        }
+
+        if (comment.getKnowledgeGalaxy() != null) {
+            Integer galaxyId = comment.getKnowledgeGalaxy().getGalaxyId();
+            KnowledgeGalaxy galaxy = galaxies.getOrDefault(galaxyId, comment.getKnowledgeGalaxy());
+            dto.setGalaxyId(galaxyId);
+            dto.setGalaxyName(galaxy.getName());
+        }
+
+        dto.setContent(comment.getContent());
+        dto.setLevel(comment.getLevel());
+        dto.setParentId(comment.getParentId());
+        dto.setReplyToUserId(comment.getReplyToUserId());
+        dto.setCreatorRole(comment.getCreatorRole());
+        dto.setLikeCount(likeCounter.getLikeCount(CommentLikeCounter.GALAXY, comment.getGalaxyCommentId(), comment.getLikeCount()));
+        dto.setReplyCount(comment.getReplyCount());
+        dto.setStatus(comment.getStatus());
+        dto.setCreateTime(comment.getCreateTime());
+        dto.setUpdateTime(comment.getUpdateTime());
+
+        if (comment.getReplyToUserId() != null) {
+            User replyToUser = users.get(comment.getReplyToUserId());
+            if (replyToUser != null) {
+                dto.setReplyToUsername(replyToUser.getNickname());
+            }
+        }
+        return dto;
+    }
+
+    private List<Integer> collectIds(List<GalaxyComment> comments) {
+        List<Integer> ids = new ArrayList<>(comments.size());
+        for (GalaxyComment comment : comments) {
+            ids.add(comment.getGalaxyCommentId());
+        }
+        return ids;
+    }
+}
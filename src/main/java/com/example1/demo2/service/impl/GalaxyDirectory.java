@@ -0,0 +1,320 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.GalaxyMapper;
+import com.example1.demo2.pojo.KnowledgeGalaxy;
+import com.example1.demo2.util.IntBitmap;
+import com.example1.demo2.util.NGramIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 星系目录
+ * 内存中按星系名建立N元组索引，按标签和创建者建立倒排表（IntBitmap，星系ID直接作为元素），
+ * "名称包含X 且 标签属于{a,b} 且 创建者不是我"这类查询通过求倒排表交集得到，不再对 name 做 LIKE 扫描。
+ * 星系创建、修改、删除在事务提交后同步；启动加载完成前回退到数据库查询
+ */
+@Service
+public class GalaxyDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(GalaxyDirectory.class);
+
+    // 标签字段中的分隔符
+    private static final String LABEL_SEPARATORS = "[,，;；、|/#\\s]+";
+
+    @Autowired
+    private GalaxyMapper galaxyMapper;
+
+    private final NGramIndex names = new NGramIndex();
+
+    // 标签 -> 星系ID
+    private final Map<String, IntBitmap> byLabel = new HashMap<>();
+
+    // 创建者ID -> 星系ID
+    private final Map<Integer, IntBitmap> byCreator = new HashMap<>();
+
+    // 星系ID -> 创建者和标签，用于更新和删除时清理倒排表
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    private ExecutorService loader;
+
+    private record Entry(Integer userId, Set<String> labels) {
+    }
+
+    @PostConstruct
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "galaxy-directory-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.submit(this::load);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 搜索星系
+     * @param name 名称关键词，为空时不按名称筛选
+     * @param labels 标签，命中其中任意一个即可，为空时不按标签筛选
+     * @param creatorId 只要该用户创建的星系，为空时不限
+     * @param excludeCreatorId 排除该用户创建的星系，为空时不限
+     * @return 星系列表，按星系ID升序
+     */
+    public List<KnowledgeGalaxy> search(String name, Collection<String> labels, Integer creatorId, Integer excludeCreatorId) {
+        Set<String> wanted = normalizeLabels(labels);
+        if (!loaded) {
+            return searchInDatabase(name, wanted, creatorId, excludeCreatorId);
+        }
+        List<Integer> galaxyIds = searchIds(name, wanted, creatorId, excludeCreatorId);
+        if (galaxyIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, KnowledgeGalaxy> rows = new HashMap<>();
+        for (KnowledgeGalaxy galaxy : galaxyMapper.getGalaxiesByIds(galaxyIds)) {
+            rows.put(galaxy.getGalaxyId(), galaxy);
+        }
+        List<KnowledgeGalaxy> galaxies = new ArrayList<>();
+        for (Integer galaxyId : galaxyIds) {
+            KnowledgeGalaxy galaxy = rows.get(galaxyId);
+            if (galaxy != null) {
+                galaxies.add(galaxy);
+            }
+        }
+        return galaxies;
+    }
+
+    /**
+     * 星系创建或修改后调用，有事务时挂到事务提交之后，按数据库最新状态更新
+     */
+    public void refresh(Integer galaxyId) {
+        afterCommit(() -> {
+            KnowledgeGalaxy galaxy = galaxyMapper.getKnowledgeGalaxyById(galaxyId);
+            lock.writeLock().lock();
+            try {
+                if (galaxy != null) {
+                    put(galaxy);
+                } else {
+                    removeEntry(galaxyId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 星系被删除，有事务时挂到事务提交之后
+     */
+    public void delete(Integer galaxyId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeEntry(galaxyId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 把标签字段拆成单个标签
+     */
+    public static Set<String> parseLabels(String label) {
+        Set<String> labels = new LinkedHashSet<>();
+        if (label == null) {
+            return labels;
+        }
+        for (String each : label.toLowerCase(Locale.ROOT).split(LABEL_SEPARATORS)) {
+            if (!each.isEmpty()) {
+                labels.add(each);
+            }
+        }
+        return labels;
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private List<Integer> searchIds(String name, Set<String> labels, Integer creatorId, Integer excludeCreatorId) {
+        List<Integer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // 标签之间是"或"：先合并各标签的倒排表
+            IntBitmap labelFilter = null;
+            if (!labels.isEmpty()) {
+                labelFilter = new IntBitmap();
+                for (String label : labels) {
+                    IntBitmap galaxies = byLabel.get(label);
+                    if (galaxies != null) {
+                        galaxies.forEach(labelFilter::add);
+                    }
+                }
+            }
+            IntBitmap creatorFilter = null;
+            if (creatorId != null) {
+                creatorFilter = byCreator.getOrDefault(creatorId, new IntBitmap());
+            }
+            IntBitmap excluded = excludeCreatorId != null ? byCreator.get(excludeCreatorId) : null;
+
+            // 从最小的集合出发，逐个检查是否在其他集合中
+            List<IntBitmap> filters = new ArrayList<>();
+            if (labelFilter != null) {
+                filters.add(labelFilter);
+            }
+            if (creatorFilter != null) {
+                filters.add(creatorFilter);
+            }
+            filters.sort(Comparator.comparingInt(IntBitmap::getCardinality));
+            String keyword = NGramIndex.normalize(name);
+            if (keyword.isEmpty() && !filters.isEmpty()) {
+                IntBitmap driver = filters.remove(0);
+                driver.forEach(galaxyId -> accept(galaxyId, filters, excluded, result));
+            } else {
+                names.search(keyword, galaxyId -> accept(galaxyId, filters, excluded, result));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static void accept(int galaxyId, List<IntBitmap> filters, IntBitmap excluded, List<Integer> result) {
+        for (IntBitmap filter : filters) {
+            if (!filter.contains(galaxyId)) {
+                return;
+            }
+        }
+        if (excluded == null || !excluded.contains(galaxyId)) {
+            result.add(galaxyId);
+        }
+    }
+
+    /**
+     * 启动加载完成前：名称用原来的 LIKE 查询，标签在结果中筛选
+     */
+    private List<KnowledgeGalaxy> searchInDatabase(String name, Set<String> labels, Integer creatorId, Integer excludeCreatorId) {
+        String keyword = name != null ? name.trim() : "";
+        List<KnowledgeGalaxy> galaxies;
+        if (creatorId != null) {
+            galaxies = galaxyMapper.searchByNameAndCreatorId(keyword, creatorId);
+        } else if (excludeCreatorId != null) {
+            galaxies = galaxyMapper.searchByNameExcludeUser(keyword, excludeCreatorId);
+        } else {
+            galaxies = galaxyMapper.searchByName(keyword);
+        }
+        if (labels.isEmpty()) {
+            return galaxies;
+        }
+        List<KnowledgeGalaxy> result = new ArrayList<>();
+        for (KnowledgeGalaxy galaxy : galaxies) {
+            if (!Collections.disjoint(parseLabels(galaxy.getLabel()), labels)) {
+                result.add(galaxy);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> normalizeLabels(Collection<String> labels) {
+        Set<String> normalized = new HashSet<>();
+        if (labels != null) {
+            for (String label : labels) {
+                normalized.addAll(parseLabels(label));
+            }
+        }
+        return normalized;
+    }
+
+    private void put(KnowledgeGalaxy galaxy) {
+        int galaxyId = galaxy.getGalaxyId();
+        removeEntry(galaxyId);
+        Entry entry = new Entry(galaxy.getUserId(), parseLabels(galaxy.getLabel()));
+        entries.put(galaxyId, entry);
+        names.put(galaxyId, galaxy.getName());
+        for (String label : entry.labels()) {
+            byLabel.computeIfAbsent(label, k -> new IntBitmap()).add(galaxyId);
+        }
+        if (entry.userId() != null) {
+            byCreator.computeIfAbsent(entry.userId(), k -> new IntBitmap()).add(galaxyId);
+        }
+    }
+
+    private void removeEntry(int galaxyId) {
+        Entry entry = entries.remove(galaxyId);
+        if (entry == null) {
+            return;
+        }
+        names.remove(galaxyId);
+        for (String label : entry.labels()) {
+            removeFrom(byLabel, label, galaxyId);
+        }
+        if (entry.userId() != null) {
+            removeFrom(byCreator, entry.userId(), galaxyId);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, IntBitmap> map, K key, int galaxyId) {
+        IntBitmap galaxies = map.get(key);
+        if (galaxies != null) {
+            galaxies.remove(galaxyId);
+            if (galaxies.getCardinality() == 0) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 启动时加载所有星系的名称、标签和创建者
+     */
+    private void load() {
+        try {
+            List<KnowledgeGalaxy> galaxies = galaxyMapper.getDirectoryRows();
+            lock.writeLock().lock();
+            try {
+                for (KnowledgeGalaxy galaxy : galaxies) {
+                    // 加载期间已被增量更新的星系以增量结果为准
+                    if (!entries.containsKey(galaxy.getGalaxyId())) {
+                        put(galaxy);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            logger.info("星系目录已加载，共{}个星系", galaxies.size());
+        } catch (Exception e) {
+            logger.error("加载星系目录失败，搜索回退到数据库查询", e);
+        }
+    }
+}
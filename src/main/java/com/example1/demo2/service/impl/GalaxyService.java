@@ -27,6 +27,12 @@ public class GalaxyService implements IGalaxyService {
     @Autowired
     private PlanetMapper planetMapper;
 
+    @Autowired
+    private PlanetSampler planetSampler;
+
+    @Autowired
+    private GalaxyDirectory galaxyDirectory;
+
     @Autowired
     private GalaxyCommentMapper galaxyCommentMapper;
 
@@ -68,6 +74,7 @@ public class GalaxyService implements IGalaxyService {
             // 将生成的galaxyId回写到DTO中（数据库自增ID）
             galaxyDto.setGalaxyId(Integer.valueOf(galaxy.getGalaxyId()));
         }
+        galaxyDirectory.refresh(galaxyDto.getGalaxyId());
     }
     @Override
     @Transactional
@@ -89,6 +96,7 @@ public class GalaxyService implements IGalaxyService {
 
         // 调用mapper更新数据
         galaxyMapper.update(galaxy);
+        galaxyDirectory.refresh(galaxy.getGalaxyId());
     }
 
     /**
@@ -137,6 +145,7 @@ public class GalaxyService implements IGalaxyService {
 
         // 6. 最后删除星系本身
         galaxyMapper.delete(galaxyId);
+        galaxyDirectory.delete(galaxyId);
     }
 
     /**
@@ -168,6 +177,7 @@ public class GalaxyService implements IGalaxyService {
 
         // 6. 最后删除星系本身
         galaxyMapper.delete(galaxyId);
+        galaxyDirectory.delete(galaxyId);
     }
 
     @Override
@@ -192,6 +202,7 @@ public class GalaxyService implements IGalaxyService {
 
         // 重新查询更新后的星球信息
         KnowledgePlanet updatedPlanet = planetMapper.findByPlanetId(planetId);
+        planetSampler.evictRow(planetId);
 
         // 转换为DTO并返回
         return ConvertUtil.convertKnowledgePlanetToDto(updatedPlanet);
@@ -217,6 +228,7 @@ public class GalaxyService implements IGalaxyService {
         if (galaxy != null) {
             galaxy.setName(newName);
             galaxyMapper.update(galaxy);
+            galaxyDirectory.refresh(galaxyId);
         } else {
             throw new IllegalArgumentException("Galaxy with ID " + galaxyId + " does not exist.");
         }
@@ -229,6 +241,7 @@ public class GalaxyService implements IGalaxyService {
         if (galaxy != null) {
             galaxy.setLabel(newLabel);
             galaxyMapper.update(galaxy);
+            galaxyDirectory.refresh(galaxyId);
         } else {
             throw new IllegalArgumentException("Galaxy with ID " + galaxyId + " does not exist.");
         }
@@ -0,0 +1,401 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.PlanetAccessMapper;
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 热门星球排行榜
+ * 访问和评论点赞事件增量更新星球热度，热度按指数衰减（半衰期24小时），“热门”反映的是近期热度。
+ * 衰减不逐个重算：事件权重按 e^(λ·(t-基准时间)) 放大后累加，所有星球共用同一基准，
+ * 比较大小与衰减后的值一致；每天把基准时间前移并整体缩放一次，防止数值溢出。
+ * 维护全站、按星系、按主题三类榜单，每个榜单保留前 MAX_SIZE 名。
+ * 榜单只保存星球ID和热度，读取时按ID一次批量查询星球，返回的标题、访问量等总是最新的
+ */
+@Service
+public class HotPlanetLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotPlanetLeaderboard.class);
+
+    // 每个榜单保留的名次
+    public static final int MAX_SIZE = 50;
+
+    // 热度半衰期
+    private static final long HALF_LIFE_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final double LAMBDA = Math.log(2) / HALF_LIFE_MILLIS;
+
+    // 事件权重
+    private static final double VISIT_WEIGHT = 1.0;
+    private static final double LIKE_WEIGHT = 3.0;
+
+    // 启动时按历史访问量预热的星球数，历史访问量按一周前的热度折算
+    private static final int SEED_SIZE = 1000;
+    private static final double SEED_WEIGHT = Math.exp(-LAMBDA * 7 * HALF_LIFE_MILLIS);
+
+    // 缩放后热度低于该值的星球不再跟踪
+    private static final double MIN_SCORE = 0.01;
+
+    @Autowired
+    private PlanetAccessMapper planetAccessMapper;
+
+    @Autowired
+    private PlanetMapper planetMapper;
+
+    // 星球ID -> 热度
+    private final Map<String, Heat> heats = new ConcurrentHashMap<>();
+
+    private final Board global = new Board();
+    private final Map<String, Board> galaxyBoards = new ConcurrentHashMap<>();
+    private final Map<Integer, Board> themeBoards = new ConcurrentHashMap<>();
+
+    // 事件持读锁并发更新，整体缩放时持写锁
+    private final ReadWriteLock scaleLock = new ReentrantReadWriteLock();
+
+    // 热度基准时间
+    private volatile long baseTime = System.currentTimeMillis();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 单个星球的热度，连同它所在的星系和主题（决定它属于哪些榜单）
+     */
+    private static final class Heat {
+        private final String planetId;
+        private String galaxyId;
+        private Integer themeId;
+        private double score;
+
+        private Heat(String planetId) {
+            this.planetId = planetId;
+        }
+    }
+
+    /**
+     * 一个榜单：按热度降序排列的前 MAX_SIZE 名
+     * 热度只增不减（缩放对所有星球同比例），被挤出的星球只有在热度增长时才可能重新进入，
+     * 而增长一定伴随事件，所以增量维护的结果就是准确的前 MAX_SIZE 名
+     */
+    private static final class Board {
+        private final TreeSet<Ranked> ranked = new TreeSet<>();
+        private final Map<String, Ranked> members = new HashMap<>();
+
+        synchronized void offer(Heat heat, double score) {
+            Ranked current = members.get(heat.planetId);
+            if (current != null) {
+                if (current.score >= score) {
+                    return;
+                }
+                ranked.remove(current);
+            } else if (ranked.size() >= MAX_SIZE && ranked.last().score >= score) {
+                return;
+            }
+            Ranked entry = new Ranked(heat, score);
+            ranked.add(entry);
+            members.put(heat.planetId, entry);
+            if (ranked.size() > MAX_SIZE) {
+                members.remove(ranked.pollLast().heat.planetId);
+            }
+        }
+
+        synchronized boolean remove(String planetId) {
+            Ranked current = members.remove(planetId);
+            return current != null && ranked.remove(current);
+        }
+
+        synchronized List<String> top(int limit) {
+            List<String> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Ranked entry : ranked) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(entry.heat.planetId);
+            }
+            return result;
+        }
+
+        synchronized void scale(double factor, double minScore) {
+            List<Ranked> scaled = new ArrayList<>(ranked.size());
+            for (Ranked entry : ranked) {
+                if (entry.score * factor >= minScore) {
+                    scaled.add(new Ranked(entry.heat, entry.score * factor));
+                }
+            }
+            ranked.clear();
+            members.clear();
+            for (Ranked entry : scaled) {
+                ranked.add(entry);
+                members.put(entry.heat.planetId, entry);
+            }
+        }
+    }
+
+    private static final class Ranked implements Comparable<Ranked> {
+        private final Heat heat;
+        private final double score;
+
+        private Ranked(Heat heat, double score) {
+            this.heat = heat;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : heat.planetId.compareTo(other.heat.planetId);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hot-planet-board");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.submit(this::seed);
+        scheduler.scheduleWithFixedDelay(this::rescale, HALF_LIFE_MILLIS, HALF_LIFE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 星球被访问
+     */
+    public void onVisit(KnowledgePlanet planet) {
+        record(planet, VISIT_WEIGHT);
+    }
+
+    /**
+     * 星球下的评论被点赞
+     */
+    public void onCommentLiked(KnowledgePlanet planet) {
+        record(planet, LIKE_WEIGHT);
+    }
+
+    /**
+     * 星球被删除或设为私有，从所有榜单中移除；有事务时挂到事务提交之后，回滚时保留榜单位置
+     */
+    public void remove(String planetId) {
+        afterCommit(() -> drop(planetId));
+    }
+
+    /**
+     * 获取热门星球，按热度从高到低
+     * @param galaxyId 星系ID，为空时不按星系筛选
+     * @param themeId 主题ID，为空时不按主题筛选；同时指定时优先按星系
+     * @param limit 最多返回的数量，不超过 MAX_SIZE
+     */
+    public List<KnowledgePlanet> getTop(String galaxyId, Integer themeId, int limit) {
+        Board board;
+        if (galaxyId != null) {
+            board = galaxyBoards.get(galaxyId);
+        } else if (themeId != null) {
+            board = themeBoards.get(themeId);
+        } else {
+            board = global;
+        }
+        List<String> planetIds = board != null ? board.top(Math.min(limit, MAX_SIZE)) : List.of();
+        if (planetIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, KnowledgePlanet> rows = new HashMap<>();
+        for (KnowledgePlanet planet : planetMapper.getPlanetsByIds(planetIds)) {
+            rows.put(planet.getPlanetId(), planet);
+        }
+        List<KnowledgePlanet> planets = new ArrayList<>(planetIds.size());
+        for (String planetId : planetIds) {
+            KnowledgePlanet planet = rows.get(planetId);
+            if (planet != null && planet.getVisibility() != null && planet.getVisibility() == 1) {
+                planets.add(planet);
+            } else {
+                // 没有经过删除或设为私有的事件就已失效的星球，顺便移出榜单
+                drop(planetId);
+            }
+        }
+        return planets;
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void drop(String planetId) {
+        Heat heat = heats.remove(planetId);
+        if (heat == null) {
+            return;
+        }
+        String galaxyId;
+        Integer themeId;
+        synchronized (heat) {
+            galaxyId = heat.galaxyId;
+            themeId = heat.themeId;
+        }
+        removeFromBoards(planetId, galaxyId, themeId);
+    }
+
+    private void record(KnowledgePlanet planet, double weight) {
+        if (planet == null || planet.getPlanetId() == null) {
+            return;
+        }
+        if (planet.getVisibility() == null || planet.getVisibility() != 1) {
+            // 只有公开星球上榜
+            drop(planet.getPlanetId());
+            return;
+        }
+
+        scaleLock.readLock().lock();
+        try {
+            double increment = weight * Math.exp(LAMBDA * (System.currentTimeMillis() - baseTime));
+            String galaxyId = galaxyKey(planet);
+            Integer themeId = themeKey(planet);
+            Heat heat = heats.computeIfAbsent(planet.getPlanetId(), Heat::new);
+            String oldGalaxy;
+            Integer oldTheme;
+            double score;
+            synchronized (heat) {
+                oldGalaxy = heat.galaxyId;
+                oldTheme = heat.themeId;
+                heat.galaxyId = galaxyId;
+                heat.themeId = themeId;
+                heat.score += increment;
+                score = heat.score;
+            }
+
+            // 星球换了星系或主题时，先从原榜单移除
+            if (oldGalaxy != null && !oldGalaxy.equals(galaxyId)) {
+                removeFromBoard(galaxyBoards.get(oldGalaxy), planet.getPlanetId(), h -> oldGalaxy.equals(h.galaxyId));
+            }
+            if (oldTheme != null && !oldTheme.equals(themeId)) {
+                removeFromBoard(themeBoards.get(oldTheme), planet.getPlanetId(), h -> oldTheme.equals(h.themeId));
+            }
+
+            global.offer(heat, score);
+            if (galaxyId != null) {
+                galaxyBoards.computeIfAbsent(galaxyId, k -> new Board()).offer(heat, score);
+            }
+            if (themeId != null) {
+                themeBoards.computeIfAbsent(themeId, k -> new Board()).offer(heat, score);
+            }
+        } finally {
+            scaleLock.readLock().unlock();
+        }
+    }
+
+    private void removeFromBoards(String planetId, String galaxyId, Integer themeId) {
+        removeFromBoard(global, planetId, h -> true);
+        if (galaxyId != null) {
+            removeFromBoard(galaxyBoards.get(galaxyId), planetId, h -> galaxyId.equals(h.galaxyId));
+        }
+        if (themeId != null) {
+            removeFromBoard(themeBoards.get(themeId), planetId, h -> themeId.equals(h.themeId));
+        }
+    }
+
+    /**
+     * 从榜单中移除星球，并从跟踪的星球中补上空出的名次
+     */
+    private void removeFromBoard(Board board, String planetId, Predicate<Heat> belongs) {
+        if (board == null || !board.remove(planetId)) {
+            return;
+        }
+        for (Heat heat : heats.values()) {
+            double score;
+            synchronized (heat) {
+                // 热度为0的是刚创建、还未记录事件的星球
+                if (heat.planetId.equals(planetId) || heat.score <= 0 || !belongs.test(heat)) {
+                    continue;
+                }
+                score = heat.score;
+            }
+            board.offer(heat, score);
+        }
+    }
+
+    /**
+     * 启动时按历史访问量预热榜单
+     */
+    private void seed() {
+        try {
+            List<KnowledgePlanet> planets = planetAccessMapper.getTopPlanetsByVisitCount(SEED_SIZE);
+            for (KnowledgePlanet planet : planets) {
+                int visits = planet.getVisitCount() != null ? planet.getVisitCount() : 0;
+                if (visits > 0) {
+                    record(planet, visits * SEED_WEIGHT);
+                }
+            }
+            logger.info("热门星球榜单已预热，共{}个星球", heats.size());
+        } catch (Exception e) {
+            logger.error("预热热门星球榜单失败", e);
+        }
+    }
+
+    /**
+     * 基准时间前移到当前时间，所有热度同比例缩小，热度过低的星球不再跟踪
+     */
+    private void rescale() {
+        scaleLock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            double factor = Math.exp(-LAMBDA * (now - baseTime));
+            baseTime = now;
+            heats.values().removeIf(heat -> {
+                synchronized (heat) {
+                    heat.score *= factor;
+                    return heat.score < MIN_SCORE;
+                }
+            });
+            global.scale(factor, MIN_SCORE);
+            galaxyBoards.values().forEach(board -> board.scale(factor, MIN_SCORE));
+            themeBoards.values().forEach(board -> board.scale(factor, MIN_SCORE));
+            galaxyBoards.values().removeIf(board -> board.top(1).isEmpty());
+            themeBoards.values().removeIf(board -> board.top(1).isEmpty());
+        } catch (Exception e) {
+            logger.error("缩放热门星球热度失败", e);
+        } finally {
+            scaleLock.writeLock().unlock();
+        }
+    }
+
+    private static String galaxyKey(KnowledgePlanet planet) {
+        if (planet == null || planet.getGalaxyId() == null || planet.getGalaxyId().isEmpty()) {
+            return null;
+        }
+        return planet.getGalaxyId();
+    }
+
+    private static Integer themeKey(KnowledgePlanet planet) {
+        return planet != null ? planet.getThemeId() : null;
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
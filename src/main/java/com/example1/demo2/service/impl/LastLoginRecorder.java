@@ -0,0 +1,135 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最后登录时间写后合并
+ * 登录成功时只在内存中记下时间，同一用户多次登录只保留最新的一次，
+ * 后台线程定期批量写回 tab_user.last_login_time，登录请求不再写数据库。
+ * 写回时按数据库的 now() 减去登录距今的时长，与原先 now() 的时钟一致。
+ * 读取最后登录时间时以尚未写回的时间为准
+ */
+@Service
+public class LastLoginRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    // 写回间隔（毫秒）
+    private static final long FLUSH_MILLIS = 10000;
+
+    // 单条UPDATE最多更新的用户数
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    // 用户ID -> 尚未写回的最后登录时间（毫秒时间戳）
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+
+    // 正在写回的时间，写回完成前读取时仍需叠加
+    private volatile Map<Integer, Long> flushing = Collections.emptyMap();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "last-login-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 记录一次登录
+     */
+    public void record(Integer userId) {
+        pending.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * 获取最后登录时间：尚未写回的时间比数据库中的新
+     */
+    public Date getLastLoginTime(Integer userId, Date storedTime) {
+        long time = storedTime != null ? storedTime.getTime() : 0;
+        time = Math.max(time, flushing.getOrDefault(userId, 0L));
+        time = Math.max(time, pending.getOrDefault(userId, 0L));
+        return time != 0 ? new Date(time) : null;
+    }
+
+    /**
+     * 把累积的登录时间批量写回数据库
+     */
+    public synchronized void flush() {
+        Map<Integer, Long> times = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : pending.entrySet()) {
+            // 取走期间该用户又登录了则留到下一轮
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                times.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (times.isEmpty()) {
+            return;
+        }
+
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> batch = new ArrayList<>();
+        for (Integer userId : times.keySet()) {
+            if (batch.size() >= BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+            batch.add(userId);
+        }
+        batches.add(batch);
+
+        flushing = times;
+        int done = 0;
+        try {
+            for (List<Integer> each : batches) {
+                // 只传登录距今多久，由数据库按自己的 now() 换算成时间，不受应用服务器时钟和时区影响
+                long now = System.currentTimeMillis();
+                Map<Integer, Long> ages = new HashMap<>();
+                for (Integer userId : each) {
+                    ages.put(userId, Math.max(now - times.get(userId), 0) * 1000);
+                }
+                userMapper.updateLastLoginTimes(ages);
+                done++;
+            }
+        } catch (Exception e) {
+            // 未写回的批次放回，下次重试；期间又登录的保留较新的时间
+            logger.error("写回最后登录时间失败，剩余{}批", batches.size() - done, e);
+            for (List<Integer> each : batches.subList(done, batches.size())) {
+                for (Integer userId : each) {
+                    pending.merge(userId, times.get(userId), Math::max);
+                }
+            }
+        } finally {
+            flushing = Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 通知聚合器
+ * 点赞通知（类型2、5）按 (接收者, 类型, 目标) 聚合：窗口内仍未读的同目标通知只保留一行，
+ * 原地更新点赞人数和最近的点赞者，显示为"张三 等13人赞了你的评论"。
+ * 点赞人数按去重后的点赞者ID计算，同一个人取消后再点赞不会重复计数
+ */
+@Service
+public class NotificationAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationAggregator.class);
+
+    // 聚合窗口（分钟），超过窗口的点赞另起一行
+    public static final int WINDOW_MINUTES = 60;
+
+    // 额外数据中保留的最近点赞者人数
+    private static final int MAX_RECENT_ACTORS = 3;
+
+    // 额外数据中最多记录的点赞者ID数，超过后新增的点赞者直接累加人数
+    private static final int MAX_TRACKED_ACTORS = 1000;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 是否参与聚合：星系评论点赞、星球评论点赞
+     */
+    public boolean isAggregatable(Notification notification) {
+        Integer type = notification.getType();
+        return (type == 2 || type == 5) && notification.getSender() != null && notification.getTargetId() != null;
+    }
+
+    /**
+     * 聚合一批点赞通知
+     * 批次内同一目标的通知先合并为一条；数据库中已有可聚合的行时原地更新，返回的通知带有该行ID，
+     * 否则返回的通知没有ID，由调用方插入
+     *
+     * @param notifications 按发生顺序排列的点赞通知
+     * @return 合并后的通知，每个 (接收者, 类型, 目标) 一条
+     */
+    public List<Notification> aggregate(List<Notification> notifications) {
+        Map<String, List<Notification>> groups = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String key = notification.getReceiver().getUserId() + ":" + notification.getType() + ":" + notification.getTargetId();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(notification);
+        }
+
+        List<Notification> result = new ArrayList<>(groups.size());
+        for (List<Notification> group : groups.values()) {
+            Notification latest = group.get(group.size() - 1);
+            Notification existing = notificationMapper.getAggregationTarget(
+                    latest.getReceiver().getUserId(), latest.getType(), latest.getTargetId(), WINDOW_MINUTES);
+
+            Map<String, Object> extraData = parseExtraData(latest.getExtraData());
+            List<Map<String, Object>> recentActors = new ArrayList<>();
+            for (int i = group.size() - 1; i >= 0; i--) {
+                addActor(recentActors, group.get(i).getSender());
+            }
+            Set<Integer> actorIds = new LinkedHashSet<>();
+            int actorCount;
+            if (existing != null) {
+                Map<String, Object> existingData = parseExtraData(existing.getExtraData());
+                int existingCount = ((Number) existingData.getOrDefault("actorCount", 1)).intValue();
+                Object existingActors = existingData.get("recentActors");
+                if (existingActors instanceof List) {
+                    for (Object actor : (List<?>) existingActors) {
+                        addActor(recentActors, (Map<?, ?>) actor);
+                    }
+                } else {
+                    addActor(recentActors, existing.getSender());
+                }
+                Object existingIds = existingData.get("actorIds");
+                if (existingIds instanceof List) {
+                    for (Object id : (List<?>) existingIds) {
+                        actorIds.add(((Number) id).intValue());
+                    }
+                } else if (existingActors instanceof List) {
+                    // 旧数据没有记录点赞者ID，只知道最近的几位
+                    for (Object actor : (List<?>) existingActors) {
+                        if (((Map<?, ?>) actor).get("userId") instanceof Number id) {
+                            actorIds.add(id.intValue());
+                        }
+                    }
+                } else if (existing.getSender() != null) {
+                    actorIds.add(existing.getSender().getUserId());
+                }
+                actorCount = existingCount;
+                for (Notification notification : group) {
+                    Integer senderId = notification.getSender().getUserId();
+                    // 已记录的点赞者不重复计数；记录满了之后无法判断，按新点赞者计
+                    if (!actorIds.contains(senderId)) {
+                        actorCount++;
+                        if (actorIds.size() < MAX_TRACKED_ACTORS) {
+                            actorIds.add(senderId);
+                        }
+                    }
+                }
+            } else {
+                for (Notification notification : group) {
+                    actorIds.add(notification.getSender().getUserId());
+                }
+                actorCount = actorIds.size();
+                if (actorIds.size() > MAX_TRACKED_ACTORS) {
+                    actorIds = new LinkedHashSet<>(new ArrayList<>(actorIds).subList(0, MAX_TRACKED_ACTORS));
+                }
+            }
+            extraData.put("actorCount", actorCount);
+            extraData.put("actorIds", new ArrayList<>(actorIds));
+            extraData.put("recentActors", recentActors.subList(0, Math.min(MAX_RECENT_ACTORS, recentActors.size())));
+
+            Notification merged = latest;
+            if (actorCount > 1) {
+                merged.setTitle(latest.getSender().getNickname() + " 等" + actorCount + "人赞了你的评论");
+                Object targetText = extraData.get("targetText");
+                if (targetText != null) {
+                    merged.setContent("你的评论\"" + targetText + "\"获得了" + actorCount + "个赞");
+                } else if (existing != null) {
+                    merged.setContent(existing.getContent());
+                }
+            }
+            merged.setExtraData(writeExtraData(extraData));
+
+            if (existing != null) {
+                merged.setNotificationId(existing.getNotificationId());
+                notificationMapper.updateAggregatedNotification(merged);
+                logger.debug("聚合点赞通知{}，当前{}人", existing.getNotificationId(), actorCount);
+            }
+            result.add(merged);
+        }
+        return result;
+    }
+
+    private void addActor(List<Map<String, Object>> actors, User user) {
+        if (user == null) {
+            return;
+        }
+        Map<String, Object> actor = new HashMap<>();
+        actor.put("userId", user.getUserId());
+        actor.put("nickname", user.getNickname());
+        actor.put("avatarUrl", user.getAvatarUrl());
+        addActor(actors, actor);
+    }
+
+    // 按用户ID去重，先加入的排在前面
+    private void addActor(List<Map<String, Object>> actors, Map<?, ?> actor) {
+        Object userId = actor.get("userId");
+        for (Map<String, Object> existing : actors) {
+            if (Objects.equals(existing.get("userId"), userId)) {
+                return;
+            }
+        }
+        Map<String, Object> copy = new HashMap<>();
+        actor.forEach((key, value) -> copy.put(String.valueOf(key), value));
+        actors.add(copy);
+    }
+
+    private Map<String, Object> parseExtraData(String json) {
+        if (json == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            logger.error("解析额外数据失败", e);
+            return new HashMap<>();
+        }
+    }
+
+    private String writeExtraData(Map<String, Object> extraData) {
+        try {
+            return objectMapper.writeValueAsString(extraData);
+        } catch (Exception e) {
+            logger.error("序列化额外数据失败", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.dto.NotificationEvent;
+import com.example1.demo2.util.SlidingWindowDedup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 通知去重器
+ * 以 (接收者, 发送者, 类型, 目标) 为键，在内存滑动窗口中判断短时间内是否发送过相同通知，
+ * 只有刚启动窗口未填满或窗口溢出时才回查数据库。
+ * 通过检查的通知先占用键，入库成功后才记入窗口；入库失败时释放，重试不会被误判为重复
+ */
+@Service
+public class NotificationDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDeduplicator.class);
+
+    // 防重复通知的时间间隔（分钟）
+    public static final int DUPLICATE_CHECK_MINUTES = 5;
+
+    private static final long WINDOW_MILLIS = DUPLICATE_CHECK_MINUTES * 60 * 1000L;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private SharedDedupStore sharedDedupStore;
+
+    // 是否通过共享存储与其他节点共享去重记录
+    @Value("${notification.dedup.shared-store:false}")
+    private boolean sharedStoreEnabled;
+
+    // 每分钟最多记录的去重键数，超出后回退到数据库检查
+    private final SlidingWindowDedup window;
+
+    // 已通过检查、尚未入库的键，拦下同一批次或并发派发中的相同通知
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public NotificationDeduplicator(@Value("${notification.dedup.max-keys-per-minute:50000}") int maxKeysPerMinute) {
+        this.window = new SlidingWindowDedup(WINDOW_MILLIS, DUPLICATE_CHECK_MINUTES, maxKeysPerMinute);
+    }
+
+    /**
+     * 判断事件是否允许发送，允许时占用去重键，入库后必须调用 confirm 或 release
+     * 系统通知（无发送者）不去重
+     */
+    public boolean tryAcquire(NotificationEvent event) {
+        if (event.getSenderId() == null) {
+            return true;
+        }
+
+        String key = dedupKey(event);
+        long now = System.currentTimeMillis();
+        SlidingWindowDedup.Result result = window.check(key, now);
+        if (result == SlidingWindowDedup.Result.DUPLICATE) {
+            return false;
+        }
+
+        // 相同通知正在入库
+        if (!inFlight.add(key)) {
+            return false;
+        }
+
+        // 其他节点发送过或正在发送
+        if (sharedStoreEnabled && !sharedDedupStore.putIfAbsent(key, WINDOW_MILLIS)) {
+            inFlight.remove(key);
+            return false;
+        }
+
+        // 冷启动或窗口溢出：回查数据库，已入库的通知直接记入窗口，并释放刚占用的共享键
+        if (result == SlidingWindowDedup.Result.UNKNOWN && existsInDatabase(event)) {
+            window.record(key, now);
+            if (sharedStoreEnabled) {
+                sharedDedupStore.remove(key);
+            }
+            inFlight.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 通知已入库，占用的键记入去重窗口
+     */
+    public void confirm(List<NotificationEvent> events) {
+        long now = System.currentTimeMillis();
+        for (NotificationEvent event : events) {
+            if (event.getSenderId() == null) {
+                continue;
+            }
+            String key = dedupKey(event);
+            window.record(key, now);
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * 入库失败，释放占用的键，之后的重试按未发送处理
+     */
+    public void release(List<NotificationEvent> events) {
+        for (NotificationEvent event : events) {
+            if (event.getSenderId() == null) {
+                continue;
+            }
+            String key = dedupKey(event);
+            if (sharedStoreEnabled) {
+                sharedDedupStore.remove(key);
+            }
+            inFlight.remove(key);
+        }
+    }
+
+    private boolean existsInDatabase(NotificationEvent event) {
+        logger.debug("去重窗口未命中，回查数据库：{}", event);
+        return notificationMapper.checkDuplicateNotification(
+                event.getReceiverId(), event.getSenderId(), event.getType(),
+                dedupTarget(event), DUPLICATE_CHECK_MINUTES
+        ) > 0;
+    }
+
+    // 自定义通知没有目标ID，沿用原来的做法以内容作为去重目标
+    private String dedupTarget(NotificationEvent event) {
+        return event.getTargetId() != null ? event.getTargetId() : event.getText();
+    }
+
+    private String dedupKey(NotificationEvent event) {
+        return event.getReceiverId() + ":" + event.getSenderId() + ":" + event.getType() + ":" + dedupTarget(event);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.NotificationEvent;
+import com.example1.demo2.service.IBadgeCountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * 通知派发器
+ * 由通知发件箱在事务提交后调用：批量去重、批量查询用户、构建通知、一次批量插入，再统一推送
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private NotificationDeduplicator deduplicator;
+
+    @Autowired
+    private UserDataLoader userDataLoader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
+    @Autowired
+    private NotificationAggregator aggregator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private WebSocketNotificationService webSocketService;  // 实时推送服务（可选）
+
+    /**
+     * 派发一批通知事件
+     */
+    public void dispatch(List<NotificationEvent> events) {
+        // 1. 去重：时间窗口内已发送过的相同通知直接跳过（批次内重复由占用的键拦下）
+        List<NotificationEvent> accepted = new ArrayList<>();
+        for (NotificationEvent event : events) {
+            if (!deduplicator.tryAcquire(event)) {
+                logger.info("{}分钟内已发送过相同通知，跳过：{}",
+                        NotificationDeduplicator.DUPLICATE_CHECK_MINUTES, event);
+                continue;
+            }
+            accepted.add(event);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 2~5. 入库成功后才把去重键记入窗口，失败时释放，重试时不会被当成重复
+        List<Notification> pushed;
+        try {
+            pushed = persist(accepted);
+        } catch (RuntimeException e) {
+            deduplicator.release(accepted);
+            throw e;
+        }
+        deduplicator.confirm(accepted);
+        if (pushed.isEmpty()) {
+            return;
+        }
+
+        // 6. 统一推送，聚合的通知每批只推送一次
+        if (webSocketService != null) {
+            webSocketService.sendRealtimeNotifications(pushed);
+        } else {
+            logger.debug("WebSocket服务未配置，通知将在用户下次登录时显示");
+        }
+    }
+
+    /**
+     * 构建并写入通知
+     * @return 需要推送的通知（新增的和原地更新的聚合通知）
+     */
+    private List<Notification> persist(List<NotificationEvent> accepted) {
+        // 2. 一次查询取回所有发送者和接收者
+        Set<Integer> userIds = new HashSet<>();
+        for (NotificationEvent event : accepted) {
+            userIds.add(event.getReceiverId());
+            if (event.getSenderId() != null) {
+                userIds.add(event.getSenderId());
+            }
+        }
+        Map<Integer, User> users = userDataLoader.loadMany(userIds);
+
+        // 3. 构建通知，点赞通知单独拿出来聚合
+        List<Notification> notifications = new ArrayList<>(accepted.size());
+        List<Notification> likes = new ArrayList<>();
+        for (NotificationEvent event : accepted) {
+            Notification notification = buildNotification(event, users);
+            if (notification == null) {
+                continue;
+            }
+            if (!event.isCustom() && aggregator.isAggregatable(notification)) {
+                likes.add(notification);
+            } else {
+                notifications.add(notification);
+            }
+        }
+
+        // 4~5. 聚合更新和批量插入在同一个事务中，插入失败时聚合行的更新一并回滚，重试时不会重复累加
+        List<Notification> updated = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // 4. 聚合点赞：已有未读聚合行的原地更新，其余与普通通知一起插入
+            if (!likes.isEmpty()) {
+                for (Notification notification : aggregator.aggregate(likes)) {
+                    if (notification.getNotificationId() != null) {
+                        updated.add(notification);
+                    } else {
+                        notifications.add(notification);
+                    }
+                }
+            }
+
+            // 5. 一次批量插入
+            if (!notifications.isEmpty()) {
+                notificationMapper.insertNotificationBatch(notifications);
+            }
+        });
+
+        // 提交后再计入未读数；原地更新的行原本就是未读，不改变未读数
+        for (Notification notification : notifications) {
+            badgeCountService.onNotificationCreated(notification.getReceiver().getUserId(), notification.getType());
+        }
+        if (!notifications.isEmpty() || !updated.isEmpty()) {
+            logger.info("批量派发通知：新增{}条，聚合更新{}条，原始事件{}条", notifications.size(), updated.size(), accepted.size());
+        }
+
+        List<Notification> pushed = new ArrayList<>(notifications);
+        pushed.addAll(updated);
+        return pushed;
+    }
+
+    /**
+     * 根据事件构建通知实体
+     * 发送者或接收者不存在时返回null
+     */
+    private Notification buildNotification(NotificationEvent event, Map<Integer, User> users) {
+        User receiver = users.get(event.getReceiverId());
+        User sender = event.getSenderId() != null ? users.get(event.getSenderId()) : null;
+        boolean senderMissing = event.getSenderId() != null && sender == null && !event.isCustom();
+        if (receiver == null || senderMissing) {
+            logger.error("发送者或接收者不存在：{}", event);
+            return null;
+        }
+
+        Notification notification = new Notification();
+        notification.setSender(sender);
+        notification.setReceiver(receiver);
+        notification.setType(event.getType());
+        notification.setTargetType(event.getTargetType());
+        notification.setTargetId(event.getTargetId());
+
+        String text = event.getText() != null ? event.getText() : "";
+        Map<String, Object> extraData = new HashMap<>();
+        if (event.isCustom()) {
+            // 自定义通知
+            notification.setTitle(event.getTitle());
+            notification.setContent(text);
+            extraData.put("jumpUrl", "/notifications");
+            return withExtraData(notification, extraData);
+        }
+        switch (event.getType()) {
+            case 1:
+                notification.setTitle(sender.getNickname() + " 回复了你的评论");
+                notification.setContent(abbreviate(text, 100));
+                extraData.put("jumpUrl", "/galaxy/comment/detail/" + event.getTargetId());
+                break;
+            case 2:
+                notification.setTitle(sender.getNickname() + " 赞了你的评论");
+                notification.setContent("你的评论\"" + abbreviate(text, 50) + "\"获得了一个赞");
+                extraData.put("jumpUrl", "/galaxy/comment/detail/" + event.getTargetId());
+                extraData.put("targetText", abbreviate(text, 50));  // 聚合后重新生成内容时使用
+                break;
+            case 3:
+                notification.setTitle(sender.getNickname() + " 在你的星系中发表了评论");
+                notification.setContent("在星系\"" + text + "\"中有新的评论");
+                extraData.put("jumpUrl", "/galaxy/" + event.getTargetId());
+                break;
+            case 4:
+                notification.setTitle(sender.getNickname() + " 回复了你的评论");
+                notification.setContent(abbreviate(text, 100));
+                extraData.put("jumpUrl", "/planet/comment/detail/" + event.getTargetId());
+                break;
+            case 5:
+                notification.setTitle(sender.getNickname() + " 赞了你的评论");
+                notification.setContent("你的评论\"" + abbreviate(text, 50) + "\"获得了一个赞");
+                extraData.put("jumpUrl", "/planet/comment/detail/" + event.getTargetId());
+                extraData.put("targetText", abbreviate(text, 50));  // 聚合后重新生成内容时使用
+                break;
+            case 6:
+                notification.setTitle(sender.getNickname() + " 在你的星球中发表了评论");
+                notification.setContent("在星球\"" + text + "\"中有新的评论");
+                extraData.put("jumpUrl", "/planet/" + event.getTargetId());
+                break;
+            case 7:
+                notification.setTitle(event.getTitle());
+                notification.setContent(text);
+                extraData.put("systemNotice", true);
+                break;
+            case 8:
+                notification.setTitle(event.getTitle());
+                notification.setContent("你被任命为星系\"" + text + "\"的管理员");
+                extraData.put("jumpUrl", "/galaxy/" + event.getTargetId());
+                break;
+            default:
+                logger.error("未知的通知类型：{}", event);
+                return null;
+        }
+        if (sender != null) {
+            extraData.put("senderAvatar", sender.getAvatarUrl());
+        }
+        return withExtraData(notification, extraData);
+    }
+
+    private Notification withExtraData(Notification notification, Map<String, Object> extraData) {
+        try {
+            notification.setExtraData(objectMapper.writeValueAsString(extraData));
+        } catch (Exception e) {
+            logger.error("序列化额外数据失败", e);
+        }
+        return notification;
+    }
+
+    private String abbreviate(String text, int max) {
+        return text.length() > max ? text.substring(0, max) + "..." : text;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.pojo.dto.NotificationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 进程内通知发件箱
+ * 业务事务中只登记通知事件，事务提交后才交给后台线程，
+ * 后台线程按批次取出事件交给 NotificationDispatcher 批量入库和推送；事务回滚时事件直接丢弃
+ */
+@Service
+public class NotificationOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutbox.class);
+
+    // 队列容量，队列满时调用线程等待（背压）
+    private static final int QUEUE_CAPACITY = 10000;
+
+    // 队列满时调用线程最多等待的时间（毫秒），超时仍无空位时丢弃并记录
+    private static final long OFFER_TIMEOUT_MILLIS = 3000;
+
+    // 单批最多派发的事件数
+    private static final int MAX_BATCH_SIZE = 200;
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    private final BlockingQueue<NotificationEvent> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    private ExecutorService worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "notification-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.submit(this::runLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.shutdownNow();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 把剩余事件同步派发完，尽量不丢通知
+        List<NotificationEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            dispatchQuietly(rest);
+        }
+    }
+
+    /**
+     * 投递通知事件
+     * 有事务时挂到事务提交之后，没有事务时立即入队
+     */
+    public void enqueue(NotificationEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(event);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<NotificationEvent> pending = (List<NotificationEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<NotificationEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NotificationOutbox.this);
+                    if (status == STATUS_COMMITTED) {
+                        events.forEach(NotificationOutbox.this::submit);
+                    } else {
+                        logger.debug("事务未提交，丢弃{}条通知事件", events.size());
+                    }
+                }
+            });
+            pending = events;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * 当前待派发的事件数
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 事件只由后台线程派发，聚合通知的读改写依赖单一写入者；
+     * 队列已满时调用线程限时等待空位，不在调用线程上派发
+     */
+    private void submit(NotificationEvent event) {
+        if (!running) {
+            // 已停止：后台线程已退出，同步派发
+            dispatchQuietly(List.of(event));
+            return;
+        }
+        try {
+            if (queue.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            logger.error("通知发件箱队列已满，等待{}ms后仍无空位，丢弃通知：{}", OFFER_TIMEOUT_MILLIS, event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("等待通知发件箱队列时被中断，丢弃通知：{}", event);
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                NotificationEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<NotificationEvent> batch = new ArrayList<>();
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                dispatchQuietly(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 派发互斥进行，停止后的同步派发也不会与后台线程或彼此并发
+     */
+    private synchronized void dispatchQuietly(List<NotificationEvent> batch) {
+        try {
+            dispatcher.dispatch(batch);
+        } catch (Exception e) {
+            logger.error("批量派发通知失败，共{}条", batch.size(), e);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.example1.demo2.service.impl;
 
 import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.mapper.NotificationReadMarkMapper;
 import com.example1.demo2.mapper.UserMapper;
 import com.example1.demo2.mapper.GalaxyCommentMapper;
 import com.example1.demo2.mapper.PlanetCommentMapper;
+import com.example1.demo2.pojo.Announcement;
 import com.example1.demo2.pojo.Notification;
-import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.NotificationReadMark;
 import com.example1.demo2.pojo.dto.NotificationDto;
+import com.example1.demo2.pojo.dto.NotificationEvent;
+import com.example1.demo2.service.IBadgeCountService;
+import com.example1.demo2.service.IAnnouncementService;
 import com.example1.demo2.service.INotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +36,9 @@ public class NotificationService implements INotificationService {
     @Autowired
     private NotificationMapper notificationMapper;
 
+    @Autowired
+    private NotificationReadMarkMapper readMarkMapper;
+
     @Autowired
     private UserMapper userMapper;
 
@@ -43,76 +51,31 @@ public class NotificationService implements INotificationService {
     @Autowired
     private ObjectMapper objectMapper;  // 用于处理JSON数据
 
-    @Autowired(required = false)
-    private WebSocketNotificationService webSocketService;  // 实时推送服务（可选）
+    @Autowired
+    private NotificationOutbox notificationOutbox;  // 通知发件箱，事务提交后批量派发
+
+    @Autowired
+    private IBadgeCountService badgeCountService;  // 角标计数，未读数从内存计数器读取
 
-    // 防重复通知的时间间隔（分钟）
-    private static final int DUPLICATE_CHECK_MINUTES = 5;
+    @Autowired
+    private IAnnouncementService announcementService;  // 全站公告，只存一份，读取时合并
 
     // ==================== 星系相关通知实现 ====================
+    // 发送方法只做必要的校验并投递事件，去重、用户查询、入库和推送都在事务提交后由发件箱批量完成
 
     /**
      * 发送星系评论回复通知
      * 通知类型：1
      */
     @Override
-    @Transactional
     public void sendGalaxyCommentReplyNotification(Integer senderId, Integer receiverId,
                                                    Integer commentId, String content) {
-        try {
-            // 验证发送者和接收者
-            if (senderId.equals(receiverId)) {
-                logger.info("用户{}回复了自己的评论，不发送通知", senderId);
-                return;
-            }
-
-            // 检查重复通知
-            if (isDuplicateNotification(receiverId, senderId, 1, String.valueOf(commentId))) {
-                logger.info("{}分钟内已发送过相同通知，跳过", DUPLICATE_CHECK_MINUTES);
-                return;
-            }
-
-            // 获取用户信息
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(receiverId);
-
-            if (sender == null || receiver == null) {
-                logger.error("发送者或接收者不存在");
-                return;
-            }
-
-            // 创建通知
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(1);  // 星系评论回复
-            notification.setTitle(sender.getNickname() + " 回复了你的评论");
-
-            // 处理内容
-            String displayContent = content.length() > 100 ?
-                    content.substring(0, 100) + "..." : content;
-            notification.setContent(displayContent);
-
-            notification.setTargetType(1);  // 目标类型：星系评论
-            notification.setTargetId(String.valueOf(commentId));
-
-            // 构建额外数据
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/galaxy/comment/detail/" + commentId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            // 保存通知
-            notificationMapper.insertNotification(notification);
-
-            // 触发实时推送
-            sendRealtimeNotification(receiverId, notification);
-
-            logger.info("成功发送星系评论回复通知：{} -> {}", senderId, receiverId);
-
-        } catch (Exception e) {
-            logger.error("发送星系评论回复通知失败", e);
+        if (senderId.equals(receiverId)) {
+            logger.info("用户{}回复了自己的评论，不发送通知", senderId);
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(1, senderId, receiverId,
+                1, String.valueOf(commentId), content, null));  // 目标类型：星系评论
     }
 
     /**
@@ -120,49 +83,13 @@ public class NotificationService implements INotificationService {
      * 通知类型：2
      */
     @Override
-    @Transactional
     public void sendGalaxyCommentLikeNotification(Integer senderId, Integer receiverId,
                                                   Integer commentId, String commentContent) {
-        try {
-            if (senderId.equals(receiverId)) {
-                return;
-            }
-
-            if (isDuplicateNotification(receiverId, senderId, 2, String.valueOf(commentId))) {
-                return;
-            }
-
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(receiverId);
-
-            if (sender == null || receiver == null) {
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(2);  // 星系评论点赞
-            notification.setTitle(sender.getNickname() + " 赞了你的评论");
-
-            String preview = commentContent.length() > 50 ?
-                    commentContent.substring(0, 50) + "..." : commentContent;
-            notification.setContent("你的评论\"" + preview + "\"获得了一个赞");
-
-            notification.setTargetType(1);  // 星系评论
-            notification.setTargetId(String.valueOf(commentId));
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/galaxy/comment/detail/" + commentId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(receiverId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送星系评论点赞通知失败", e);
+        if (senderId.equals(receiverId)) {
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(2, senderId, receiverId,
+                1, String.valueOf(commentId), commentContent, null));  // 星系评论
     }
 
     /**
@@ -170,46 +97,13 @@ public class NotificationService implements INotificationService {
      * 通知类型：3
      */
     @Override
-    @Transactional
     public void sendGalaxyNewCommentNotification(Integer senderId, Integer galaxyOwnerId,
                                                  Integer galaxyId, String galaxyName) {
-        try {
-            if (senderId.equals(galaxyOwnerId)) {
-                return;
-            }
-
-            if (isDuplicateNotification(galaxyOwnerId, senderId, 3, String.valueOf(galaxyId))) {
-                return;
-            }
-
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(galaxyOwnerId);
-
-            if (sender == null || receiver == null) {
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(3);  // 星系新评论
-            notification.setTitle(sender.getNickname() + " 在你的星系中发表了评论");
-            notification.setContent("在星系\"" + galaxyName + "\"中有新的评论");
-
-            notification.setTargetType(2);  // 目标类型：星系
-            notification.setTargetId(String.valueOf(galaxyId));
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/galaxy/" + galaxyId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(galaxyOwnerId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送星系新评论通知失败", e);
+        if (senderId.equals(galaxyOwnerId)) {
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(3, senderId, galaxyOwnerId,
+                2, String.valueOf(galaxyId), galaxyName, null));  // 目标类型：星系
     }
 
     // ==================== 星球相关通知实现 ====================
@@ -219,54 +113,14 @@ public class NotificationService implements INotificationService {
      * 通知类型：4
      */
     @Override
-    @Transactional
     public void sendPlanetCommentReplyNotification(Integer senderId, Integer receiverId,
                                                    Integer commentId, String content) {
-        try {
-            if (senderId.equals(receiverId)) {
-                logger.info("用户{}回复了自己的评论，不发送通知", senderId);
-                return;
-            }
-
-            if (isDuplicateNotification(receiverId, senderId, 4, String.valueOf(commentId))) {
-                logger.info("{}分钟内已发送过相同通知，跳过", DUPLICATE_CHECK_MINUTES);
-                return;
-            }
-
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(receiverId);
-
-            if (sender == null || receiver == null) {
-                logger.error("发送者或接收者不存在");
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(4);  // 星球评论回复
-            notification.setTitle(sender.getNickname() + " 回复了你的评论");
-
-            String displayContent = content.length() > 100 ?
-                    content.substring(0, 100) + "..." : content;
-            notification.setContent(displayContent);
-
-            notification.setTargetType(3);  // 目标类型：星球评论
-            notification.setTargetId(String.valueOf(commentId));
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/planet/comment/detail/" + commentId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(receiverId, notification);
-
-            logger.info("成功发送星球评论回复通知：{} -> {}", senderId, receiverId);
-
-        } catch (Exception e) {
-            logger.error("发送星球评论回复通知失败", e);
+        if (senderId.equals(receiverId)) {
+            logger.info("用户{}回复了自己的评论，不发送通知", senderId);
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(4, senderId, receiverId,
+                3, String.valueOf(commentId), content, null));  // 目标类型：星球评论
     }
 
     /**
@@ -274,49 +128,13 @@ public class NotificationService implements INotificationService {
      * 通知类型：5
      */
     @Override
-    @Transactional
     public void sendPlanetCommentLikeNotification(Integer senderId, Integer receiverId,
                                                   Integer commentId, String commentContent) {
-        try {
-            if (senderId.equals(receiverId)) {
-                return;
-            }
-
-            if (isDuplicateNotification(receiverId, senderId, 5, String.valueOf(commentId))) {
-                return;
-            }
-
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(receiverId);
-
-            if (sender == null || receiver == null) {
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(5);  // 星球评论点赞
-            notification.setTitle(sender.getNickname() + " 赞了你的评论");
-
-            String preview = commentContent.length() > 50 ?
-                    commentContent.substring(0, 50) + "..." : commentContent;
-            notification.setContent("你的评论\"" + preview + "\"获得了一个赞");
-
-            notification.setTargetType(3);  // 星球评论
-            notification.setTargetId(String.valueOf(commentId));
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/planet/comment/detail/" + commentId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(receiverId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送星球评论点赞通知失败", e);
+        if (senderId.equals(receiverId)) {
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(5, senderId, receiverId,
+                3, String.valueOf(commentId), commentContent, null));  // 星球评论
     }
 
     /**
@@ -324,46 +142,13 @@ public class NotificationService implements INotificationService {
      * 通知类型：6
      */
     @Override
-    @Transactional
     public void sendPlanetNewCommentNotification(Integer senderId, Integer planetOwnerId,
                                                  String planetId, String planetName) {
-        try {
-            if (senderId.equals(planetOwnerId)) {
-                return;
-            }
-
-            if (isDuplicateNotification(planetOwnerId, senderId, 6, planetId)) {
-                return;
-            }
-
-            User sender = userMapper.findById(senderId);
-            User receiver = userMapper.findById(planetOwnerId);
-
-            if (sender == null || receiver == null) {
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setSender(sender);
-            notification.setReceiver(receiver);
-            notification.setType(6);  // 星球新评论
-            notification.setTitle(sender.getNickname() + " 在你的星球中发表了评论");
-            notification.setContent("在星球\"" + planetName + "\"中有新的评论");
-
-            notification.setTargetType(4);  // 目标类型：星球
-            notification.setTargetId(planetId);
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/planet/" + planetId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(planetOwnerId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送星球新评论通知失败", e);
+        if (senderId.equals(planetOwnerId)) {
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(6, senderId, planetOwnerId,
+                4, planetId, planetName, null));  // 目标类型：星球
     }
 
     /**
@@ -371,40 +156,15 @@ public class NotificationService implements INotificationService {
      * 通知类型：7
      */
     @Override
-    @Transactional
     public void sendSystemNotification(Integer receiverId, String title, String content) {
-        try {
-            if (receiverId == null) {
-                // 群发给所有用户
-                sendSystemNotificationToAll(title, content);
-                return;
-            }
-
-            User receiver = userMapper.findById(receiverId);
-            if (receiver == null) {
-                logger.error("接收者不存在：{}", receiverId);
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setReceiver(receiver);
-            notification.setSender(null);  // 系统通知没有发送者
-            notification.setType(7);  // 系统通知
-            notification.setTitle(title);
-            notification.setContent(content);
-            notification.setTargetType(5);  // 其他
-            notification.setTargetId(null);
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("systemNotice", true);
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(receiverId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送系统通知失败", e);
+        if (receiverId == null) {
+            // 群发给所有用户
+            sendSystemNotificationToAll(title, content);
+            return;
         }
+        // 系统通知没有发送者，目标类型：其他
+        notificationOutbox.enqueue(new NotificationEvent(7, null, receiverId,
+                5, null, content, title));
     }
 
     /**
@@ -414,139 +174,98 @@ public class NotificationService implements INotificationService {
      */
     @Override
     public void sendGalaxyAdminNotification(Integer receiverId, Integer senderId, String senderName, Integer galaxyId, String galaxyName) {
-        try {
-            if (receiverId.equals(senderId)) {
-                logger.info("用户{}被任命为自己的星系管理员，不发送通知", receiverId);
-                return;
-            }
-
-            if (isDuplicateNotification(receiverId, senderId, 8, String.valueOf(galaxyId))) {
-                logger.info("{}分钟内已发送过相同通知，跳过", DUPLICATE_CHECK_MINUTES);
-                return;
-            }
-
-            User receiver = userMapper.findById(receiverId);
-            User sender = userMapper.findById(senderId);
-
-            if (receiver == null || sender == null) {
-                logger.error("接收者或发送者不存在");
-                return;
-            }
-
-            Notification notification = new Notification();
-            notification.setReceiver(receiver);
-            notification.setSender(sender);
-            notification.setType(8);  // 星系管理员任命
-            notification.setTitle(senderName + " 任命你为星系管理员");
-            notification.setContent("你被任命为星系\"" + galaxyName + "\"的管理员");
-
-            notification.setTargetType(2);  // 星系
-            notification.setTargetId(String.valueOf(galaxyId));
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/galaxy/" + galaxyId);
-            extraData.put("senderAvatar", sender.getAvatarUrl());
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            notificationMapper.insertNotification(notification);
-            sendRealtimeNotification(receiverId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送星系管理员通知失败", e);
+        if (receiverId.equals(senderId)) {
+            logger.info("用户{}被任命为自己的星系管理员，不发送通知", receiverId);
+            return;
         }
+        notificationOutbox.enqueue(new NotificationEvent(8, senderId, receiverId,
+                2, String.valueOf(galaxyId), galaxyName, senderName + " 任命你为星系管理员"));  // 星系
     }
 
     /**
      * 群发系统通知给所有用户
-     * 实现批量发送逻辑
+     * 发布为全站公告，只写一行，不再为每个用户插入通知
      */
-    @Transactional
     public void sendSystemNotificationToAll(String title, String content) {
-        logger.info("开始群发系统通知：{}", title);
-
-        // 分批处理，避免一次性创建太多记录
-        final int BATCH_SIZE = 100;
-        int page = 0;
-        int processedCount = 0;
-
-        while (true) {
-            // 获取一批用户（这里假设UserMapper有分页查询所有用户的方法）
-            // 需要在UserMapper中添加：
-            // @Select("SELECT * FROM tab_user WHERE status = 0 LIMIT #{offset}, #{size}")
-            // List<User> getUsersWithPagination(@Param("offset") int offset, @Param("size") int size);
-
-            List<User> users = getUserBatch(page * BATCH_SIZE, BATCH_SIZE);
-            if (users.isEmpty()) {
-                break;
-            }
-
-            // 构建批量通知
-            List<Notification> notifications = new ArrayList<>();
-            for (User user : users) {
-                Notification notification = new Notification();
-                notification.setReceiver(user);
-                notification.setSender(null); // 系统通知没有发送者
-                notification.setType(7); // 系统通知
-                notification.setTitle(title);
-                notification.setContent(content);
-                notification.setTargetType(5); // 其他
-                notification.setTargetId(null);
-
-                Map<String, Object> extraData = new HashMap<>();
-                extraData.put("systemNotice", true);
-                extraData.put("broadcast", true);
-                try {
-                    notification.setExtraData(objectMapper.writeValueAsString(extraData));
-                } catch (Exception e) {
-                    logger.error("序列化额外数据失败", e);
-                }
-
-                notifications.add(notification);
-            }
-
-            // 批量插入
-            notificationMapper.insertNotificationBatch(notifications);
-
-            processedCount += users.size();
-            page++;
-
-            // 避免过度占用资源，每批次后短暂休眠
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-
-        logger.info("群发系统通知完成，共发送给 {} 个用户", processedCount);
+        Integer announcementId = announcementService.publish(title, content);
+        badgeCountService.onAnnouncementPublished();
+        logger.info("发布全站公告：{}，公告ID：{}", title, announcementId);
     }
 
-    /**
-     * 获取用户批次（辅助方法）
-     */
-    private List<User> getUserBatch(int offset, int size) {
-        // 这里需要实现或调用UserMapper的分页查询方法
-        // 临时返回空列表，实际使用时需要实现
-        return new ArrayList<>();
-    }
     // ==================== 通知查询和管理实现 ====================
 
     /**
      * 获取用户通知列表
+     * 全站公告与通知按时间合并成一条时间线后再分页（时间相同时通知在前），每页恰好size条，
+     * 公告不重复也不遗漏。公告只有最近几十条，本页之前最多有这么多公告，
+     * 因此通知只需从 offset - 公告数 处开始多取这么多条即可定位本页
      */
     @Override
     public List<NotificationDto> getUserNotifications(Integer userId, Integer type,
                                                       Integer isRead, int page, int size) {
         int offset = (page - 1) * size;
+        if (type != null && type != 7) {
+            return notificationMapper.getNotificationsByUser(userId, type, isRead, offset, size)
+                    .stream()
+                    .map(this::convertToDto)
+                    .collect(Collectors.toList());
+        }
 
+        // 符合已读筛选条件的公告，按时间倒序
+        List<Announcement> announcements = new ArrayList<>();
+        int readUpTo = 0;
+        List<Announcement> all = announcementService.getAnnouncements();
+        if (!all.isEmpty()) {
+            readUpTo = announcementService.getReadUpTo(userId);
+            for (Announcement announcement : all) {
+                int announcementRead = announcement.getAnnouncementId() <= readUpTo ? 1 : 0;
+                if (isRead == null || isRead == announcementRead) {
+                    announcements.add(announcement);
+                }
+            }
+            announcements.sort(Comparator.comparing(Announcement::getCreateTime).reversed());
+        }
+
+        int start = Math.max(offset - announcements.size(), 0);
         List<Notification> notifications = notificationMapper.getNotificationsByUser(
-                userId, type, isRead, offset, size
+                userId, type, isRead, start, offset + size - start
         );
+        // 通知不足start条时，时间线总长小于offset，本页为空
+        if (start > 0 && notifications.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return notifications.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // 比取到的第一条通知还新的公告排在start之前的通知之间，都在本页之前
+        int a = 0;
+        if (start > 0) {
+            Date first = notifications.get(0).getCreateTime();
+            while (a < announcements.size() && announcements.get(a).getCreateTime().after(first)) {
+                a++;
+            }
+        }
+
+        // 归并两条有序列表，position是下一个元素在整条时间线中的位置
+        List<NotificationDto> result = new ArrayList<>(size);
+        int position = start + a;
+        int n = 0;
+        while (result.size() < size && (n < notifications.size() || a < announcements.size())) {
+            boolean takeNotification = a >= announcements.size() || (n < notifications.size()
+                    && !announcements.get(a).getCreateTime().after(notifications.get(n).getCreateTime()));
+            if (takeNotification) {
+                Notification notification = notifications.get(n++);
+                if (position >= offset) {
+                    result.add(convertToDto(notification));
+                }
+            } else {
+                Announcement announcement = announcements.get(a++);
+                if (position >= offset) {
+                    int announcementRead = announcement.getAnnouncementId() <= readUpTo ? 1 : 0;
+                    result.add(convertAnnouncementToDto(announcement, userId, announcementRead));
+                }
+            }
+            position++;
+        }
+        return result;
     }
 
     /**
@@ -554,7 +273,7 @@ public class NotificationService implements INotificationService {
      */
     @Override
     public int getUnreadCount(Integer userId) {
-        return notificationMapper.countUnreadNotifications(userId, null);
+        return badgeCountService.getUnreadNotificationCount(userId);
     }
 
     /**
@@ -562,14 +281,7 @@ public class NotificationService implements INotificationService {
      */
     @Override
     public Map<Integer, Integer> getUnreadCountByType(Integer userId) {
-        List<Map<String, Object>> results = notificationMapper.countUnreadByType(userId);
-        Map<Integer, Integer> countMap = new HashMap<>();
-        for (Map<String, Object> result : results) {
-            Integer type = (Integer) result.get("type");
-            Integer count = ((Long) result.get("count")).intValue();
-            countMap.put(type, count);
-        }
-        return countMap;
+        return badgeCountService.getUnreadNotificationCountByType(userId);
     }
 
     /**
@@ -579,6 +291,9 @@ public class NotificationService implements INotificationService {
     @Transactional
     public boolean markAsRead(Integer notificationId, Integer userId) {
         int result = notificationMapper.markAsRead(notificationId, userId);
+        if (result > 0) {
+            badgeCountService.invalidate(userId);
+        }
         return result > 0;
     }
 
@@ -591,25 +306,47 @@ public class NotificationService implements INotificationService {
         if (notificationIds == null || notificationIds.isEmpty()) {
             return 0;
         }
-        return notificationMapper.markAsReadBatch(userId, notificationIds);
+        int result = notificationMapper.markAsReadBatch(userId, notificationIds);
+        if (result > 0) {
+            badgeCountService.invalidate(userId);
+        }
+        return result;
     }
 
     /**
      * 标记所有通知为已读
+     * 只推进全部类型的已读水位线，不逐行更新通知
      */
     @Override
     @Transactional
     public int markAllAsRead(Integer userId) {
-        return notificationMapper.markAllAsRead(userId);
+        int result = badgeCountService.getUnreadNotificationCount(userId);
+        int latestId = notificationMapper.getMaxNotificationId(userId, null);
+        if (latestId > 0) {
+            readMarkMapper.advanceMark(userId, NotificationReadMark.ALL_TYPES, latestId);
+        }
+        announcementService.markAllAsRead(userId);
+        badgeCountService.onAllNotificationsRead(userId);
+        return result;
     }
 
     /**
      * 标记特定类型的所有通知为已读
+     * 只推进该类型的已读水位线，不逐行更新通知
      */
     @Override
     @Transactional
     public int markTypeAsRead(Integer userId, Integer type) {
-        return notificationMapper.markTypeAsRead(userId, type);
+        int result = badgeCountService.getUnreadNotificationCountByType(userId).getOrDefault(type, 0);
+        int latestId = notificationMapper.getMaxNotificationId(userId, type);
+        if (latestId > 0) {
+            readMarkMapper.advanceMark(userId, type, latestId);
+        }
+        if (type == 7) {
+            announcementService.markAllAsRead(userId);
+        }
+        badgeCountService.onNotificationTypeRead(userId, type);
+        return result;
     }
 
     /**
@@ -618,7 +355,11 @@ public class NotificationService implements INotificationService {
     @Override
     @Transactional
     public boolean deleteNotification(Integer notificationId, Integer userId) {
-        return notificationMapper.deleteNotification(notificationId, userId) > 0;
+        boolean deleted = notificationMapper.deleteNotification(notificationId, userId) > 0;
+        if (deleted) {
+            badgeCountService.invalidate(userId);
+        }
+        return deleted;
     }
 
     /**
@@ -630,7 +371,11 @@ public class NotificationService implements INotificationService {
         if (notificationIds == null || notificationIds.isEmpty()) {
             return 0;
         }
-        return notificationMapper.deleteNotificationBatch(userId, notificationIds);
+        int result = notificationMapper.deleteNotificationBatch(userId, notificationIds);
+        if (result > 0) {
+            badgeCountService.invalidate(userId);
+        }
+        return result;
     }
 
     /**
@@ -644,43 +389,7 @@ public class NotificationService implements INotificationService {
 
     @Override
     public void sendNotification(Integer userId, Integer receiverId, String content, Integer type) {
-        try {
-            // 验证接收者是否存在
-            User receiver = userMapper.findById(receiverId);
-            if (receiver == null) {
-                logger.error("接收者不存在：{}", receiverId);
-                return;
-            }
-
-            // 检查重复通知
-            if (isDuplicateNotification(receiverId, userId, type, content)) {
-                logger.info("{}分钟内已发送过相同通知，跳过", DUPLICATE_CHECK_MINUTES);
-                return;
-            }
-
-            // 创建通知
-            Notification notification = new Notification();
-            notification.setReceiver(receiver);
-            notification.setSender(userMapper.findById(userId));
-            notification.setType(type);
-            notification.setTitle("新通知");
-            notification.setContent(content);
-            notification.setTargetType(5);  // 其他类型
-            notification.setTargetId(null);
-
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("jumpUrl", "/notifications");
-            notification.setExtraData(objectMapper.writeValueAsString(extraData));
-
-            // 保存通知
-            notificationMapper.insertNotification(notification);
-
-            // 触发实时推送
-            sendRealtimeNotification(receiverId, notification);
-
-        } catch (Exception e) {
-            logger.error("发送通知失败", e);
-        }
+        notificationOutbox.enqueue(NotificationEvent.custom(type, userId, receiverId, content));
     }
 
 
@@ -731,6 +440,31 @@ public class NotificationService implements INotificationService {
         return dto;
     }
 
+    /**
+     * 全站公告转换为通知DTO
+     * 公告没有通知ID，额外数据中带公告ID，前端通过"全部已读"或"系统通知已读"标记
+     */
+    private NotificationDto convertAnnouncementToDto(Announcement announcement, Integer userId, int isRead) {
+        NotificationDto dto = new NotificationDto();
+        dto.setReceiverId(userId);
+        dto.setType(7);
+        dto.setTypeDesc(getTypeDescription(7));
+        dto.setTitle(announcement.getTitle());
+        dto.setContent(announcement.getContent());
+        dto.setTargetType(5);
+        dto.setIsRead(isRead);
+        dto.setStatus(0);
+        dto.setCreateTime(announcement.getCreateTime());
+        dto.setCreateTimeAgo(calculateTimeAgo(announcement.getCreateTime()));
+
+        Map<String, Object> extraData = new HashMap<>();
+        extraData.put("systemNotice", true);
+        extraData.put("broadcast", true);
+        extraData.put("announcementId", announcement.getAnnouncementId());
+        dto.setExtraData(extraData);
+        return dto;
+    }
+
     /**
      * 获取通知类型的描述
      */
@@ -777,27 +511,4 @@ public class NotificationService implements INotificationService {
             return "很久以前";
         }
     }
-
-    /**
-     * 检查是否为重复通知
-     */
-    private boolean isDuplicateNotification(Integer receiverId, Integer senderId,
-                                            Integer type, String targetId) {
-        int count = notificationMapper.checkDuplicateNotification(
-                receiverId, senderId, type, targetId, DUPLICATE_CHECK_MINUTES
-        );
-        return count > 0;
-    }
-
-    /**
-     * 发送实时通知
-     * 集成WebSocket推送服务
-     */
-    private void sendRealtimeNotification(Integer userId, Notification notification) {
-        if (webSocketService != null) {
-            webSocketService.sendRealtimeNotification(userId, notification);
-        } else {
-            logger.debug("WebSocket服务未配置，通知将在用户下次登录时显示");
-        }
-    }
 }
\ No newline at end of file
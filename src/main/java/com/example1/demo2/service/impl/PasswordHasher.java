@@ -0,0 +1,191 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.util.BCryptUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 密码哈希执行器
+ * BCrypt哈希和校验都很耗CPU，放在请求线程上时一波登录就能占满Tomcat线程池。
+ * 这里用固定大小的线程池和有界队列执行，队列满时立即拒绝（返回"服务繁忙"），不让请求线程排长队；
+ * 哈希强度可配置，登录时发现旧密码的强度与配置不一致，在后台按新强度重新哈希。
+ * 记录哈希耗时和排队等待时间，供管理接口查看
+ */
+@Service
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String BUSY = "服务繁忙，请稍后再试";
+
+    // 哈希强度（工作因子），每加1耗时翻倍
+    @Value("${password.hash.strength:10}")
+    private int strength = 10;
+
+    // 哈希线程数，0表示与CPU核数相同
+    @Value("${password.hash.threads:0}")
+    private int threads;
+
+    // 排队上限，超过后立即拒绝
+    @Value("${password.hash.queue-capacity:32}")
+    private int queueCapacity = 32;
+
+    // 请求线程最多等待多久（毫秒）
+    @Value("${password.hash.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    /**
+     * 运行统计，耗时单位为毫秒
+     */
+    public record Stats(int strength, int poolSize, int queued, long hashes, long verifications, long rehashes,
+                        long rejected, long timeouts, double avgHashMillis, double avgVerifyMillis,
+                        double avgQueueWaitMillis, double maxQueueWaitMillis) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (strength < 4 || strength > 31) {
+            throw new IllegalStateException("password.hash.strength 必须在4到31之间");
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        logger.info("密码哈希线程池已启动，线程数{}，排队上限{}，强度{}", poolSize, queueCapacity, strength);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按配置的强度哈希密码
+     * @throws RuntimeException 排队已满或等待超时
+     */
+    public String hash(String rawPassword) {
+        return run(() -> BCryptUtil.hashPassword(rawPassword, strength), hashes, hashNanos);
+    }
+
+    /**
+     * 校验密码
+     * @throws RuntimeException 排队已满或等待超时
+     */
+    public boolean verify(String rawPassword, String hashedPassword) {
+        return run(() -> BCryptUtil.verifyPassword(rawPassword, hashedPassword), verifications, verifyNanos);
+    }
+
+    /**
+     * 哈希值的强度是否与当前配置不一致
+     */
+    public boolean needsRehash(String hashedPassword) {
+        return BCryptUtil.getStrength(hashedPassword) != strength;
+    }
+
+    /**
+     * 在后台按当前强度重新哈希，完成后把新哈希值交给回调；队列满时放弃，下次登录再试
+     */
+    public void rehash(String rawPassword, Consumer<String> onHashed) {
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    long started = System.nanoTime();
+                    recordQueueWait(started - submitted);
+                    String hashed = BCryptUtil.hashPassword(rawPassword, strength);
+                    hashes.increment();
+                    hashNanos.add(System.nanoTime() - started);
+                    rehashes.increment();
+                    onHashed.accept(hashed);
+                } catch (Exception e) {
+                    logger.warn("重新哈希密码失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("密码哈希队列已满，跳过重新哈希");
+        }
+    }
+
+    public Stats getStats() {
+        long hashCount = hashes.sum();
+        long verifyCount = verifications.sum();
+        long started = hashCount + verifyCount;
+        return new Stats(strength, executor.getPoolSize(), executor.getQueue().size(), hashCount, verifyCount,
+                rehashes.sum(), rejected.sum(), timeouts.sum(),
+                millis(hashNanos.sum(), hashCount), millis(verifyNanos.sum(), verifyCount),
+                millis(queueWaitNanos.sum(), started), millis(maxQueueWaitNanos.get(), 1));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private <T> T run(Callable<T> work, LongAdder count, LongAdder nanos) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                recordQueueWait(started - submitted);
+                try {
+                    return work.call();
+                } finally {
+                    count.increment();
+                    nanos.add(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RuntimeException(BUSY);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new RuntimeException(BUSY);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(BUSY);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void recordQueueWait(long nanos) {
+        queueWaitNanos.add(nanos);
+        maxQueueWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static double millis(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1_000_000.0 / count;
+    }
+}
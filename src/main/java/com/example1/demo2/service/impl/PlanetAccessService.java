@@ -7,6 +7,7 @@ import com.example1.demo2.service.IPlanetAccessService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -15,18 +16,43 @@ public class PlanetAccessService implements IPlanetAccessService {
     @Autowired
     private PlanetAccessMapper planetAccessMapper;
 
+    @Autowired
+    private HotPlanetLeaderboard hotPlanetLeaderboard;
+
+    @Autowired
+    private PlanetSampler planetSampler;
+
+    @Autowired
+    private PlanetTitleIndex planetTitleIndex;
+
     @Override
     public List<KnowledgePlanet> findByTitle(String title) {
+        if (planetTitleIndex.isReady()) {
+            return planetTitleIndex.searchPlanets(title, true, null, 10);
+        }
         return planetAccessMapper.findByTitle(title);
     }
 
+    @Override
+    public List<String> suggestTitles(String prefix, int limit) {
+        if (!planetTitleIndex.isReady()) {
+            return new ArrayList<>();
+        }
+        return planetTitleIndex.suggest(prefix, limit);
+    }
+
     @Override
     public KnowledgePlanet findRandomPlanet() {
-        return planetAccessMapper.findRandomPlanet();
+        return planetSampler.sample(null, PlanetSampler.UNIFORM);
+    }
+
+    @Override
+    public KnowledgePlanet findRandomPlanet(Integer userId, String mode) {
+        return planetSampler.sample(userId, mode);
     }
 
     @Override
-    public List<KnowledgePlanet> getTop10Planets() {
-        return planetAccessMapper.getTop10Planets();
+    public List<KnowledgePlanet> getHotPlanets(String galaxyId, Integer themeId, int limit) {
+        return hotPlanetLeaderboard.getTop(galaxyId, themeId, limit);
     }
 }
@@ -37,6 +37,15 @@ public class PlanetCommentService implements IPlanetCommentService {
     @Autowired
     private ISystemAdminService systemAdminService;
 
+    @Autowired
+    private CommentLikeCounter likeCounter;
+
+    @Autowired
+    private CommentLikerCache likerCache;
+
+    @Autowired
+    private HotPlanetLeaderboard hotPlanetLeaderboard;
+
     @Override
     @Transactional
     public PlanetCommentDto publishComment(PlanetCommentDto commentDto) {
@@ -209,18 +218,19 @@ public class PlanetCommentService implements IPlanetCommentService {
             throw new RuntimeException("评论不存在或已被删除");
         }
 
-        // 检查是否已点赞
-        boolean isLiked = commentMapper.isLiked(userId, planetCommentId);
-
-        if (isLiked) {
+        // 先尝试取消点赞，删除不到记录说明尚未点赞，省去单独的查询
+        // 点赞数只记内存增量，由 CommentLikeCounter 批量写回
+        if (commentMapper.deleteLike(userId, planetCommentId) > 0) {
             // 取消点赞
-            commentMapper.deleteLike(userId, planetCommentId);
-            commentMapper.decreaseLikeCount(planetCommentId);
+            likeCounter.record(CommentLikeCounter.PLANET, planetCommentId, -1);
+            likerCache.onLikeChanged(CommentLikeCounter.PLANET, planetCommentId, userId, false);
             return false;
         } else {
             // 点赞
             commentMapper.insertLike(userId, planetCommentId);
-            commentMapper.increaseLikeCount(planetCommentId);
+            likeCounter.record(CommentLikeCounter.PLANET, planetCommentId, 1);
+            likerCache.onLikeChanged(CommentLikeCounter.PLANET, planetCommentId, userId, true);
+            hotPlanetLeaderboard.onCommentLiked(comment.getPlanet());
 
             // 发送点赞通知（类型5：星球评论点赞）
             try {
@@ -355,7 +365,7 @@ public class PlanetCommentService implements IPlanetCommentService {
         dto.setLevel(comment.getLevel());
         dto.setParentId(comment.getParentId());
         dto.setReplyToUserId(comment.getReplyToUserId());
-        dto.setLikeCount(comment.getLikeCount());
+        dto.setLikeCount(likeCounter.getLikeCount(CommentLikeCounter.PLANET, comment.getPlanetCommentId(), comment.getLikeCount()));
         dto.setReplyCount(comment.getReplyCount());
         dto.setStatus(comment.getStatus());
         dto.setCreateTime(comment.getCreateTime());
@@ -371,7 +381,7 @@ public class PlanetCommentService implements IPlanetCommentService {
 
         // 判断当前用户是否已点赞
         if (currentUserId != null) {
-            dto.setIsLiked(commentMapper.isLiked(currentUserId, comment.getPlanetCommentId()));
+            dto.setIsLiked(likerCache.isLiked(CommentLikeCounter.PLANET, currentUserId, comment.getPlanetCommentId(), comment.getLikeCount()));
         }
 
         return dto;
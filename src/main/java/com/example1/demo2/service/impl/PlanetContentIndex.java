@@ -0,0 +1,565 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.pojo.dto.PlanetSearchHitDto;
+import com.example1.demo2.util.IntBitmap;
+import com.example1.demo2.util.TextAnalyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 星球全文检索
+ * 对星球标题、描述和详情（content_detail）分词后建立倒排索引，替代对 text 列的 LIKE 查询。
+ * 索引快照保存在本地磁盘，重启时只重建 update_time 发生变化的星球；
+ * 星球增删改在事务提交后排队，由后台线程每秒批量更新（近实时）。
+ * 查询结果按可见性和创建者过滤：公开星球所有人可见，私有星球只有创建者可见
+ */
+@Service
+public class PlanetContentIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanetContentIndex.class);
+
+    // 增量更新间隔（毫秒）
+    private static final long APPLY_MILLIS = 1000;
+
+    // 快照保存间隔（毫秒）
+    private static final long SAVE_MILLIS = 60_000;
+
+    // 每次按ID批量查询的星球数
+    private static final int BATCH_SIZE = 100;
+
+    // 一次查询最多核对的候选星球数
+    private static final int MAX_CANDIDATES = 1000;
+
+    // 摘要片段在命中位置前后保留的字符数
+    private static final int SNIPPET_BEFORE = 30;
+    private static final int SNIPPET_AFTER = 90;
+
+    private static final String SNAPSHOT_FILE = "planet-content.index";
+
+    // 快照格式版本，格式变化时递增，旧快照直接丢弃并全量重建
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @Autowired
+    private PlanetMapper planetMapper;
+
+    @Value("${planet.search.index-dir:data/planet-content-index}")
+    private String indexDir;
+
+    // 当前提供查询的索引，只在索引线程中修改，查询持读锁、修改持写锁
+    private Index current = new Index();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 等待更新索引的星球
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    // 启动加载完成前查询返回空结果
+    private volatile boolean loaded;
+
+    // 快照之后索引是否有变化
+    private volatile boolean dirty;
+
+    private Path snapshotPath;
+
+    // 所有对索引的修改都在这一个线程中执行
+    private ScheduledExecutorService indexer;
+
+    /**
+     * 倒排索引
+     */
+    private static final class Index {
+        private final Map<String, Doc> docsByPlanet = new HashMap<>();
+        private final Map<Integer, Doc> docsById = new HashMap<>();
+        private final Map<String, IntBitmap> postings = new HashMap<>();
+        private int nextDocId;
+
+        private void put(Doc doc) {
+            remove(doc.planetId);
+            docsByPlanet.put(doc.planetId, doc);
+            docsById.put(doc.docId, doc);
+            for (String token : doc.tokens) {
+                postings.computeIfAbsent(token, k -> new IntBitmap()).add(doc.docId);
+            }
+        }
+
+        private void remove(String planetId) {
+            Doc doc = docsByPlanet.remove(planetId);
+            if (doc == null) {
+                return;
+            }
+            docsById.remove(doc.docId);
+            for (String token : doc.tokens) {
+                IntBitmap docs = postings.get(token);
+                if (docs != null) {
+                    docs.remove(doc.docId);
+                    if (docs.getCardinality() == 0) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+
+        private Doc newDoc(String planetId, Integer userId, boolean visible, long updateTime, String[] tokens) {
+            return new Doc(nextDocId++, planetId, userId, visible, updateTime, tokens);
+        }
+    }
+
+    /**
+     * 索引中的一个星球
+     */
+    private record Doc(int docId, String planetId, Integer userId, boolean visible, long updateTime, String[] tokens) {
+    }
+
+    @PostConstruct
+    public void start() {
+        snapshotPath = Paths.get(indexDir).resolve(SNAPSHOT_FILE);
+        indexer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "planet-content-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        indexer.submit(this::load);
+        indexer.scheduleWithFixedDelay(this::applyPending, APPLY_MILLIS, APPLY_MILLIS, TimeUnit.MILLISECONDS);
+        indexer.scheduleWithFixedDelay(this::save, SAVE_MILLIS, SAVE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        indexer.shutdownNow();
+        try {
+            indexer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 未处理的变更不影响快照的正确性：下次启动时按 update_time 找出并重建
+        save();
+    }
+
+    /**
+     * 星球创建、内容或可见性变化、删除后调用，有事务时挂到事务提交之后
+     */
+    public void refresh(String planetId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(planetId);
+                }
+            });
+        } else {
+            pending.add(planetId);
+        }
+    }
+
+    /**
+     * 在后台丢弃现有索引并从数据库全量重建，重建期间继续用旧索引提供查询
+     * @return 已有重建任务在排队或执行时返回false
+     */
+    public boolean reindex() {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        indexer.submit(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                Index rebuilt = build(new Index());
+                publish(rebuilt);
+                logger.info("星球全文索引重建完成，共{}个星球，耗时{}ms",
+                        rebuilt.docsByPlanet.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("星球全文索引重建失败，继续使用旧索引", e);
+            } finally {
+                reindexing.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 全文检索
+     * @param keyword 关键词，多个关键词用空格分隔，须全部命中
+     * @param viewerId 当前用户ID，用于返回其本人的私有星球
+     * @param limit 最多返回的数量
+     */
+    public List<PlanetSearchHitDto> search(String keyword, Integer viewerId, int limit) {
+        List<String> terms = TextAnalyzer.terms(keyword);
+        if (!loaded || terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // 1. 按倒排表找出候选星球：每个关键词的每个词元都出现
+        List<Doc> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<IntBitmap> lists = new ArrayList<>();
+            for (String term : terms) {
+                for (String token : TextAnalyzer.queryTokens(term)) {
+                    IntBitmap list = current.postings.get(token);
+                    if (list == null) {
+                        return new ArrayList<>();
+                    }
+                    lists.add(list);
+                }
+            }
+            if (lists.isEmpty()) {
+                return new ArrayList<>();
+            }
+            lists.sort(Comparator.comparingInt(IntBitmap::getCardinality));
+            List<IntBitmap> others = lists.subList(1, lists.size());
+            Index index = current;
+            lists.get(0).forEach(docId -> {
+                for (IntBitmap other : others) {
+                    if (!other.contains(docId)) {
+                        return;
+                    }
+                }
+                Doc doc = index.docsById.get(docId);
+                if (isVisibleTo(doc.visible(), doc.userId(), viewerId)) {
+                    candidates.add(doc);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 2. 从最近更新的开始，按数据库中的最新内容核对关键词和可见性
+        candidates.sort(Comparator.comparingLong(Doc::updateTime).reversed());
+        List<ScoredHit> hits = new ArrayList<>();
+        int end = Math.min(candidates.size(), MAX_CANDIDATES);
+        for (int from = 0; from < end && hits.size() < limit; from += BATCH_SIZE) {
+            List<String> planetIds = candidates.subList(from, Math.min(from + BATCH_SIZE, end)).stream()
+                    .map(Doc::planetId).toList();
+            for (KnowledgePlanet planet : planetMapper.getPlanetsByIds(planetIds)) {
+                boolean visible = planet.getVisibility() != null && planet.getVisibility() == 1;
+                if (!isVisibleTo(visible, planet.getUserId(), viewerId)) {
+                    continue;
+                }
+                ScoredHit hit = match(planet, terms);
+                if (hit != null) {
+                    hits.add(hit);
+                }
+            }
+        }
+
+        // 3. 按命中次数排序，标题命中权重更高
+        hits.sort(Comparator.comparingInt(ScoredHit::score).reversed());
+        List<PlanetSearchHitDto> result = new ArrayList<>();
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            result.add(hits.get(i).hit());
+        }
+        return result;
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private record ScoredHit(PlanetSearchHitDto hit, int score) {
+    }
+
+    private static boolean isVisibleTo(boolean visible, Integer ownerId, Integer viewerId) {
+        return visible || (viewerId != null && viewerId.equals(ownerId));
+    }
+
+    /**
+     * 核对星球是否包含全部关键词，包含时生成带摘要的结果
+     */
+    private static ScoredHit match(KnowledgePlanet planet, List<String> terms) {
+        String title = Objects.toString(planet.getContentTitle(), "");
+        String description = Objects.toString(planet.getDescription(), "");
+        String detail = Objects.toString(planet.getContentDetail(), "");
+        int score = 0;
+        for (String term : terms) {
+            int inTitle = countOf(title, term);
+            int inBody = countOf(description, term) + countOf(detail, term);
+            if (inTitle + inBody == 0) {
+                return null;
+            }
+            score += inTitle * 5 + inBody;
+        }
+
+        PlanetSearchHitDto hit = new PlanetSearchHitDto();
+        hit.setPlanetId(planet.getPlanetId());
+        hit.setContentTitle(planet.getContentTitle());
+        hit.setCoverUrl(planet.getCoverUrl());
+        hit.setUserId(planet.getUserId());
+        hit.setVisibility(planet.getVisibility());
+        // 摘要优先取详情，其次描述，都没有命中时取标题
+        String source = firstMatch(detail, terms) >= 0 ? detail
+                : firstMatch(description, terms) >= 0 ? description : title;
+        hit.setHighlight(highlight(source, terms));
+        return new ScoredHit(hit, score);
+    }
+
+    /**
+     * 截取第一个命中位置附近的片段，关键词用<em></em>标出，其余内容做HTML转义
+     */
+    private static String highlight(String text, List<String> terms) {
+        int first = Math.max(firstMatch(text, terms), 0);
+        int start = Math.max(0, first - SNIPPET_BEFORE);
+        int end = Math.min(text.length(), first + SNIPPET_AFTER);
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append("...");
+        }
+        int i = start;
+        while (i < end) {
+            String term = termAt(text, i, terms);
+            if (term != null) {
+                int termEnd = Math.min(i + term.length(), text.length());
+                snippet.append("<em>");
+                escape(snippet, text, i, termEnd);
+                snippet.append("</em>");
+                i = termEnd;
+            } else {
+                escape(snippet, text, i, i + 1);
+                i++;
+            }
+        }
+        if (end < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+
+    private static String termAt(String text, int offset, List<String> terms) {
+        String longest = null;
+        for (String term : terms) {
+            if (text.regionMatches(true, offset, term, 0, term.length())
+                    && (longest == null || term.length() > longest.length())) {
+                longest = term;
+            }
+        }
+        return longest;
+    }
+
+    private static int firstMatch(String text, List<String> terms) {
+        int first = -1;
+        for (String term : terms) {
+            int index = indexOfIgnoreCase(text, term, 0);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        return first;
+    }
+
+    private static int countOf(String text, String term) {
+        int count = 0;
+        int index = indexOfIgnoreCase(text, term, 0);
+        while (index >= 0) {
+            count++;
+            index = indexOfIgnoreCase(text, term, index + term.length());
+        }
+        return count;
+    }
+
+    private static int indexOfIgnoreCase(String text, String term, int from) {
+        for (int i = from; i + term.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, term, 0, term.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void escape(StringBuilder out, String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static Doc toDoc(Index index, KnowledgePlanet planet) {
+        Set<String> tokens = TextAnalyzer.tokens(planet.getContentTitle());
+        tokens.addAll(TextAnalyzer.tokens(planet.getDescription()));
+        tokens.addAll(TextAnalyzer.tokens(planet.getContentDetail()));
+        boolean visible = planet.getVisibility() != null && planet.getVisibility() == 1;
+        long updateTime = planet.getUpdateTime() != null ? planet.getUpdateTime().getTime() : 0;
+        return index.newDoc(planet.getPlanetId(), planet.getUserId(), visible, updateTime, tokens.toArray(new String[0]));
+    }
+
+    private void publish(Index index) {
+        lock.writeLock().lock();
+        try {
+            current = index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        dirty = true;
+    }
+
+    /**
+     * 把数据库中新增或 update_time 变化的星球补进索引，删掉数据库中已不存在的星球
+     */
+    private Index build(Index index) {
+        Map<String, Long> versions = new HashMap<>();
+        for (KnowledgePlanet planet : planetMapper.getContentIndexVersions()) {
+            versions.put(planet.getPlanetId(), planet.getUpdateTime() != null ? planet.getUpdateTime().getTime() : 0);
+        }
+        for (String planetId : new ArrayList<>(index.docsByPlanet.keySet())) {
+            if (!versions.containsKey(planetId)) {
+                index.remove(planetId);
+            }
+        }
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            Doc doc = index.docsByPlanet.get(entry.getKey());
+            if (doc == null || doc.updateTime() != entry.getValue()) {
+                stale.add(entry.getKey());
+            }
+        }
+        for (int from = 0; from < stale.size(); from += BATCH_SIZE) {
+            for (KnowledgePlanet planet : planetMapper.getPlanetsByIds(stale.subList(from, Math.min(from + BATCH_SIZE, stale.size())))) {
+                index.put(toDoc(index, planet));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 启动时读取快照，再按数据库补齐
+     */
+    private void load() {
+        try {
+            long start = System.currentTimeMillis();
+            Index index = build(readSnapshot());
+            publish(index);
+            logger.info("星球全文索引已加载，共{}个星球，耗时{}ms",
+                    index.docsByPlanet.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("加载星球全文索引失败，可通过重建索引恢复", e);
+        }
+    }
+
+    /**
+     * 批量处理排队的星球变更
+     */
+    private void applyPending() {
+        if (!loaded || pending.isEmpty()) {
+            return;
+        }
+        List<String> planetIds = new ArrayList<>(pending);
+        pending.removeAll(planetIds);
+        for (int from = 0; from < planetIds.size(); from += BATCH_SIZE) {
+            List<String> batch = planetIds.subList(from, Math.min(from + BATCH_SIZE, planetIds.size()));
+            try {
+                Map<String, KnowledgePlanet> rows = new HashMap<>();
+                for (KnowledgePlanet planet : planetMapper.getPlanetsByIds(batch)) {
+                    rows.put(planet.getPlanetId(), planet);
+                }
+                lock.writeLock().lock();
+                try {
+                    for (String planetId : batch) {
+                        KnowledgePlanet planet = rows.get(planetId);
+                        if (planet != null) {
+                            current.put(toDoc(current, planet));
+                        } else {
+                            current.remove(planetId);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                dirty = true;
+            } catch (Exception e) {
+                // 本批和剩余的星球留到下次再处理
+                pending.addAll(planetIds.subList(from, planetIds.size()));
+                logger.error("更新星球全文索引失败，稍后重试", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 快照格式：版本号、星球数，然后逐个星球写ID、创建者、可见性、更新时间和词元
+     */
+    private void save() {
+        if (!loaded || !dirty) {
+            return;
+        }
+        dirty = false;
+        Path temp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(current.docsByPlanet.size());
+                for (Doc doc : current.docsByPlanet.values()) {
+                    out.writeUTF(doc.planetId());
+                    out.writeInt(doc.userId() != null ? doc.userId() : -1);
+                    out.writeBoolean(doc.visible());
+                    out.writeLong(doc.updateTime());
+                    out.writeInt(doc.tokens().length);
+                    for (String token : doc.tokens()) {
+                        out.writeUTF(token);
+                    }
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            logger.error("保存星球全文索引快照失败", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Index readSnapshot() {
+        Index index = new Index();
+        if (!Files.exists(snapshotPath)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                logger.info("星球全文索引快照版本不一致，全量重建");
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String planetId = in.readUTF();
+                int userId = in.readInt();
+                boolean visible = in.readBoolean();
+                long updateTime = in.readLong();
+                String[] tokens = new String[in.readInt()];
+                for (int t = 0; t < tokens.length; t++) {
+                    tokens[t] = in.readUTF();
+                }
+                index.put(index.newDoc(planetId, userId >= 0 ? userId : null, visible, updateTime, tokens));
+            }
+            return index;
+        } catch (IOException e) {
+            logger.warn("星球全文索引快照损坏，全量重建", e);
+            return new Index();
+        }
+    }
+}
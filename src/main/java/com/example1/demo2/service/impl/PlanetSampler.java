@@ -0,0 +1,260 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.PlanetAccessMapper;
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.util.DynamicSampler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 公开星球随机抽样
+ * 内存中维护所有公开星球的ID及其亮度、访问量权重，抽样不查询数据库（替代 ORDER BY rand()）；
+ * 星球发布、删除、修改可见性或亮度时在事务提交后更新。
+ * 支持等概率、按亮度、按访问量三种抽样方式，并尽量避开用户最近随机到过的星球；
+ * 星球信息从有界缓存中返回，未命中时按主键查询一次
+ */
+@Service
+public class PlanetSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanetSampler.class);
+
+    // 抽样方式
+    public static final String UNIFORM = "uniform";
+    public static final String BRIGHTNESS = "brightness";
+    public static final String POPULARITY = "popularity";
+
+    // 权重维度
+    private static final int BRIGHTNESS_DIMENSION = 0;
+    private static final int POPULARITY_DIMENSION = 1;
+
+    // 每个用户记住最近随机到的星球数
+    private static final int SEEN_LIMIT = 50;
+
+    // 最多记住的用户数
+    private static final int MAX_USERS = 10000;
+
+    // 避开已看过的星球时最多重抽的次数
+    private static final int MAX_ATTEMPTS = 8;
+
+    // 星球信息缓存条数
+    private static final int ROW_CACHE_SIZE = 2000;
+
+    @Autowired
+    private PlanetAccessMapper planetAccessMapper;
+
+    @Autowired
+    private PlanetMapper planetMapper;
+
+    private final DynamicSampler<String> sampler = new DynamicSampler<>(2);
+
+    // 用户ID -> 最近随机到的星球
+    private final Map<Integer, LinkedHashSet<String>> seenByUser = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LinkedHashSet<String>> eldest) {
+            return size() > MAX_USERS;
+        }
+    };
+
+    // 星球ID -> 星球信息
+    private final Map<String, KnowledgePlanet> rows = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KnowledgePlanet> eldest) {
+            return size() > ROW_CACHE_SIZE;
+        }
+    };
+
+    // 启动加载完成前抽样回退到数据库
+    private volatile boolean loaded;
+
+    private ExecutorService loader;
+
+    @PostConstruct
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "planet-sampler-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.submit(this::load);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 随机抽取一个公开星球
+     * @param userId 当前用户ID，为空时不避开已看过的星球
+     * @param mode 抽样方式：uniform、brightness、popularity，为空时等概率
+     */
+    public KnowledgePlanet sample(Integer userId, String mode) {
+        if (!loaded) {
+            return planetAccessMapper.findRandomPlanet();
+        }
+
+        // 缓存与数据库不一致时（星球已删除或不再公开）剔除后重抽
+        for (int retry = 0; retry < 3; retry++) {
+            String planetId = pick(userId, mode);
+            if (planetId == null) {
+                return null;
+            }
+            KnowledgePlanet planet = getRow(planetId);
+            if (planet != null && planet.getVisibility() != null && planet.getVisibility() == 1) {
+                markSeen(userId, planetId);
+                return planet;
+            }
+            drop(planetId);
+        }
+        return null;
+    }
+
+    /**
+     * 星球信息或可见性、亮度发生变化后，按数据库最新状态更新；有事务时挂到事务提交之后
+     */
+    public void refresh(String planetId) {
+        afterCommit(() -> {
+            KnowledgePlanet planet = planetMapper.findByPlanetId(planetId);
+            synchronized (this) {
+                rows.remove(planetId);
+                if (planet == null || planet.getVisibility() == null || planet.getVisibility() != 1) {
+                    sampler.remove(planetId);
+                } else {
+                    sampler.put(planetId, weights(planet));
+                }
+            }
+        });
+    }
+
+    /**
+     * 星球内容变化，只清除缓存的星球信息；有事务时挂到事务提交之后
+     */
+    public void evictRow(String planetId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                rows.remove(planetId);
+            }
+        });
+    }
+
+    /**
+     * 星球被删除，有事务时挂到事务提交之后，回滚时仍可被抽到
+     */
+    public void remove(String planetId) {
+        afterCommit(() -> drop(planetId));
+    }
+
+    /**
+     * 星球被访问，访问量权重加一
+     */
+    public synchronized void onVisit(String planetId) {
+        sampler.addWeight(planetId, POPULARITY_DIMENSION, 1);
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private synchronized void drop(String planetId) {
+        sampler.remove(planetId);
+        rows.remove(planetId);
+    }
+
+    private synchronized String pick(Integer userId, String mode) {
+        Set<String> seen = userId != null ? seenByUser.get(userId) : null;
+        Random random = ThreadLocalRandom.current();
+        String planetId = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (BRIGHTNESS.equals(mode)) {
+                planetId = sampler.sampleWeighted(BRIGHTNESS_DIMENSION, random);
+            } else if (POPULARITY.equals(mode)) {
+                planetId = sampler.sampleWeighted(POPULARITY_DIMENSION, random);
+            } else {
+                planetId = sampler.sample(random);
+            }
+            if (planetId == null || seen == null || !seen.contains(planetId)) {
+                break;
+            }
+        }
+        // 多次都抽到看过的星球（公开星球很少或都看过了）时，接受最后一次的结果
+        return planetId;
+    }
+
+    private KnowledgePlanet getRow(String planetId) {
+        synchronized (this) {
+            KnowledgePlanet cached = rows.get(planetId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        KnowledgePlanet planet = planetMapper.findByPlanetId(planetId);
+        if (planet != null) {
+            synchronized (this) {
+                rows.put(planetId, planet);
+            }
+        }
+        return planet;
+    }
+
+    private synchronized void markSeen(Integer userId, String planetId) {
+        if (userId == null) {
+            return;
+        }
+        LinkedHashSet<String> seen = seenByUser.computeIfAbsent(userId, k -> new LinkedHashSet<>());
+        seen.remove(planetId);
+        seen.add(planetId);
+        if (seen.size() > SEEN_LIMIT) {
+            Iterator<String> iterator = seen.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static long[] weights(KnowledgePlanet planet) {
+        long brightness = planet.getBrightness() != null ? Math.max(planet.getBrightness(), 0) : 0;
+        long visits = planet.getVisitCount() != null ? Math.max(planet.getVisitCount(), 0) : 0;
+        // 权重加一，亮度或访问量为0的星球也有机会被抽到
+        return new long[]{brightness + 1, visits + 1};
+    }
+
+    /**
+     * 启动时加载所有公开星球的ID和权重
+     */
+    private void load() {
+        try {
+            List<KnowledgePlanet> planets = planetAccessMapper.getVisiblePlanetWeights();
+            synchronized (this) {
+                for (KnowledgePlanet planet : planets) {
+                    sampler.put(planet.getPlanetId(), weights(planet));
+                }
+            }
+            loaded = true;
+            logger.info("随机抽样已加载公开星球{}个", planets.size());
+        } catch (Exception e) {
+            logger.error("加载公开星球失败，随机访问回退到数据库查询", e);
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
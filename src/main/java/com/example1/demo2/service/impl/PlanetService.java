@@ -5,6 +5,7 @@ import com.example1.demo2.mapper.PlanetCommentMapper;
 import com.example1.demo2.mapper.PlanetMapper;
 import com.example1.demo2.pojo.KnowledgePlanet;
 import com.example1.demo2.pojo.dto.KnowledgePlanetDto;
+import com.example1.demo2.pojo.dto.PlanetSearchHitDto;
 import com.example1.demo2.service.IPlanetService;
 import com.example1.demo2.util.ConvertUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,21 @@ public class PlanetService implements IPlanetService {
     @Autowired
     private SystemAdminService systemAdminService;
 
+    @Autowired
+    private PlanetVisitCounter visitCounter;
+
+    @Autowired
+    private HotPlanetLeaderboard hotPlanetLeaderboard;
+
+    @Autowired
+    private PlanetSampler planetSampler;
+
+    @Autowired
+    private PlanetTitleIndex planetTitleIndex;
+
+    @Autowired
+    private PlanetContentIndex planetContentIndex;
+
     @Override
     public KnowledgePlanet findByTitle(String title) {
         return planetMapper.findByTitle(title);
@@ -40,16 +56,22 @@ public class PlanetService implements IPlanetService {
         planet.setPlanetId(generatePlanetId());
         KnowledgePlanet p = ConvertUtil.convertDtoToKnowledgePlanet(planet);
         planetMapper.add(p);
+        planetTitleIndex.refresh(p.getPlanetId());
+        planetContentIndex.refresh(p.getPlanetId());
     }
 
     @Override
     public void updateTitle(String planetId, String newTitle) {
         planetMapper.updateTitle(planetId, newTitle);
+        planetSampler.evictRow(planetId);
+        planetTitleIndex.refresh(planetId);
+        planetContentIndex.refresh(planetId);
     }
 
     @Override
     public void updateCoverUrl(String planetId, String newCoverUrl) {
         planetMapper.updateCoverUrl(planetId, newCoverUrl);
+        planetSampler.evictRow(planetId);
     }
 
     @Override
@@ -125,6 +147,12 @@ public class PlanetService implements IPlanetService {
         if (galaxyId != null) {
             galaxyMapper.decrementPlanetCount(galaxyId);
         }
+
+        // 6. 移出热门榜单、随机抽样和检索索引
+        hotPlanetLeaderboard.remove(planetId);
+        planetSampler.remove(planetId);
+        planetTitleIndex.remove(planetId);
+        planetContentIndex.refresh(planetId);
     }
 
     /**
@@ -158,37 +186,65 @@ public class PlanetService implements IPlanetService {
 
     @Override
     public List<KnowledgePlanet> searchPlanets(String keyword) {
+        if (planetTitleIndex.isReady()) {
+            return planetTitleIndex.searchPlanets(keyword, false, null, Integer.MAX_VALUE);
+        }
         return planetMapper.searchPlanets("%" + keyword + "%");
     }
 
+    @Override
+    public List<PlanetSearchHitDto> searchContent(String keyword, Integer userId, int limit) {
+        return planetContentIndex.search(keyword, userId, limit);
+    }
+
+    @Override
+    public boolean reindexContent() {
+        return planetContentIndex.reindex();
+    }
+
     @Override
     public void updatedescription(String planetId, String description) {
         planetMapper.updatedescription(planetId, description);
+        planetSampler.evictRow(planetId);
+        planetContentIndex.refresh(planetId);
     }
 
     @Override
     public void updatedetail(String planetId, String contentDetail) {
         planetMapper.updatedetail(planetId, contentDetail);
+        planetSampler.evictRow(planetId);
+        planetContentIndex.refresh(planetId);
     }
 
     @Override
     public void updatebrightness(String planetId, Integer brightness) {
         planetMapper.updatebrightness(planetId, brightness);
+        planetSampler.refresh(planetId);
     }
 
     @Override
     public void updatefuelvalue(String planetId, Integer fuelValue) {
         planetMapper.updatefuelvalue(planetId, fuelValue);
+        planetSampler.evictRow(planetId);
     }
 
     @Override
     public void publish(KnowledgePlanetDto planet) {
         planetMapper.publish(planet.getPlanetId());
+        planetSampler.refresh(planet.getPlanetId());
+        planetTitleIndex.refresh(planet.getPlanetId());
+        planetContentIndex.refresh(planet.getPlanetId());
     }
 
     @Override
     public void updatevisibility(String planetId, Integer visibility) {
         planetMapper.updatevisibility(planetId, visibility);
+        planetSampler.refresh(planetId);
+        planetTitleIndex.refresh(planetId);
+        planetContentIndex.refresh(planetId);
+        if (visibility == null || visibility != 1) {
+            hotPlanetLeaderboard.remove(planetId);
+        }
     }
 
     @Override
@@ -222,13 +278,19 @@ public class PlanetService implements IPlanetService {
             }
         }
 
-        // 3. 处理访问量统计（系统管理员访问不计入统计）
+        // 3. 处理访问量统计（系统管理员访问不计入统计），由访问计数器批量写回
         if (!isSystemAdmin) {
-            planetMapper.updatevisitCount(planetId);
+            visitCounter.increment(planetId);
+            planetSampler.onVisit(planetId);
+            planetTitleIndex.onVisit(planetId);
         }
 
-        // 4. 返回更新后的星球信息
-        return planetMapper.findByPlanetId(planetId);
+        // 4. 返回星球信息，访问量叠加尚未写回的部分，不再重新查询
+        planet.setVisitCount(visitCounter.getVisitCount(planetId, planet.getVisitCount()));
+        if (!isSystemAdmin) {
+            hotPlanetLeaderboard.onVisit(planet);
+        }
+        return planet;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,314 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.util.NGramIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 星球标题索引
+ * 进程内的标题N元组倒排索引，替代 content_title LIKE '%关键词%' 的全表扫描；
+ * 支持按可见性、创建者筛选，结果按访问量排序，并提供标题前缀补全。
+ * 星球创建、修改标题或可见性、删除时在事务提交后增量更新；启动加载完成前调用方回退到数据库查询
+ */
+@Service
+public class PlanetTitleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanetTitleIndex.class);
+
+    @Autowired
+    private PlanetMapper planetMapper;
+
+    @Autowired
+    private PlanetVisitCounter visitCounter;
+
+    private final NGramIndex index = new NGramIndex();
+
+    // 星球ID -> 文档
+    private final Map<String, Doc> docsByPlanet = new HashMap<>();
+
+    // 文档ID -> 文档
+    private final Map<Integer, Doc> docsById = new HashMap<>();
+
+    // 启动加载期间被删除的星球，加载结果中的这些星球不再加入索引
+    private final Set<String> removedDuringLoad = new HashSet<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int nextDocId;
+
+    // 启动加载是否进行中，由写锁保护
+    private boolean loading;
+
+    private volatile boolean loaded;
+
+    private ExecutorService loader;
+
+    /**
+     * 索引中的一个星球
+     */
+    private static final class Doc {
+        private final int docId;
+        private final String planetId;
+        private String title;
+        private Integer userId;
+        private boolean visible;
+        // 访问时在读锁下累加，不与搜索互斥
+        private final LongAdder visits = new LongAdder();
+
+        private Doc(int docId, String planetId) {
+            this.docId = docId;
+            this.planetId = planetId;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "planet-title-index-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loading = true;
+        loader.submit(this::load);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 索引是否可用，不可用时调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return loaded;
+    }
+
+    /**
+     * 按标题关键词搜索星球
+     * @param visibleOnly 是否只返回公开星球
+     * @param ownerId 创建者ID，为空时不按创建者筛选
+     * @param limit 最多返回的数量
+     * @return 星球ID，按访问量从高到低
+     */
+    public List<String> search(String keyword, boolean visibleOnly, Integer ownerId, int limit) {
+        List<Doc> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            index.search(keyword, docId -> {
+                Doc doc = docsById.get(docId);
+                if ((!visibleOnly || doc.visible) && (ownerId == null || ownerId.equals(doc.userId))) {
+                    matched.add(doc);
+                }
+            });
+            return topByVisits(matched, limit).stream().map(doc -> doc.planetId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按标题关键词搜索星球并查询星球信息，顺序与 search 一致
+     */
+    public List<KnowledgePlanet> searchPlanets(String keyword, boolean visibleOnly, Integer ownerId, int limit) {
+        List<String> planetIds = search(keyword, visibleOnly, ownerId, limit);
+        if (planetIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, KnowledgePlanet> rows = new HashMap<>();
+        for (KnowledgePlanet planet : planetMapper.getPlanetsByIds(planetIds)) {
+            rows.put(planet.getPlanetId(), planet);
+        }
+        List<KnowledgePlanet> planets = new ArrayList<>();
+        for (String planetId : planetIds) {
+            KnowledgePlanet planet = rows.get(planetId);
+            if (planet != null) {
+                planets.add(planet);
+            }
+        }
+        return planets;
+    }
+
+    /**
+     * 标题前缀补全，只返回公开星球的标题，按访问量从高到低
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<Doc> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            index.prefix(prefix, docId -> {
+                Doc doc = docsById.get(docId);
+                if (doc.visible) {
+                    matched.add(doc);
+                }
+            });
+            List<String> titles = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Doc doc : topByVisits(matched, matched.size())) {
+                if (titles.size() >= limit) {
+                    break;
+                }
+                if (seen.add(doc.title)) {
+                    titles.add(doc.title);
+                }
+            }
+            return titles;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 星球创建或标题、可见性变化后，按数据库最新状态重建该星球的索引，有事务时挂到事务提交之后
+     */
+    public void refresh(String planetId) {
+        afterCommit(() -> {
+            KnowledgePlanet planet = planetMapper.findByPlanetId(planetId);
+            if (planet == null) {
+                delete(planetId);
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                put(planet);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 星球被删除，有事务时挂到事务提交之后，回滚时保留索引
+     */
+    public void remove(String planetId) {
+        afterCommit(() -> delete(planetId));
+    }
+
+    /**
+     * 星球被访问，用于排序的访问量加一
+     * 只读取文档表，持读锁即可，访问之间以及访问与搜索之间互不阻塞
+     */
+    public void onVisit(String planetId) {
+        lock.readLock().lock();
+        try {
+            Doc doc = docsByPlanet.get(planetId);
+            if (doc != null) {
+                doc.visits.increment();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void delete(String planetId) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                removedDuringLoad.add(planetId);
+            }
+            Doc doc = docsByPlanet.remove(planetId);
+            if (doc != null) {
+                docsById.remove(doc.docId);
+                index.remove(doc.docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(KnowledgePlanet planet) {
+        removedDuringLoad.remove(planet.getPlanetId());
+        Doc doc = docsByPlanet.get(planet.getPlanetId());
+        if (doc == null) {
+            doc = new Doc(nextDocId++, planet.getPlanetId());
+            docsByPlanet.put(doc.planetId, doc);
+            docsById.put(doc.docId, doc);
+        }
+        doc.userId = planet.getUserId();
+        doc.visible = planet.getVisibility() != null && planet.getVisibility() == 1;
+        // 叠加尚未写回数据库的访问量
+        doc.visits.reset();
+        doc.visits.add(visitCounter.getVisitCount(planet.getPlanetId(), planet.getVisitCount()));
+        if (!Objects.equals(doc.title, planet.getContentTitle())) {
+            doc.title = planet.getContentTitle();
+            index.put(doc.docId, doc.title);
+        }
+    }
+
+    /**
+     * 按访问量排序，访问量在排序前取快照，排序期间的并发访问不影响比较结果
+     */
+    private static List<Doc> topByVisits(List<Doc> docs, int limit) {
+        Map<Doc, Long> visits = new HashMap<>();
+        for (Doc doc : docs) {
+            visits.put(doc, doc.visits.sum());
+        }
+        docs.sort(Comparator.comparingLong((Doc doc) -> visits.get(doc)).reversed()
+                .thenComparing(doc -> doc.planetId));
+        return docs.size() > limit ? docs.subList(0, limit) : docs;
+    }
+
+    /**
+     * 启动时加载所有星球的标题
+     * 查询在锁外进行，查询期间发生的增量更新和删除在写锁内优先于查询结果
+     */
+    private void load() {
+        try {
+            List<KnowledgePlanet> planets = planetMapper.getTitleIndexRows();
+            lock.writeLock().lock();
+            try {
+                for (KnowledgePlanet planet : planets) {
+                    // 加载期间已被增量更新或删除的星球以增量结果为准
+                    if (!docsByPlanet.containsKey(planet.getPlanetId())
+                            && !removedDuringLoad.contains(planet.getPlanetId())) {
+                        put(planet);
+                    }
+                }
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("星球标题索引已加载，共{}个星球", planets.size());
+        } catch (Exception e) {
+            logger.error("加载星球标题索引失败，搜索回退到数据库查询", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+                removedDuringLoad.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
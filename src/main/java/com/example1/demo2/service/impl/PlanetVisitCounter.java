@@ -0,0 +1,145 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 星球访问量写后合并
+ * 每次访问只在该星球的无锁累加器上加一，后台线程定期把累积的访问量批量写回数据库，
+ * 热门星球不再因逐次UPDATE形成行锁热点；写回只累加visit_count，不改动update_time。
+ * 读取访问量时叠加尚未写回的部分
+ */
+@Service
+public class PlanetVisitCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanetVisitCounter.class);
+
+    // 写回间隔（毫秒）
+    private static final long FLUSH_MILLIS = 5000;
+
+    // 单条UPDATE最多更新的星球数
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private PlanetMapper planetMapper;
+
+    // 星球ID -> 尚未写回的访问量
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // 正在写回的访问量，写回完成前读取时仍需叠加
+    private volatile Map<String, Long> flushing = Collections.emptyMap();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "planet-visit-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public void increment(String planetId) {
+        LongAdder adder = pending.computeIfAbsent(planetId, k -> new LongAdder());
+        adder.increment();
+        if (pending.get(planetId) != adder) {
+            // 累加器恰好被写回线程当作空闲移除，把计数转移到新的累加器；
+            // sumThenReset逐段清零，每次计数只会被这里或写回线程之一取走
+            long count = adder.sumThenReset();
+            if (count != 0) {
+                pending.computeIfAbsent(planetId, k -> new LongAdder()).add(count);
+            }
+        }
+    }
+
+    /**
+     * 获取访问量：数据库中的值加上尚未写回的访问量
+     */
+    public Integer getVisitCount(String planetId, Integer storedCount) {
+        long count = storedCount != null ? storedCount : 0;
+        count += flushing.getOrDefault(planetId, 0L);
+        LongAdder adder = pending.get(planetId);
+        if (adder != null) {
+            count += adder.sum();
+        }
+        return (int) count;
+    }
+
+    /**
+     * 把累积的访问量批量写回数据库
+     */
+    public synchronized void flush() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            LongAdder adder = entry.getValue();
+            long count = adder.sumThenReset();
+            if (count == 0 && pending.remove(entry.getKey(), adder)) {
+                // 上个周期以来没有访问的星球移除累加器，移除前后到达的计数一并取走
+                count = adder.sumThenReset();
+            }
+            if (count != 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Long>> batches = new ArrayList<>();
+        Map<String, Long> batch = new HashMap<>();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (batch.size() >= BATCH_SIZE) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        batches.add(batch);
+
+        flushing = counts;
+        int done = 0;
+        try {
+            for (Map<String, Long> each : batches) {
+                planetMapper.addVisitCounts(each);
+                done++;
+            }
+        } catch (Exception e) {
+            // 未写回的批次放回累加器，下次重试
+            logger.error("写回星球访问量失败，剩余{}批", batches.size() - done, e);
+            for (Map<String, Long> each : batches.subList(done, batches.size())) {
+                each.forEach((planetId, count) ->
+                        pending.computeIfAbsent(planetId, k -> new LongAdder()).add(count));
+            }
+        } finally {
+            flushing = Collections.emptyMap();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.example1.demo2.mapper.UserMapper;
 import com.example1.demo2.pojo.PrivateMessage;
 import com.example1.demo2.pojo.User;
 import com.example1.demo2.pojo.dto.PrivateMessageDto;
+import com.example1.demo2.service.IBadgeCountService;
 import com.example1.demo2.service.IPrivateMessageService;
 import com.example1.demo2.service.INotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +32,9 @@ public class PrivateMessageService implements IPrivateMessageService {
     @Autowired
     private INotificationService notificationService;
 
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
     @Override
     @Transactional
     public PrivateMessageDto sendMessage(PrivateMessageDto messageDto) {
@@ -57,6 +61,7 @@ public class PrivateMessageService implements IPrivateMessageService {
 
         // 保存消息
         messageMapper.insertMessage(message);
+        badgeCountService.onMessageSent(receiver.getUserId());
 
         // 更新最后聊天时间
         friendMapper.updateLastChatTime(messageDto.getSenderId(), messageDto.getReceiverId());
@@ -87,18 +92,23 @@ public class PrivateMessageService implements IPrivateMessageService {
     @Override
     @Transactional
     public void markAsRead(Integer receiverId, Integer senderId) {
-        messageMapper.markMessagesAsRead(receiverId, senderId);
+        int updated = messageMapper.markMessagesAsRead(receiverId, senderId);
+        badgeCountService.onMessagesRead(receiverId, updated);
     }
 
     @Override
     public int getUnreadCount(Integer userId) {
-        return messageMapper.getUnreadCount(userId);
+        return badgeCountService.getUnreadMessageCount(userId);
     }
 
     @Override
     @Transactional
     public boolean recallMessage(Long messageId, Integer senderId) {
         int result = messageMapper.recallMessage(messageId, senderId);
+        if (result > 0) {
+            // 撤回的消息可能尚未读，让接收者的角标重新计算
+            badgeCountService.invalidate(messageMapper.getReceiverIdByMessageId(messageId));
+        }
         return result > 0;
     }
 
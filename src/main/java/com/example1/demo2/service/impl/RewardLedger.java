@@ -0,0 +1,244 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.exception.InsufficientBalanceException;
+import com.example1.demo2.mapper.RewardTransactionMapper;
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.RewardTransaction;
+import com.example1.demo2.pojo.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 奖励账本
+ * 燃料值和知识星云值的增减都是一条带条件的增量UPDATE（余额不足时不更新），
+ * 检查和扣减在数据库中原子完成，不再先查后写，并发请求不会互相覆盖。
+ * 每次变动在事务提交后追加一条流水，后台定期批量写入；
+ * 余额读取走按用户的缓存，事务提交后失效，下次读取重新加载
+ */
+@Service
+public class RewardLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RewardLedger.class);
+
+    // 流水写入间隔（毫秒）
+    private static final long FLUSH_MILLIS = 1000;
+
+    // 单条INSERT最多写入的流水数
+    private static final int BATCH_SIZE = 500;
+
+    // 余额缓存的用户数上限，超过后清空重建
+    private static final int MAX_CACHED_USERS = 100000;
+
+    // 缓存版本号分段数
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RewardTransactionMapper rewardTransactionMapper;
+
+    // 等待写入的流水
+    private final Queue<RewardTransaction> pending = new ConcurrentLinkedQueue<>();
+
+    // 用户ID -> 余额
+    private final Map<Integer, Balances> balances = new ConcurrentHashMap<>();
+
+    // 按用户分段的版本号，余额变动提交后加一；加载期间版本号变了则不写入缓存，避免缓存旧值
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * 币种
+     */
+    public enum Currency {
+        FUEL(RewardTransaction.FUEL, "燃料值"),
+        KNOWLEDGE_DUST(RewardTransaction.KNOWLEDGE_DUST, "知识星云值");
+
+        private final int code;
+        private final String label;
+
+        Currency(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+    }
+
+    /**
+     * 用户余额
+     */
+    public record Balances(int fuelValue, int knowledgeDust) {
+        public int get(Currency currency) {
+            return currency == Currency.FUEL ? fuelValue : knowledgeDust;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reward-ledger-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 增加余额
+     * @return 变动后的余额
+     * @throws RuntimeException 用户不存在
+     */
+    public int credit(Integer userId, Currency currency, int amount, String reason) {
+        return apply(userId, currency, amount, reason);
+    }
+
+    /**
+     * 扣减余额，余额不足时不扣减
+     * @return 变动后的余额
+     * @throws InsufficientBalanceException 余额不足，此时没有修改任何数据
+     * @throws RuntimeException 用户不存在
+     */
+    public int debit(Integer userId, Currency currency, int amount, String reason) {
+        return apply(userId, currency, -amount, reason);
+    }
+
+    /**
+     * 获取用户余额，用户不存在时返回null
+     */
+    public Balances getBalances(Integer userId) {
+        Balances cached = balances.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        User user = userMapper.getRewardBalances(userId);
+        if (user == null) {
+            return null;
+        }
+        Balances loaded = new Balances(valueOf(user.getFuelValue()), valueOf(user.getKnowledgeDust()));
+        if (balances.size() >= MAX_CACHED_USERS) {
+            balances.clear();
+        }
+        // 与失效操作在同一个键上串行：版本号未变才写入，变了说明读到的可能是旧值
+        balances.compute(userId, (k, current) -> versions.get(stripe) == version ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * 把累积的流水批量写入数据库
+     */
+    public synchronized void flush() {
+        List<RewardTransaction> batch = new ArrayList<>();
+        RewardTransaction transaction;
+        while ((transaction = pending.poll()) != null) {
+            batch.add(transaction);
+            if (batch.size() >= BATCH_SIZE) {
+                if (!insert(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch);
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private int apply(Integer userId, Currency currency, int delta, String reason) {
+        RewardTransaction transaction = new RewardTransaction();
+        transaction.setUserId(userId);
+        transaction.setCurrency(currency.code);
+        transaction.setAmount(delta);
+        transaction.setReason(reason);
+
+        int updated = currency == Currency.FUEL
+                ? userMapper.applyFuelDelta(transaction)
+                : userMapper.applyKnowledgeDustDelta(transaction);
+        if (updated == 0) {
+            // 缓存的余额可能已经过时，按数据库重新加载后给出提示
+            invalidate(userId);
+            Balances current = getBalances(userId);
+            if (current == null) {
+                throw new RuntimeException("用户不存在");
+            }
+            throw new InsufficientBalanceException(currency.label + "不足，需要 " + (-delta) + " 点" + currency.label +
+                    "，当前只有 " + current.get(currency) + " 点");
+        }
+
+        afterCommit(() -> {
+            invalidate(userId);
+            pending.add(transaction);
+        });
+        return transaction.getBalanceAfter();
+    }
+
+    private void invalidate(Integer userId) {
+        versions.incrementAndGet(stripe(userId));
+        balances.remove(userId);
+    }
+
+    private boolean insert(List<RewardTransaction> batch) {
+        try {
+            rewardTransactionMapper.insertBatch(batch);
+            return true;
+        } catch (Exception e) {
+            // 未写入的流水放回队列，下次重试
+            logger.error("写入奖励流水失败，{}条待重试", batch.size(), e);
+            pending.addAll(batch);
+            return false;
+        }
+    }
+
+    private static int stripe(Integer userId) {
+        return Math.floorMod(userId, STRIPES);
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.example1.demo2.service.impl;
 
-import com.example1.demo2.mapper.UserMapper;
-import com.example1.demo2.pojo.User;
+import com.example1.demo2.exception.InsufficientBalanceException;
 import com.example1.demo2.service.IRewardService;
+import com.example1.demo2.service.impl.RewardLedger.Balances;
+import com.example1.demo2.service.impl.RewardLedger.Currency;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +15,7 @@ import java.util.Map;
 
 /**
  * 奖励系统服务实现类
- * 处理用户燃料值和知识星云值的增减逻辑
+ * 处理用户燃料值和知识星云值的增减逻辑，增减由奖励账本原子完成并记录流水
  */
 @Service
 public class RewardService implements IRewardService {
@@ -22,7 +23,7 @@ public class RewardService implements IRewardService {
     private static final Logger logger = LoggerFactory.getLogger(RewardService.class);
 
     @Autowired
-    private UserMapper userMapper;
+    private RewardLedger rewardLedger;
 
     // 奖励和消耗的常量定义，便于后期调整
     private static final int PLANET_CREATION_FUEL_REWARD = 20;
@@ -33,17 +34,8 @@ public class RewardService implements IRewardService {
     @Override
     @Transactional
     public Integer rewardForPlanetCreation(Integer userId) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new RuntimeException("用户不存在");
-        }
-
         // 增加燃料值
-        Integer currentFuel = user.getFuelValue() != null ? user.getFuelValue() : 0;
-        Integer newFuel = currentFuel + PLANET_CREATION_FUEL_REWARD;
-
-        // 调用mapper更新燃料值
-        userMapper.updateFuelValue(userId, newFuel);
+        int newFuel = rewardLedger.credit(userId, Currency.FUEL, PLANET_CREATION_FUEL_REWARD, "planet_creation");
 
         logger.info("用户 {} 创建星球，获得 {} 燃料值，当前燃料值: {}",
                 userId, PLANET_CREATION_FUEL_REWARD, newFuel);
@@ -52,23 +44,10 @@ public class RewardService implements IRewardService {
     }
 
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = InsufficientBalanceException.class)
     public Integer consumeForPlanetAccess(Integer userId) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new RuntimeException("用户不存在");
-        }
-
-        // 检查燃料值是否足够
-        Integer currentFuel = user.getFuelValue() != null ? user.getFuelValue() : 0;
-        if (currentFuel < PLANET_ACCESS_FUEL_COST) {
-            throw new RuntimeException("燃料值不足，需要 " + PLANET_ACCESS_FUEL_COST +
-                    " 点燃料值，当前只有 " + currentFuel + " 点");
-        }
-
-        // 扣除燃料值
-        Integer newFuel = currentFuel - PLANET_ACCESS_FUEL_COST;
-        userMapper.updateFuelValue(userId, newFuel);
+        // 扣除燃料值，不足时抛出异常；余额不足时没有修改数据，不把调用方的事务标记为回滚
+        int newFuel = rewardLedger.debit(userId, Currency.FUEL, PLANET_ACCESS_FUEL_COST, "planet_access");
 
         logger.info("用户 {} 访问星球，消耗 {} 燃料值，剩余燃料值: {}",
                 userId, PLANET_ACCESS_FUEL_COST, newFuel);
@@ -79,16 +58,9 @@ public class RewardService implements IRewardService {
     @Override
     @Transactional
     public Integer rewardForComment(Integer userId, boolean isGalaxy) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new RuntimeException("用户不存在");
-        }
-
         // 增加知识星云值
-        Integer currentDust = user.getKnowledgeDust() != null ? user.getKnowledgeDust() : 0;
-        Integer newDust = currentDust + COMMENT_KNOWLEDGE_DUST_REWARD;
-
-        userMapper.updateKnowledgeDust(userId, newDust);
+        int newDust = rewardLedger.credit(userId, Currency.KNOWLEDGE_DUST, COMMENT_KNOWLEDGE_DUST_REWARD,
+                isGalaxy ? "galaxy_comment" : "planet_comment");
 
         String commentType = isGalaxy ? "星系" : "星球";
         logger.info("用户 {} 在{}发表评论，获得 {} 知识星云值，当前知识星云值: {}",
@@ -98,23 +70,11 @@ public class RewardService implements IRewardService {
     }
 
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = InsufficientBalanceException.class)
     public Integer consumeForGalaxyCreation(Integer userId) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new RuntimeException("用户不存在");
-        }
-
-        // 检查知识星云值是否足够
-        Integer currentDust = user.getKnowledgeDust() != null ? user.getKnowledgeDust() : 0;
-        if (currentDust < GALAXY_CREATION_KNOWLEDGE_DUST_COST) {
-            throw new RuntimeException("知识星云值不足，需要 " + GALAXY_CREATION_KNOWLEDGE_DUST_COST +
-                    " 点知识星云值，当前只有 " + currentDust + " 点");
-        }
-
-        // 扣除知识星云值
-        Integer newDust = currentDust - GALAXY_CREATION_KNOWLEDGE_DUST_COST;
-        userMapper.updateKnowledgeDust(userId, newDust);
+        // 扣除知识星云值，不足时抛出异常
+        int newDust = rewardLedger.debit(userId, Currency.KNOWLEDGE_DUST, GALAXY_CREATION_KNOWLEDGE_DUST_COST,
+                "galaxy_creation");
 
         logger.info("用户 {} 创建星系，消耗 {} 知识星云值，剩余知识星云值: {}",
                 userId, GALAXY_CREATION_KNOWLEDGE_DUST_COST, newDust);
@@ -124,37 +84,27 @@ public class RewardService implements IRewardService {
 
     @Override
     public boolean hasSufficientFuel(Integer userId, Integer requiredAmount) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            return false;
-        }
-
-        Integer currentFuel = user.getFuelValue() != null ? user.getFuelValue() : 0;
-        return currentFuel >= requiredAmount;
+        Balances balances = rewardLedger.getBalances(userId);
+        return balances != null && balances.fuelValue() >= requiredAmount;
     }
 
     @Override
     public boolean hasSufficientKnowledgeDust(Integer userId, Integer requiredAmount) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            return false;
-        }
-
-        Integer currentDust = user.getKnowledgeDust() != null ? user.getKnowledgeDust() : 0;
-        return currentDust >= requiredAmount;
+        Balances balances = rewardLedger.getBalances(userId);
+        return balances != null && balances.knowledgeDust() >= requiredAmount;
     }
 
     @Override
     public Map<String, Integer> getUserRewardInfo(Integer userId) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
+        Balances balances = rewardLedger.getBalances(userId);
+        if (balances == null) {
             throw new RuntimeException("用户不存在");
         }
 
         Map<String, Integer> rewardInfo = new HashMap<>();
-        rewardInfo.put("fuelValue", user.getFuelValue() != null ? user.getFuelValue() : 0);
-        rewardInfo.put("knowledgeDust", user.getKnowledgeDust() != null ? user.getKnowledgeDust() : 0);
+        rewardInfo.put("fuelValue", balances.fuelValue());
+        rewardInfo.put("knowledgeDust", balances.knowledgeDust());
 
         return rewardInfo;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.example1.demo2.service.impl;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 跨节点共享的去重存储
+ * 当前是进程内的本地替身实现，语义与 Redis 的 SET key NX PX ttl 一致，
+ * 多节点部署时替换本类的实现即可，调用方无需改动
+ */
+@Service
+public class SharedDedupStore {
+
+    // 最多保留的键数，达到上限时先清理过期键，仍然超出时淘汰最早到期的键，降到上限的3/4
+    private static final int MAX_KEYS = 100000;
+
+    private final Map<String, Long> expireAt = new ConcurrentHashMap<>();
+
+    /**
+     * 键不存在（或已过期）时写入并返回true，已存在返回false
+     */
+    public boolean putIfAbsent(String key, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        if (expireAt.size() >= MAX_KEYS) {
+            evict(now);
+        }
+        boolean[] added = {false};
+        expireAt.compute(key, (k, expire) -> {
+            if (expire == null || expire <= now) {
+                added[0] = true;
+                return now + ttlMillis;
+            }
+            return expire;
+        });
+        return added[0];
+    }
+
+    /**
+     * 键是否存在且未过期
+     */
+    public boolean contains(String key) {
+        Long expire = expireAt.get(key);
+        return expire != null && expire > System.currentTimeMillis();
+    }
+
+    /**
+     * 删除键（对应 DEL key），占用后发送失败时释放
+     */
+    public void remove(String key) {
+        expireAt.remove(key);
+    }
+
+    /**
+     * 先清理过期键；都未过期时淘汰最早到期（即最早写入）的键，被淘汰的键相当于提前过期
+     */
+    private synchronized void evict(long now) {
+        expireAt.values().removeIf(expire -> expire <= now);
+        int excess = expireAt.size() - MAX_KEYS * 3 / 4;
+        if (excess <= 0) {
+            return;
+        }
+        long[] expires = expireAt.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        long threshold = expires[Math.min(excess, expires.length) - 1];
+        Iterator<Map.Entry<String, Long>> iterator = expireAt.entrySet().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().getValue() <= threshold) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+}
@@ -32,6 +32,12 @@ public class SystemAdminService implements ISystemAdminService {
     @Autowired
     private INotificationService notificationService;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private AuthRevocationGate authRevocationGate;
+
     @Override
     public boolean isSystemAdmin(Integer userId) {
         return systemAdminMapper.isSystemAdmin(userId);
@@ -143,6 +149,8 @@ public class SystemAdminService implements ISystemAdminService {
 
         // 封禁用户
         userMapper.banUser(userId);
+        userDirectory.refresh(userId);
+        authRevocationGate.blockUser(userId);
 
         // 发送通知
         notificationService.sendSystemNotification(
@@ -169,6 +177,8 @@ public class SystemAdminService implements ISystemAdminService {
 
         // 解封用户
         userMapper.unbanUser(userId);
+        userDirectory.refresh(userId);
+        authRevocationGate.unblockUser(userId);
 
         // 发送通知
         notificationService.sendSystemNotification(
@@ -0,0 +1,99 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.pojo.dto.UserPrincipal;
+import com.example1.demo2.util.JWTUtil;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌解析缓存
+ * 同一个令牌在有效期内会随每个请求反复出现，验签和解析载荷的结果按令牌摘要缓存，
+ * 命中时只检查是否过期；缓存的主体在令牌过期时失效，条目数有上限
+ */
+@Service
+public class TokenPrincipalCache {
+
+    // 缓存的令牌数上限
+    private static final int MAX_ENTRIES = 10000;
+
+    // 令牌摘要 -> 解析结果
+    private final Map<String, UserPrincipal> principals = new ConcurrentHashMap<>();
+
+    // 判断缓存的令牌是否过期所用的时钟
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * 验证令牌并返回登录主体
+     * @throws RuntimeException 令牌无效或已过期
+     */
+    public UserPrincipal authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new RuntimeException("缺少令牌");
+        }
+        String key = digest(token);
+        long now = clock.millis();
+        UserPrincipal principal = principals.get(key);
+        if (principal != null) {
+            if (!principal.isExpired(now)) {
+                return principal;
+            }
+            principals.remove(key, principal);
+            throw new RuntimeException("令牌已过期");
+        }
+        principal = JWTUtil.ParsePrincipal(token);
+        if (principals.size() >= MAX_ENTRIES) {
+            evict(now);
+        }
+        principals.put(key, principal);
+        return principal;
+    }
+
+    /**
+     * 清除某个用户的所有缓存令牌，下次请求重新验签
+     */
+    public void invalidateUser(Integer userId) {
+        principals.values().removeIf(principal -> principal.getUserId().equals(userId));
+    }
+
+    /**
+     * 当前缓存的令牌数
+     */
+    public int size() {
+        return principals.size();
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 先清掉已过期的令牌，仍然超过上限时再任意淘汰一部分，被淘汰的令牌下次重新解析即可
+     */
+    private void evict(long now) {
+        principals.values().removeIf(principal -> principal.isExpired(now));
+        Iterator<String> keys = principals.keySet().iterator();
+        int excess = principals.size() - MAX_ENTRIES * 3 / 4;
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * 缓存键用令牌的SHA-256摘要，不在内存中保留令牌原文
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 用户批量加载器
+ * 把结果映射过程中收集到的用户ID合并成一次 IN 查询，
+ * 并在一次HTTP请求内缓存已加载的用户，避免同一用户被重复查询
+ */
+@Service
+public class UserDataLoader {
+
+    // 请求级缓存，由登录拦截器在请求开始时开启、结束时清理
+    private static final ThreadLocal<Map<Integer, User>> REQUEST_CACHE = new ThreadLocal<>();
+
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * 开启当前线程的请求级缓存
+     */
+    public void open() {
+        REQUEST_CACHE.set(new HashMap<>());
+    }
+
+    /**
+     * 清理当前线程的请求级缓存，防止内存泄漏
+     */
+    public void close() {
+        REQUEST_CACHE.remove();
+    }
+
+    /**
+     * 批量加载用户
+     * 已在本次请求中加载过的用户直接从缓存返回，其余用户一次查询取回
+     * @param userIds 用户ID集合（可包含null和重复值）
+     * @return 用户ID到用户的映射，不存在的用户不会出现在结果中
+     */
+    public Map<Integer, User> loadMany(Collection<Integer> userIds) {
+        Map<Integer, User> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        Map<Integer, User> cache = REQUEST_CACHE.get();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            User cached = cache != null ? cache.get(userId) : null;
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (User user : userMapper.findByIds(new ArrayList<>(missing))) {
+                result.put(user.getUserId(), user);
+                if (cache != null) {
+                    cache.put(user.getUserId(), user);
+                }
+            }
+        }
+        return result;
+    }
+}
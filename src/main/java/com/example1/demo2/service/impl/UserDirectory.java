@@ -0,0 +1,314 @@
+package com.example1.demo2.service.impl;
+
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.util.BloomFilter;
+import com.example1.demo2.util.IntBitmap;
+import com.example1.demo2.util.NGramIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 用户目录
+ * 内存中维护昵称和邮箱的N元组索引（好友搜索）、昵称和邮箱到用户ID的精确映射（注册、改昵称、改邮箱时的查重），
+ * 查重前先查布隆过滤器，判定"一定未被占用"时直接返回。
+ * 注册、修改昵称或邮箱、封禁、注销后同步；启动加载完成前回退到数据库查询
+ */
+@Service
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    // 布隆过滤器的误判率
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // 布隆过滤器的最小容量
+    private static final int MIN_CAPACITY = 10000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    private final NGramIndex nicknames = new NGramIndex();
+    private final NGramIndex emails = new NGramIndex();
+
+    // 规范化的昵称/邮箱 -> 用户ID
+    private final Map<String, Integer> byNickname = new HashMap<>();
+    private final Map<String, Integer> byEmail = new HashMap<>();
+
+    // 用户ID -> 昵称和邮箱，用于修改和删除时清理
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    // 被封禁的用户，不出现在搜索结果中
+    private final IntBitmap banned = new IntBitmap();
+
+    // 昵称和邮箱（加前缀区分）共用一个布隆过滤器
+    private BloomFilter taken = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+    private int capacity = MIN_CAPACITY;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    private ExecutorService loader;
+
+    private record Entry(String nickname, String email) {
+    }
+
+    @PostConstruct
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-directory-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.submit(this::load);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 昵称是否已被占用
+     */
+    public boolean isNicknameTaken(String nickname) {
+        if (!loaded) {
+            return userMapper.findByNickname(nickname) != null;
+        }
+        return isTaken("n:", byNickname, nickname);
+    }
+
+    /**
+     * 邮箱是否已被绑定
+     */
+    public boolean isEmailTaken(String email) {
+        if (!loaded) {
+            return userMapper.findByEmail(email) != null;
+        }
+        return isTaken("e:", byEmail, email);
+    }
+
+    /**
+     * 按昵称或邮箱搜索未被封禁的用户（用于添加好友）
+     * @param excludeUserId 排除的用户（当前用户自己）
+     * @return 用户列表，按用户ID升序
+     */
+    public List<User> search(String keyword, Integer excludeUserId, int limit) {
+        if (!loaded) {
+            return userMapper.searchUsers(keyword, excludeUserId, limit);
+        }
+        TreeSet<Integer> matched = new TreeSet<>();
+        lock.readLock().lock();
+        try {
+            nicknames.search(keyword, userId -> {
+                if (!banned.contains(userId) && (excludeUserId == null || userId != excludeUserId)) {
+                    matched.add(userId);
+                }
+            });
+            emails.search(keyword, userId -> {
+                if (!banned.contains(userId) && (excludeUserId == null || userId != excludeUserId)) {
+                    matched.add(userId);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Integer> userIds = new ArrayList<>();
+        for (Integer userId : matched) {
+            if (userIds.size() >= limit) {
+                break;
+            }
+            userIds.add(userId);
+        }
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, User> rows = new HashMap<>();
+        for (User user : userMapper.findByIds(userIds)) {
+            rows.put(user.getUserId(), user);
+        }
+        List<User> users = new ArrayList<>();
+        for (Integer userId : userIds) {
+            User user = rows.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 用户注册后调用，有事务时挂到事务提交之后
+     */
+    public void onRegistered(String nickname) {
+        afterCommit(() -> {
+            User user = userMapper.findByNickname(nickname);
+            if (user != null) {
+                update(user);
+            }
+        });
+    }
+
+    /**
+     * 用户昵称、邮箱或状态变化后调用，有事务时挂到事务提交之后
+     */
+    public void refresh(Integer userId) {
+        afterCommit(() -> {
+            User user = userMapper.findById(userId);
+            if (user != null) {
+                update(user);
+            } else {
+                delete(userId);
+            }
+        });
+    }
+
+    /**
+     * 用户注销后调用，有事务时挂到事务提交之后
+     */
+    public void remove(Integer userId) {
+        afterCommit(() -> delete(userId));
+    }
+
+    /**
+     * 与数据库默认排序规则一致：不区分大小写，忽略末尾空格
+     */
+    private static String normalize(String value) {
+        return value == null ? "" : value.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private boolean isTaken(String prefix, Map<String, Integer> exact, String value) {
+        String key = normalize(value);
+        lock.readLock().lock();
+        try {
+            if (!taken.mightContain(prefix + key)) {
+                return false;
+            }
+            return exact.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(User user) {
+        lock.writeLock().lock();
+        try {
+            put(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void delete(Integer userId) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(User user) {
+        int userId = user.getUserId();
+        removeEntry(userId);
+        Entry entry = new Entry(normalize(user.getNickname()), normalize(user.getEmail()));
+        entries.put(userId, entry);
+        if (!entry.nickname().isEmpty()) {
+            byNickname.put(entry.nickname(), userId);
+            nicknames.put(userId, entry.nickname());
+            markTaken("n:" + entry.nickname());
+        }
+        if (!entry.email().isEmpty()) {
+            byEmail.put(entry.email(), userId);
+            emails.put(userId, entry.email());
+            markTaken("e:" + entry.email());
+        }
+        if (user.getStatus() != null && user.getStatus() != 0) {
+            banned.add(userId);
+        }
+    }
+
+    private void removeEntry(int userId) {
+        Entry entry = entries.remove(userId);
+        if (entry == null) {
+            return;
+        }
+        // 布隆过滤器不支持删除，旧值由精确映射兜底
+        byNickname.remove(entry.nickname(), userId);
+        byEmail.remove(entry.email(), userId);
+        nicknames.remove(userId);
+        emails.remove(userId);
+        banned.remove(userId);
+    }
+
+    private void markTaken(String key) {
+        // 插入数超过容量后误判率上升，按当前数据加倍容量重建
+        if (taken.count() >= capacity) {
+            capacity = Math.max(MIN_CAPACITY, entries.size() * 2);
+            taken = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+            for (Entry entry : entries.values()) {
+                taken.put("n:" + entry.nickname());
+                taken.put("e:" + entry.email());
+            }
+        }
+        taken.put(key);
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 启动时加载所有用户的昵称、邮箱和状态
+     */
+    private void load() {
+        try {
+            List<User> users = userMapper.getDirectoryRows();
+            lock.writeLock().lock();
+            try {
+                capacity = Math.max(MIN_CAPACITY, users.size() * 2);
+                taken = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+                for (Entry entry : entries.values()) {
+                    taken.put("n:" + entry.nickname());
+                    taken.put("e:" + entry.email());
+                }
+                for (User user : users) {
+                    // 加载期间已被增量更新的用户以增量结果为准
+                    if (!entries.containsKey(user.getUserId())) {
+                        put(user);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            logger.info("用户目录已加载，共{}个用户", users.size());
+        } catch (Exception e) {
+            logger.error("加载用户目录失败，查重和搜索回退到数据库查询", e);
+        }
+    }
+}
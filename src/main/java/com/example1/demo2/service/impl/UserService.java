@@ -4,10 +4,10 @@ import com.example1.demo2.mapper.*;
 import com.example1.demo2.pojo.KnowledgeGalaxy;
 import com.example1.demo2.pojo.KnowledgePlanet;
 import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.IBadgeCountService;
 import com.example1.demo2.service.IGalaxyService;
 import com.example1.demo2.service.IPlanetService;
 import com.example1.demo2.service.IUserService;
-import com.example1.demo2.util.BCryptUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
@@ -43,9 +43,36 @@ public class UserService implements IUserService {
     @Autowired
     private NotificationMapper notificationMapper;
 
+    @Autowired
+    private NotificationReadMarkMapper readMarkMapper;
+
     @Autowired
     private GalaxyAdministratorMapper galaxyAdministratorMapper;
 
+    @Autowired
+    private PlanetTitleIndex planetTitleIndex;
+
+    @Autowired
+    private GalaxyDirectory galaxyDirectory;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+
+    @Autowired
+    private AuthRevocationGate authRevocationGate;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private IBadgeCountService badgeCountService;
+
     // 使用 @Lazy 避免循环依赖
     @Autowired
     @Lazy
@@ -65,6 +92,16 @@ public class UserService implements IUserService {
         return userMapper.findByEmail(Email);
     }
 
+    @Override
+    public boolean isNicknameTaken(String nickname) {
+        return userDirectory.isNicknameTaken(nickname);
+    }
+
+    @Override
+    public boolean isEmailTaken(String email) {
+        return userDirectory.isEmailTaken(email);
+    }
+
 
     /**
      * 删除用户 - 实现完整的级联删除
@@ -138,14 +175,17 @@ public class UserService implements IUserService {
         galaxyCommentMapper.deleteLikesByUserId(userId);
         planetCommentMapper.deleteLikesByUserId(userId);
 
-        // 8. 删除用户的好友关系
+        // 8. 删除用户的好友关系；用户发出的待处理请求随之消失，接收者的好友请求数在提交后重建
+        List<Integer> pendingReceiverIds = friendMapper.getPendingReceiverIds(userId);
         friendMapper.deleteAllFriendshipsByUserId(userId);
+        pendingReceiverIds.forEach(badgeCountService::invalidate);
 
         // 9. 删除用户的私信记录
         privateMessageMapper.deleteMessagesByUserId(userId);
 
         // 10. 删除用户的通知记录
         notificationMapper.deleteNotificationsByUserId(userId);
+        readMarkMapper.deleteMarksByUserId(userId);
 
         // 11. 删除用户作为管理员的记录
         galaxyAdministratorMapper.deleteAdminRecordsByUserId(userId);
@@ -155,27 +195,59 @@ public class UserService implements IUserService {
 
         // 13. 最后删除用户本身
         userMapper.delete(userId);
+        userDirectory.remove(userId);
+        authRevocationGate.blockUser(userId);
+        badgeCountService.invalidate(userId);
     }
 
     @Override
     public User findById(Integer userId) {
-        return userMapper.findById(userId);
+        User user = userMapper.findById(userId);
+        if (user != null) {
+            // 最后登录时间可能还没写回数据库
+            user.setLastLoginTime(lastLoginRecorder.getLastLoginTime(userId, user.getLastLoginTime()));
+        }
+        return user;
     }
 
     @Override
     public void updatenickname(String nickname,Integer userId) {
         userMapper.updatenickname(nickname,userId);
+        userDirectory.refresh(userId);
     }
 
     @Override
     public void updatelastLoginTime(Integer userId) {
-        userMapper.updatelastLoginTime(userId);
+        // 只记在内存中，由后台定期批量写回
+        lastLoginRecorder.record(userId);
+    }
+
+    @Override
+    public boolean checkPassword(User user, String rawPassword) {
+        if (user == null || user.getPassword() == null || rawPassword == null) {
+            return false;
+        }
+        if (!passwordHasher.verify(rawPassword, user.getPassword())) {
+            return false;
+        }
+        // 强度配置变化后，旧密码在登录成功时按新强度重新哈希，不阻塞本次请求
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            Integer userId = user.getUserId();
+            String oldHash = user.getPassword();
+            passwordHasher.rehash(rawPassword, newHash -> userMapper.rehashpassword(newHash, userId, oldHash));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean logout(String token) {
+        return authRevocationGate.revokeToken(tokenPrincipalCache.authenticate(token));
     }
 
     @Override
     public void updatepassword(String newpassword, Integer userId) {
         // 对新密码进行哈希处理
-        String passwordHash = BCryptUtil.hashPassword(newpassword);
+        String passwordHash = passwordHasher.hash(newpassword);
         // 将哈希后的密码传递给 mapper，而不是原始密码
         userMapper.updatepassword(passwordHash, userId);
     }
@@ -183,6 +255,7 @@ public class UserService implements IUserService {
     @Override
     public void updateemail(String email, Integer userId) {
         userMapper.updateemail(email,userId);
+        userDirectory.refresh(userId);
     }
 
     @Override
@@ -202,6 +275,9 @@ public class UserService implements IUserService {
 
     @Override
     public List<String> searchPlanetIds(String keyword, Integer userId) {
+        if (planetTitleIndex.isReady()) {
+            return planetTitleIndex.search(keyword, false, userId, Integer.MAX_VALUE);
+        }
         return planetMapper.searchIdsByKeyword(keyword,userId);
     }
 
@@ -218,7 +294,7 @@ public class UserService implements IUserService {
     @Override
     public KnowledgeGalaxy GetGalaxyByName(String name) {
         //模糊搜索星系名字
-        List<KnowledgeGalaxy> galaxies = galaxyMapper.searchByName(name);
+        List<KnowledgeGalaxy> galaxies = galaxyDirectory.search(name, null, null, null);
         if (galaxies != null && !galaxies.isEmpty()) {
             return galaxies.get(0); // 返回第一个匹配的星系
         }
@@ -231,13 +307,13 @@ public class UserService implements IUserService {
     }
 
     @Override
-    public List<KnowledgeGalaxy> GetGalaxiesByNameAndCreatorId(String name, Integer userId) {
-        return galaxyMapper.searchByNameAndCreatorId(name, userId);
+    public List<KnowledgeGalaxy> GetGalaxiesByNameAndCreatorId(String name, Integer userId, List<String> labels) {
+        return galaxyDirectory.search(name, labels, userId, null);
     }
 
     @Override
-    public List<KnowledgeGalaxy> GetGalaxiesByNameExcludeUser(String name, Integer userId) {
-        return galaxyMapper.searchByNameExcludeUser(name, userId);
+    public List<KnowledgeGalaxy> GetGalaxiesByNameExcludeUser(String name, Integer userId, List<String> labels) {
+        return galaxyDirectory.search(name, labels, null, userId);
     }
 
     @Override
@@ -257,9 +333,10 @@ public class UserService implements IUserService {
     @Override
     public void register(String nickname, String password,String email) {
         //加密处理
-        String passwordHash= BCryptUtil.hashPassword(password);
+        String passwordHash= passwordHasher.hash(password);
         //添加
         userMapper.add(nickname,passwordHash,email);
+        userDirectory.onRegistered(nickname);
     }
 
 
@@ -1,58 +1,127 @@
 package com.example1.demo2.service.impl;
 
+import com.example1.demo2.pojo.Announcement;
 import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.dto.UserPrincipal;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket实时通知服务
  * 用于推送实时通知给在线用户
+ * 接收者不在线时直接跳过，不做任何序列化；同一用户短时间内的多条通知合并为一帧，
+ * 每个节拍推送一次，由 convertAndSendToUser 投递到该用户的所有会话
  */
 @Service
 public class WebSocketNotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketNotificationService.class);
 
+    // 合并推送的节拍（毫秒）
+    private static final long TICK_MILLIS = 200;
+
+    // 用户专属的推送地址，前端订阅 /user/queue/notifications
+    private static final String USER_DESTINATION = "/queue/notifications";
+
     @Autowired(required = false)
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    // 存储用户在线状态
-    private final Map<Integer, String> onlineUsers = new ConcurrentHashMap<>();
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    // 用户ID -> 本节拍内待推送的通知
+    private final Map<Integer, List<Map<String, Object>>> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "websocket-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::flush, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdown();
+        flush();
+    }
 
     /**
      * 发送实时通知给指定用户
+     * 只登记到本节拍的待推送队列，由节拍线程合并推送
      */
     public void sendRealtimeNotification(Integer userId, Notification notification) {
         if (messagingTemplate == null) {
             logger.debug("WebSocket未配置，跳过实时推送");
             return;
         }
+        if (!sessionRegistry.isOnline(userId)) {
+            // 不在线的用户下次打开通知列表时自然能看到
+            return;
+        }
+        Map<String, Object> payload = toPayload(notification);
+        pending.compute(userId, (key, list) -> {
+            if (list == null) {
+                list = new ArrayList<>();
+            }
+            list.add(payload);
+            return list;
+        });
+    }
+
+    /**
+     * 批量推送实时通知，每条通知推送给其接收者
+     */
+    public void sendRealtimeNotifications(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            sendRealtimeNotification(notification.getReceiver().getUserId(), notification);
+        }
+    }
+
+    /**
+     * 推送全站公告
+     * 所有在线用户订阅同一个主题，一条公告只推送一次
+     */
+    public void sendAnnouncement(Announcement announcement) {
+        if (messagingTemplate == null) {
+            logger.debug("WebSocket未配置，跳过公告推送");
+            return;
+        }
 
         try {
-            // 构建通知消息
             Map<String, Object> message = new HashMap<>();
-            message.put("type", "notification");
-            message.put("data", notification);
+            message.put("type", "announcement");
+            message.put("data", announcement);
             message.put("timestamp", System.currentTimeMillis());
 
-            // 推送到用户专属通道
-            String destination = "/user/" + userId + "/notifications";
-            messagingTemplate.convertAndSend(destination, message);
+            messagingTemplate.convertAndSend("/topic/announcements", message);
 
-            logger.info("实时通知已推送给用户: {}", userId);
+            logger.info("全站公告已推送: {}", announcement.getAnnouncementId());
         } catch (Exception e) {
-            logger.error("推送实时通知失败", e);
+            logger.error("推送全站公告失败", e);
         }
     }
 
@@ -60,29 +129,104 @@ public class WebSocketNotificationService {
      * 用户上线
      */
     public void userOnline(Integer userId, String sessionId) {
-        onlineUsers.put(userId, sessionId);
-        logger.info("用户 {} 上线，会话ID: {}", userId, sessionId);
+        if (sessionRegistry.register(userId, sessionId)) {
+            logger.info("用户 {} 上线，会话ID: {}", userId, sessionId);
+        }
     }
 
     /**
-     * 用户下线
+     * 会话关闭，用户的最后一个会话关闭时下线
      */
-    public void userOffline(Integer userId) {
-        onlineUsers.remove(userId);
-        logger.info("用户 {} 下线", userId);
+    public void sessionClosed(String sessionId) {
+        Integer userId = sessionRegistry.unregister(sessionId);
+        if (userId != null && !sessionRegistry.isOnline(userId)) {
+            pending.remove(userId);
+            logger.info("用户 {} 下线", userId);
+        }
+    }
+
+    /**
+     * CONNECT认证通过后登记会话
+     */
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        if (event.getUser() instanceof UserPrincipal principal) {
+            userOnline(principal.getUserId(), SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders()));
+        }
+    }
+
+    /**
+     * 连接断开（包括异常断开）时清理会话
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        sessionClosed(event.getSessionId());
     }
 
     /**
      * 检查用户是否在线
      */
     public boolean isUserOnline(Integer userId) {
-        return onlineUsers.containsKey(userId);
+        return sessionRegistry.isOnline(userId);
     }
 
     /**
      * 获取在线用户数
      */
     public int getOnlineUserCount() {
-        return onlineUsers.size();
+        return sessionRegistry.getOnlineUserCount();
+    }
+
+    // ==================== 合并推送 ====================
+
+    /**
+     * 把每个用户本节拍内的通知合并为一帧，推送到该用户的所有会话
+     */
+    private void flush() {
+        for (Integer userId : new ArrayList<>(pending.keySet())) {
+            List<Map<String, Object>> batch = pending.remove(userId);
+            if (batch == null || batch.isEmpty()) {
+                continue;
+            }
+            try {
+                Map<String, Object> message = new HashMap<>();
+                message.put("type", "notification");
+                message.put("data", batch);
+                message.put("count", batch.size());
+                message.put("timestamp", System.currentTimeMillis());
+
+                messagingTemplate.convertAndSendToUser(String.valueOf(userId), USER_DESTINATION, message);
+                logger.debug("实时通知已推送给用户: {}，共{}条", userId, batch.size());
+            } catch (Exception e) {
+                logger.error("推送实时通知失败", e);
+            }
+        }
+    }
+
+    /**
+     * 推送给前端的精简通知，不带嵌套的用户实体
+     */
+    private Map<String, Object> toPayload(Notification notification) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("notificationId", notification.getNotificationId());
+        payload.put("type", notification.getType());
+        payload.put("title", notification.getTitle());
+        payload.put("content", notification.getContent());
+        payload.put("targetType", notification.getTargetType());
+        payload.put("targetId", notification.getTargetId());
+        payload.put("createTime", notification.getCreateTime());
+        if (notification.getSender() != null) {
+            payload.put("senderId", notification.getSender().getUserId());
+            payload.put("senderName", notification.getSender().getNickname());
+            payload.put("senderAvatar", notification.getSender().getAvatarUrl());
+        }
+        if (notification.getExtraData() != null) {
+            try {
+                payload.put("extraData", objectMapper.readValue(notification.getExtraData(), Map.class));
+            } catch (Exception e) {
+                logger.error("解析额外数据失败", e);
+            }
+        }
+        return payload;
     }
-}
\ No newline at end of file
+}
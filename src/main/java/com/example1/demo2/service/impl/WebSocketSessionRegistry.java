@@ -0,0 +1,91 @@
+package com.example1.demo2.service.impl;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket会话注册表
+ * 一个用户可以同时有多个会话（多个标签页、多台设备），全部会话关闭后才算下线
+ */
+@Service
+public class WebSocketSessionRegistry {
+
+    // 用户ID -> 会话ID集合
+    private final Map<Integer, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    // 会话ID -> 用户ID，用于断开时反查
+    private final Map<String, Integer> userBySession = new ConcurrentHashMap<>();
+
+    /**
+     * 登记会话
+     * @return 是否是该用户的第一个会话（即刚上线）
+     */
+    public boolean register(Integer userId, String sessionId) {
+        Integer previous = userBySession.put(sessionId, userId);
+        if (previous != null && !previous.equals(userId)) {
+            removeSession(previous, sessionId);
+        }
+        boolean[] first = {false};
+        sessionsByUser.compute(userId, (key, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+        return first[0];
+    }
+
+    /**
+     * 注销会话
+     * @return 会话所属的用户ID，未登记过时返回null
+     */
+    public Integer unregister(String sessionId) {
+        Integer userId = userBySession.remove(sessionId);
+        if (userId != null) {
+            removeSession(userId, sessionId);
+        }
+        return userId;
+    }
+
+    /**
+     * 用户是否在线（至少有一个会话）
+     */
+    public boolean isOnline(Integer userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    /**
+     * 获取用户的所有会话ID
+     */
+    public Set<String> getSessions(Integer userId) {
+        Set<String> sessions = sessionsByUser.get(userId);
+        return sessions != null ? Collections.unmodifiableSet(sessions) : Collections.emptySet();
+    }
+
+    /**
+     * 在线用户数
+     */
+    public int getOnlineUserCount() {
+        return sessionsByUser.size();
+    }
+
+    /**
+     * 会话总数
+     */
+    public int getSessionCount() {
+        return userBySession.size();
+    }
+
+    private void removeSession(Integer userId, String sessionId) {
+        sessionsByUser.computeIfPresent(userId, (key, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
@@ -6,10 +6,31 @@ public class BCryptUtil {
     private static final int STRENGTH = 10;
 
     public static String hashPassword(String rawPassword) {
-        return BCrypt.hashpw(rawPassword, BCrypt.gensalt(STRENGTH));
+        return hashPassword(rawPassword, STRENGTH);
+    }
+
+    //按指定强度（工作因子）哈希
+    public static String hashPassword(String rawPassword, int strength) {
+        return BCrypt.hashpw(rawPassword, BCrypt.gensalt(strength));
     }
 
     public static boolean verifyPassword(String rawPassword, String hashedPassword) {
         return BCrypt.checkpw(rawPassword, hashedPassword);
     }
-}
\ No newline at end of file
+
+    //从哈希值（形如$2a$10$...）中取出强度，格式不对时返回-1
+    public static int getStrength(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int end = hashedPassword.indexOf('$', 1);
+        if (end < 0 || end + 3 > hashedPassword.length() || hashedPassword.charAt(end + 3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hashedPassword.substring(end + 1, end + 3));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example1.demo2.util;
+
+import java.nio.charset.StandardCharsets;
+
+//字符串布隆过滤器
+//mightContain返回false时一定不存在，返回true时可能存在（误判率由容量和位数决定）；
+//不支持删除，元素删除后仍会被判为可能存在，由调用方再做精确判断。
+//非线程安全，由调用方加锁
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+    private int count;
+
+    /**
+     * @param expectedInsertions 预计插入的元素数
+     * @param falsePositiveRate 期望的误判率，如0.01
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int expected = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+        this.bits = new long[(numBits + 63) >>> 6];
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            bits[index >>> 6] |= 1L << index;
+        }
+        count++;
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已插入的次数（含重复插入和已删除的元素）
+     */
+    public int count() {
+        return count;
+    }
+
+    //FNV-1a 64位哈希，再做一次混合，使高低32位都分布均匀
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
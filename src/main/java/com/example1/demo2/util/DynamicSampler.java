@@ -0,0 +1,164 @@
+package com.example1.demo2.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+//支持增删的随机抽样结构
+//元素紧凑存放在数组中，删除时用最后一个元素填补空位，等概率抽样是O(1)；
+//每个权重维度维护一棵树状数组（Fenwick树），按权重抽样和修改权重都是O(log n)。
+//非线程安全，由调用方加锁
+public class DynamicSampler<K> {
+
+    private final int dimensions;
+    private final Map<K, Integer> slots = new HashMap<>();
+    private Object[] keys;
+    // 每个维度每个位置的权重
+    private long[][] weights;
+    // 每个维度的树状数组，下标从1开始
+    private long[][] trees;
+    private int size;
+
+    /**
+     * @param dimensions 权重维度数
+     */
+    public DynamicSampler(int dimensions) {
+        this.dimensions = dimensions;
+        this.keys = new Object[16];
+        this.weights = new long[dimensions][16];
+        this.trees = new long[dimensions][17];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(K key) {
+        return slots.containsKey(key);
+    }
+
+    /**
+     * 加入元素，已存在时更新权重
+     * @param values 各维度的权重，不能为负
+     */
+    public void put(K key, long... values) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            if (size == keys.length) {
+                grow();
+            }
+            slot = size++;
+            keys[slot] = key;
+            slots.put(key, slot);
+        }
+        for (int d = 0; d < dimensions; d++) {
+            setWeight(d, slot, values[d]);
+        }
+    }
+
+    /**
+     * 在某一维度上累加权重
+     */
+    public void addWeight(K key, int dimension, long delta) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            setWeight(dimension, slot, Math.max(0, weights[dimension][slot] + delta));
+        }
+    }
+
+    public boolean remove(K key) {
+        Integer slot = slots.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        int last = --size;
+        if (slot != last) {
+            // 用最后一个元素填补空位
+            @SuppressWarnings("unchecked")
+            K moved = (K) keys[last];
+            keys[slot] = moved;
+            slots.put(moved, slot);
+            for (int d = 0; d < dimensions; d++) {
+                setWeight(d, slot, weights[d][last]);
+            }
+        }
+        keys[last] = null;
+        for (int d = 0; d < dimensions; d++) {
+            setWeight(d, last, 0);
+        }
+        return true;
+    }
+
+    /**
+     * 等概率抽取一个元素，为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public K sample(Random random) {
+        return size == 0 ? null : (K) keys[random.nextInt(size)];
+    }
+
+    /**
+     * 按某一维度的权重抽取一个元素，总权重为0时退化为等概率抽样
+     */
+    @SuppressWarnings("unchecked")
+    public K sampleWeighted(int dimension, Random random) {
+        long total = prefixSum(dimension, size);
+        if (total <= 0) {
+            return sample(random);
+        }
+        long target = (long) (random.nextDouble() * total);
+        // 在树状数组上二分：找到前缀和刚好超过target的位置
+        long[] tree = trees[dimension];
+        int position = 0;
+        for (int step = Integer.highestOneBit(keys.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= keys.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return (K) keys[Math.min(position, size - 1)];
+    }
+
+    private void setWeight(int dimension, int slot, long value) {
+        long delta = value - weights[dimension][slot];
+        if (delta == 0) {
+            return;
+        }
+        weights[dimension][slot] = value;
+        long[] tree = trees[dimension];
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefixSum(int dimension, int count) {
+        long sum = 0;
+        long[] tree = trees[dimension];
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 容量翻倍并重建树状数组
+     */
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        for (int d = 0; d < dimensions; d++) {
+            weights[d] = Arrays.copyOf(weights[d], capacity);
+            long[] tree = new long[capacity + 1];
+            for (int i = 1; i <= capacity; i++) {
+                tree[i] += weights[d][i - 1];
+                int parent = i + (i & -i);
+                if (parent <= capacity) {
+                    tree[parent] += tree[i];
+                }
+            }
+            trees[d] = tree;
+        }
+    }
+}
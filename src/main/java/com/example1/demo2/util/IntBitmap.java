@@ -0,0 +1,259 @@
+package com.example1.demo2.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+//压缩的整数集合（Roaring位图的简化实现）
+//按高16位分块，每块按稀疏程度选择容器：元素不超过4096个时用有序char数组，
+//超过后改用1024个long组成的位图（固定8KB），用户ID这类稀疏整数集合也只占很少内存。
+//非线程安全，由调用方加锁
+public class IntBitmap {
+
+    //数组容器的元素上限，超过后数组比位图更占内存
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    /**
+     * @return 是否新加入
+     */
+    public boolean add(int value) {
+        char key = high(value);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add(low(value));
+        return containers[index].cardinality() > before;
+    }
+
+    /**
+     * @return 是否确实移除
+     */
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, high(value));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        Container updated = container.remove(low(value));
+        if (updated.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = updated;
+        }
+        return updated.cardinality() < before;
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * 按升序遍历所有元素
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * 估算占用的内存字节数
+     */
+    public long getSizeInBytes() {
+        long bytes = 16 + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    //一个高16位分块内的低16位集合，add/remove可能转换容器类型，返回转换后的容器
+    private interface Container {
+        boolean contains(char value);
+
+        Container add(char value);
+
+        Container remove(char value);
+
+        int cardinality();
+
+        long sizeInBytes();
+
+        void forEach(int high, IntConsumer consumer);
+    }
+
+    //稀疏块：有序char数组
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int cardinality;
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality >= ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + values.length * 2L;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    //稠密块：65536位的位图
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long word = words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + words.length * 8L;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i * 64 + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private Container toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(cardinality, 4)];
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    array.values[array.cardinality++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
@@ -1,33 +1,52 @@
 package com.example1.demo2.util;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example1.demo2.pojo.dto.UserPrincipal;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 
 //jwt令牌解析工具
 public class JWTUtil {
     //固定密钥形式为Planet
     private static final String KEY = "Planet";
 
+    //签名算法和验证器都是线程安全的，只创建一次
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(KEY);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM).build();
+
     //生成Token
     public static String GenToken(Map<String, Object> claims) {
         //返回JWT代码
         return JWT.create()
                 .withClaim("claims",claims)//添加载荷
+                .withJWTId(UUID.randomUUID().toString())//令牌ID，退出登录时按ID吊销
                 .withExpiresAt(new Date(System.currentTimeMillis() + 1000*60*60*24))//过期时间24小时
-                .sign(Algorithm.HMAC256(KEY));
+                .sign(ALGORITHM);
     }
 
     //验证Token
     public static Map<String,Object> ParseToken(String token){
         //返回信息
-        return JWT.require(Algorithm.HMAC256(KEY))
-                .build()
-                .verify(token)
+        return VERIFIER.verify(token)
                 .getClaim("claims")
                 .asMap();
     }
 
+    //验证Token并解析为登录主体，令牌中没有用户ID时抛出异常
+    public static UserPrincipal ParsePrincipal(String token){
+        DecodedJWT jwt = VERIFIER.verify(token);
+        Map<String,Object> claims = jwt.getClaim("claims").asMap();
+        Object userId = claims != null ? claims.get("userId") : null;
+        if (!(userId instanceof Integer)) {
+            throw new IllegalArgumentException("令牌中没有用户ID");
+        }
+        long expiresAt = jwt.getExpiresAt() != null ? jwt.getExpiresAt().getTime() : Long.MAX_VALUE;
+        return new UserPrincipal((Integer) userId, claims, jwt.getId(), expiresAt);
+    }
+
 }
@@ -0,0 +1,125 @@
+package com.example1.demo2.util;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+//字符N元组倒排索引，用于中文标题这类无法按词切分的短文本的子串搜索
+//每条文本按1、2、3元组建立倒排表（倒排表用IntBitmap压缩存放），
+//查询时取关键词的最长可用元组，按倒排表从小到大求交集，再核对原文是否包含关键词；
+//另外按原文排序，支持前缀补全。文本统一转为小写，与数据库默认排序规则的大小写不敏感一致。
+//非线程安全，由调用方加锁
+public class NGramIndex {
+
+    //最长的元组长度
+    private static final int MAX_GRAM = 3;
+
+    //文档ID -> 规范化后的文本
+    private final Map<Integer, String> texts = new HashMap<>();
+
+    //元组 -> 包含该元组的文档
+    private final Map<String, IntBitmap> postings = new HashMap<>();
+
+    //规范化文本 -> 文档，用于前缀补全
+    private final TreeMap<String, IntBitmap> sorted = new TreeMap<>();
+
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * 加入或替换文档
+     */
+    public void put(int docId, String text) {
+        remove(docId);
+        String normalized = normalize(text);
+        texts.put(docId, normalized);
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, k -> new IntBitmap()).add(docId);
+        }
+        sorted.computeIfAbsent(normalized, k -> new IntBitmap()).add(docId);
+    }
+
+    public void remove(int docId) {
+        String normalized = texts.remove(docId);
+        if (normalized == null) {
+            return;
+        }
+        for (String gram : grams(normalized)) {
+            removeFrom(postings, gram, docId);
+        }
+        removeFrom(sorted, normalized, docId);
+    }
+
+    /**
+     * 查找文本包含关键词的文档，关键词为空时返回全部文档
+     */
+    public void search(String keyword, IntConsumer consumer) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            texts.keySet().forEach(consumer::accept);
+            return;
+        }
+
+        int n = Math.min(MAX_GRAM, query.length());
+        List<IntBitmap> lists = new ArrayList<>();
+        for (int i = 0; i + n <= query.length(); i++) {
+            IntBitmap list = postings.get(query.substring(i, i + n));
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(IntBitmap::getCardinality));
+
+        IntBitmap smallest = lists.get(0);
+        List<IntBitmap> others = lists.subList(1, lists.size());
+        smallest.forEach(docId -> {
+            for (IntBitmap other : others) {
+                if (!other.contains(docId)) {
+                    return;
+                }
+            }
+            // 关键词长于元组时，各元组都出现不代表整体连续出现，需要核对原文
+            if (query.length() <= n || texts.get(docId).contains(query)) {
+                consumer.accept(docId);
+            }
+        });
+    }
+
+    /**
+     * 查找文本以前缀开头的文档，按文本字典序
+     */
+    public void prefix(String prefix, IntConsumer consumer) {
+        String query = normalize(prefix);
+        if (query.isEmpty()) {
+            return;
+        }
+        for (IntBitmap docs : sorted.subMap(query, true, query + Character.MAX_VALUE, false).values()) {
+            docs.forEach(consumer);
+        }
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                grams.add(text.substring(i, i + n));
+            }
+        }
+        return grams;
+    }
+
+    private static void removeFrom(Map<String, IntBitmap> map, String key, int docId) {
+        IntBitmap docs = map.get(key);
+        if (docs != null) {
+            docs.remove(docId);
+            if (docs.getCardinality() == 0) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example1.demo2.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//按时间分桶的滑动窗口去重结构
+//窗口被切分为若干个时间桶，每个桶记录该时间段内出现过的键及其时间，
+//过期的桶整体复用，每个桶有容量上限，内存占用有界
+public class SlidingWindowDedup {
+
+    //查询结果
+    public enum Result {
+        //窗口内出现过
+        DUPLICATE,
+        //确定没有出现过
+        ABSENT,
+        //无法确定（刚启动窗口未填满，或桶溢出丢弃过记录），需要回查数据源
+        UNKNOWN
+    }
+
+    private static final class Bucket {
+        private long index = -1;
+        private boolean overflowed;
+        private final Map<String, Long> keys = new HashMap<>();
+
+        private void reset(long newIndex) {
+            index = newIndex;
+            overflowed = false;
+            keys.clear();
+        }
+    }
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int maxKeysPerBucket;
+    private final Bucket[] buckets;
+    private final long startTime;
+
+    /**
+     * @param windowMillis 去重窗口长度
+     * @param bucketCount 窗口切分的桶数
+     * @param maxKeysPerBucket 单个桶最多记录的键数
+     */
+    public SlidingWindowDedup(long windowMillis, int bucketCount, int maxKeysPerBucket) {
+        this(windowMillis, bucketCount, maxKeysPerBucket, System.currentTimeMillis());
+    }
+
+    public SlidingWindowDedup(long windowMillis, int bucketCount, int maxKeysPerBucket, long startTime) {
+        this.windowMillis = windowMillis;
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.maxKeysPerBucket = maxKeysPerBucket;
+        //多一个桶用于容纳窗口边界跨越的部分
+        this.buckets = new Bucket[bucketCount + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.startTime = startTime;
+    }
+
+    //查询键在窗口内是否出现过
+    public synchronized Result check(String key, long now) {
+        long current = now / bucketMillis;
+        boolean overflowed = false;
+        for (long index = current - buckets.length + 1; index <= current; index++) {
+            Bucket bucket = buckets[slot(index)];
+            if (bucket.index != index) {
+                continue;
+            }
+            Long time = bucket.keys.get(key);
+            if (time != null && now - time < windowMillis) {
+                return Result.DUPLICATE;
+            }
+            overflowed |= bucket.overflowed;
+        }
+        if (overflowed || now - startTime < windowMillis) {
+            return Result.UNKNOWN;
+        }
+        return Result.ABSENT;
+    }
+
+    //记录键在当前时间出现
+    public synchronized void record(String key, long now) {
+        long current = now / bucketMillis;
+        Bucket bucket = buckets[slot(current)];
+        if (bucket.index != current) {
+            bucket.reset(current);
+        }
+        if (bucket.keys.size() >= maxKeysPerBucket && !bucket.keys.containsKey(key)) {
+            //超出容量不再记录，之后的未命中需要回查
+            bucket.overflowed = true;
+            return;
+        }
+        bucket.keys.put(key, now);
+    }
+
+    //当前记录的键总数
+    public synchronized int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.keys.size();
+        }
+        return size;
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) buckets.length);
+    }
+}
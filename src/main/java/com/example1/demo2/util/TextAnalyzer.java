@@ -0,0 +1,85 @@
+package com.example1.demo2.util;
+
+import java.util.*;
+
+//全文检索的分词器（与常见CJK分析器的做法一致）
+//连续的中日韩文字切成单字和相邻两字的二元组，连续的字母数字作为一个词，
+//其余字符视为分隔符；统一转为小写。查询时多字关键词只取二元组，单字关键词取单字。
+//各二元组都出现不代表关键词整体连续出现，查询时由调用方核对原文
+public class TextAnalyzer {
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * 建索引用：文本中出现的所有词元（去重）
+     */
+    public static Set<String> tokens(String text) {
+        return analyze(text, false);
+    }
+
+    /**
+     * 查询用：一个关键词需要命中的词元
+     */
+    public static Set<String> queryTokens(String term) {
+        return analyze(term, true);
+    }
+
+    private static Set<String> analyze(String text, boolean query) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int start = i;
+            if (isCjk(normalized.charAt(i))) {
+                while (i < length && isCjk(normalized.charAt(i))) {
+                    i++;
+                }
+                if (!query || i - start == 1) {
+                    for (int j = start; j < i; j++) {
+                        tokens.add(normalized.substring(j, j + 1));
+                    }
+                }
+                for (int j = start; j + 2 <= i; j++) {
+                    tokens.add(normalized.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                while (i < length && Character.isLetterOrDigit(normalized.charAt(i)) && !isCjk(normalized.charAt(i))) {
+                    i++;
+                }
+                tokens.add(normalized.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 把查询拆成关键词：按空白切分，去掉空串和重复，统一小写
+     */
+    public static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!term.isEmpty() && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
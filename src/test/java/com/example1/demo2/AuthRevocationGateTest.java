@@ -0,0 +1,121 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.RevokedTokenMapper;
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.RevokedToken;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.UserPrincipal;
+import com.example1.demo2.service.impl.AuthRevocationGate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthRevocationGateTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RevokedTokenMapper revokedTokenMapper;
+
+    @InjectMocks
+    private AuthRevocationGate gate;
+
+    @Test
+    public void testBanAndUnbanWithoutDatabase() {
+        when(userMapper.getBannedUserIds()).thenReturn(List.of(3));
+        when(userMapper.getAllUserIds()).thenReturn(List.of(1, 2, 3));
+        gate.load();
+
+        assertTrue(gate.isRevoked(principal(3, "a")));
+        assertFalse(gate.isRevoked(principal(1, "b")));
+
+        gate.blockUser(1);
+        assertTrue(gate.isRevoked(principal(1, "b")));
+        gate.unblockUser(3);
+        assertFalse(gate.isRevoked(principal(3, "a")));
+        verify(userMapper, never()).findById(anyInt());
+    }
+
+    @Test
+    public void testRevokedTokenPersistedAndReloaded() {
+        when(userMapper.getAllUserIds()).thenReturn(List.of(1));
+        gate.load();
+
+        assertTrue(gate.revokeToken(principal(1, "old")));
+        assertTrue(gate.isRevoked(principal(1, "old")));
+        // 同一用户的其他令牌不受影响
+        assertFalse(gate.isRevoked(principal(1, "new")));
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenMapper).insert(captor.capture());
+        assertEquals("old", captor.getValue().getTokenId());
+
+        // 重启后从数据库重建
+        AuthRevocationGate restarted = new AuthRevocationGate();
+        ReflectionTestUtils.setField(restarted, "userMapper", userMapper);
+        ReflectionTestUtils.setField(restarted, "revokedTokenMapper", revokedTokenMapper);
+        when(revokedTokenMapper.getActive()).thenReturn(List.of(captor.getValue()));
+        restarted.load();
+        assertTrue(restarted.isRevoked(principal(1, "old")));
+        assertFalse(restarted.isRevoked(principal(1, "new")));
+    }
+
+    @Test
+    public void testTokenWithoutIdCannotBeRevoked() {
+        gate.load();
+        assertFalse(gate.revokeToken(principal(1, null)));
+        verify(revokedTokenMapper, never()).insert(any());
+    }
+
+    @Test
+    public void testUnknownUsersCheckedOnce() {
+        // 用户4在启动前已注销，用户5在启动后注册
+        when(userMapper.getAllUserIds()).thenReturn(List.of(1));
+        User registered = new User();
+        registered.setUserId(5);
+        registered.setStatus(0);
+        lenient().when(userMapper.findById(5)).thenReturn(registered);
+        gate.load();
+
+        assertTrue(gate.isRevoked(principal(4, "a")));
+        assertTrue(gate.isRevoked(principal(4, "a")));
+        assertFalse(gate.isRevoked(principal(5, "b")));
+        assertFalse(gate.isRevoked(principal(5, "b")));
+        verify(userMapper, times(1)).findById(4);
+        verify(userMapper, times(1)).findById(5);
+    }
+
+    @Test
+    public void testFallsBackToDatabaseWhenLoadFails() {
+        when(userMapper.getBannedUserIds()).thenThrow(new RuntimeException("数据库不可用"));
+        gate.load();
+
+        User banned = new User();
+        banned.setUserId(3);
+        banned.setStatus(1);
+        when(userMapper.findById(3)).thenReturn(banned);
+        assertTrue(gate.isRevoked(principal(3, "a")));
+        // 用户已被删除
+        assertTrue(gate.isRevoked(principal(4, "b")));
+        // 令牌已被吊销
+        when(revokedTokenMapper.isRevoked("c")).thenReturn(true);
+        assertTrue(gate.isRevoked(principal(1, "c")));
+    }
+
+    private static UserPrincipal principal(Integer userId, String tokenId) {
+        return new UserPrincipal(userId, Map.of("userId", userId), tokenId, System.currentTimeMillis() + 60000);
+    }
+}
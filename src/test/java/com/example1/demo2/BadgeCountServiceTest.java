@@ -0,0 +1,65 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.FriendMapper;
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.mapper.PrivateMessageMapper;
+import com.example1.demo2.service.IAnnouncementService;
+import com.example1.demo2.service.impl.BadgeCountService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BadgeCountServiceTest {
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private PrivateMessageMapper messageMapper;
+
+    @Mock
+    private FriendMapper friendMapper;
+
+    @Mock
+    private IAnnouncementService announcementService;
+
+    @InjectMocks
+    private BadgeCountService badgeCountService;
+
+    @Test
+    public void testCountersCachedAfterFirstRead() {
+        when(notificationMapper.countUnreadByType(1)).thenReturn(List.of(Map.of("type", 2, "count", 3)));
+        when(messageMapper.getUnreadCount(1)).thenReturn(1);
+
+        assertEquals(4, badgeCountService.getBadges(1).getTotal());
+        badgeCountService.onNotificationCreated(1, 2);
+        assertEquals(5, badgeCountService.getBadges(1).getTotal());
+        verify(notificationMapper, times(1)).countUnreadByType(1);
+    }
+
+    @Test
+    public void testChangeDuringRebuildNotCachedStale() {
+        // 重建查询读到旧值后，恰好有一条新通知提交
+        when(notificationMapper.countUnreadByType(1))
+                .thenAnswer(invocation -> {
+                    badgeCountService.onNotificationCreated(1, 2);
+                    return List.of();
+                })
+                .thenReturn(List.of(Map.of("type", 2, "count", 1)));
+
+        assertEquals(0, badgeCountService.getBadges(1).getNotificationTotal());
+        // 旧结果没有写入缓存，下次读取重新查询得到新值
+        assertEquals(1, badgeCountService.getBadges(1).getNotificationTotal());
+        assertEquals(1, badgeCountService.getBadges(1).getNotificationTotal());
+        verify(notificationMapper, times(2)).countUnreadByType(1);
+    }
+}
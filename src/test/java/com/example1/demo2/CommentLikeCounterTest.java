@@ -0,0 +1,81 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.PlanetCommentMapper;
+import com.example1.demo2.service.impl.CommentLikeCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentLikeCounterTest {
+
+    @Mock
+    private GalaxyCommentMapper galaxyCommentMapper;
+
+    @Mock
+    private PlanetCommentMapper planetCommentMapper;
+
+    @InjectMocks
+    private CommentLikeCounter counter;
+
+    @TempDir
+    Path journalDir;
+
+    @AfterEach
+    public void tearDown() {
+        counter.stop();
+    }
+
+    @Test
+    public void testDeltasVisibleUntilFlushed() throws Exception {
+        start();
+        counter.record(CommentLikeCounter.GALAXY, 5, 1);
+        counter.record(CommentLikeCounter.GALAXY, 5, 1);
+        counter.record(CommentLikeCounter.GALAXY, 6, 1);
+        counter.record(CommentLikeCounter.GALAXY, 6, -1);
+
+        assertEquals(12, counter.getLikeCount(CommentLikeCounter.GALAXY, 5, 10));
+        assertEquals(3, counter.getLikeCount(CommentLikeCounter.PLANET, 5, 3));
+
+        counter.flush();
+
+        verify(galaxyCommentMapper).applyLikeDeltas(Map.of(5, 2L));
+        verify(planetCommentMapper, never()).applyLikeDeltas(any());
+        assertEquals(10, counter.getLikeCount(CommentLikeCounter.GALAXY, 5, 10));
+        // 写回成功后日志段被删除，只剩当前的空日志段
+        try (var files = Files.list(journalDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testRecountCommentsFromLeftoverJournal() throws Exception {
+        Files.writeString(journalDir.resolve("likes-1-1.journal"), "1 5\n2 7\n1 5\n1 ");
+
+        start();
+
+        verify(galaxyCommentMapper).recountLikes(List.of(5));
+        verify(planetCommentMapper).recountLikes(List.of(7));
+        assertFalse(Files.exists(journalDir.resolve("likes-1-1.journal")));
+    }
+
+    private void start() throws Exception {
+        ReflectionTestUtils.setField(counter, "journalDir", journalDir.toString());
+        counter.start();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.PlanetCommentMapper;
+import com.example1.demo2.service.impl.CommentLikeCounter;
+import com.example1.demo2.service.impl.CommentLikerCache;
+import com.example1.demo2.util.IntBitmap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentLikerCacheTest {
+
+    private static final int COMMENTS = 1000;
+    private static final int PAGE_SIZE = 20;
+    private static final int RENDERS = 200;
+
+    @Mock
+    private GalaxyCommentMapper galaxyCommentMapper;
+
+    @Mock
+    private PlanetCommentMapper planetCommentMapper;
+
+    @InjectMocks
+    private CommentLikerCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        // 用真实的计数器，点赞增量按实际逻辑参与判断
+        ReflectionTestUtils.setField(cache, "likeCounter", new CommentLikeCounter());
+        ReflectionTestUtils.setField(cache, "maxBytes", 64L * 1024 * 1024);
+    }
+
+    /**
+     * 与原先逐行 isLiked 查询对比：结果一致，且每页最多批量加载一次
+     */
+    @Test
+    public void testPageLookupMatchesPerRowQuery() {
+        Random random = new Random(42);
+        Set<Long> likeTable = new HashSet<>();
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        for (int commentId = 1; commentId <= COMMENTS; commentId++) {
+            int count = 0;
+            for (int userId = 1; userId <= 200; userId++) {
+                if (random.nextInt(10) == 0) {
+                    likeTable.add(row(commentId, userId));
+                    count++;
+                }
+            }
+            likeCounts.put(commentId, count);
+        }
+        when(galaxyCommentMapper.isLiked(anyInt(), anyInt()))
+                .thenAnswer(invocation -> likeTable.contains(row(invocation.getArgument(1), invocation.getArgument(0))));
+        when(galaxyCommentMapper.getLikersByCommentIds(anyCollection())).thenAnswer(invocation -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Integer commentId : (Collection<Integer>) invocation.getArgument(0)) {
+                for (int userId = 1; userId <= 200; userId++) {
+                    if (likeTable.contains(row(commentId, userId))) {
+                        rows.add(Map.of("comment_id", commentId, "user_id", userId));
+                    }
+                }
+            }
+            return rows;
+        });
+
+        for (int render = 0; render < RENDERS; render++) {
+            int first = random.nextInt(COMMENTS / PAGE_SIZE) * PAGE_SIZE + 1;
+            Map<Integer, Integer> page = new LinkedHashMap<>();
+            for (int commentId = first; commentId < first + PAGE_SIZE; commentId++) {
+                page.put(commentId, likeCounts.get(commentId));
+            }
+            int userId = render % 200 + 1;
+            Set<Integer> perRow = new HashSet<>();
+            for (Integer commentId : page.keySet()) {
+                if (galaxyCommentMapper.isLiked(userId, commentId)) {
+                    perRow.add(commentId);
+                }
+            }
+            assertEquals(perRow, cache.getLikedCommentIds(CommentLikeCounter.GALAXY, userId, page));
+        }
+
+        // 每页最多加载一次，之后全部命中内存
+        verify(galaxyCommentMapper, atMost(COMMENTS / PAGE_SIZE)).getLikersByCommentIds(anyCollection());
+    }
+
+    /**
+     * 点赞和取消点赞在事务提交后才更新已缓存的位图
+     */
+    @Test
+    public void testLikeChangeAppliedAfterCommit() {
+        when(galaxyCommentMapper.getLikersByCommentIds(anyCollection()))
+                .thenReturn(List.of(Map.of("comment_id", 1, "user_id", 7)));
+        assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 7, 1, 1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.onLikeChanged(CommentLikeCounter.GALAXY, 1, 8, true);
+            cache.onLikeChanged(CommentLikeCounter.GALAXY, 1, 7, false);
+            assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 7, 1, 1));
+            assertFalse(cache.isLiked(CommentLikeCounter.GALAXY, 8, 1, 1));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(cache.isLiked(CommentLikeCounter.GALAXY, 7, 1, 1));
+        assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 8, 1, 1));
+        verify(galaxyCommentMapper, times(1)).getLikersByCommentIds(anyCollection());
+    }
+
+    /**
+     * 加载期间到达的点赞变化使这次加载结果不入缓存，下次重新加载
+     */
+    @Test
+    public void testChangeDuringLoadKeepsStaleLoadOutOfCache() {
+        when(galaxyCommentMapper.getLikersByCommentIds(anyCollection()))
+                .thenAnswer(invocation -> {
+                    assertEquals(Boolean.FALSE, loading().get(key(CommentLikeCounter.GALAXY, 1)));
+                    cache.onLikeChanged(CommentLikeCounter.GALAXY, 1, 8, true);
+                    assertEquals(Boolean.TRUE, loading().get(key(CommentLikeCounter.GALAXY, 1)));
+                    return List.of(Map.of("comment_id", 1, "user_id", 7));
+                })
+                .thenReturn(List.of(Map.of("comment_id", 1, "user_id", 7), Map.of("comment_id", 1, "user_id", 8)));
+
+        assertFalse(cache.isLiked(CommentLikeCounter.GALAXY, 8, 1, 2));
+        assertTrue(loading().isEmpty());
+        assertTrue(bitmaps().isEmpty());
+
+        assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 8, 1, 2));
+        assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 7, 1, 2));
+        verify(galaxyCommentMapper, times(2)).getLikersByCommentIds(anyCollection());
+    }
+
+    /**
+     * 超出内存预算时淘汰最久未用的位图，总量不超过预算
+     */
+    @Test
+    public void testEvictionStaysWithinBudget() {
+        long bitmapBytes = new IntBitmap() {{ add(1); }}.getSizeInBytes();
+        long maxBytes = bitmapBytes * 10;
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        when(galaxyCommentMapper.getLikersByCommentIds(anyCollection())).thenAnswer(invocation -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Integer commentId : (Collection<Integer>) invocation.getArgument(0)) {
+                rows.add(Map.of("comment_id", commentId, "user_id", 1));
+            }
+            return rows;
+        });
+
+        for (int commentId = 1; commentId <= 50; commentId++) {
+            assertTrue(cache.isLiked(CommentLikeCounter.GALAXY, 1, commentId, 1));
+            assertTrue((long) ReflectionTestUtils.getField(cache, "totalBytes") <= maxBytes);
+        }
+        assertEquals(10, bitmaps().size());
+        assertTrue(bitmaps().containsKey(key(CommentLikeCounter.GALAXY, 50)));
+        assertFalse(bitmaps().containsKey(key(CommentLikeCounter.GALAXY, 1)));
+    }
+
+    /**
+     * 数据库点赞数加未落库增量为0时不加载，直接判定为未点赞
+     */
+    @Test
+    public void testZeroLikeCountSkipsLoad(@TempDir Path journalDir) throws Exception {
+        CommentLikeCounter likeCounter = new CommentLikeCounter();
+        ReflectionTestUtils.setField(likeCounter, "galaxyCommentMapper", galaxyCommentMapper);
+        ReflectionTestUtils.setField(likeCounter, "planetCommentMapper", planetCommentMapper);
+        ReflectionTestUtils.setField(likeCounter, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(cache, "likeCounter", likeCounter);
+        likeCounter.start();
+        try {
+            likeCounter.record(CommentLikeCounter.GALAXY, 1, -1);
+
+            assertFalse(cache.isLiked(CommentLikeCounter.GALAXY, 7, 1, 1));
+            assertTrue(cache.getLikedCommentIds(CommentLikeCounter.GALAXY, 7, Map.of(2, 0)).isEmpty());
+            verify(galaxyCommentMapper, never()).getLikersByCommentIds(anyCollection());
+        } finally {
+            likeCounter.stop();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Boolean> loading() {
+        return (Map<Long, Boolean>) ReflectionTestUtils.getField(cache, "loading");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, IntBitmap> bitmaps() {
+        return (Map<Long, IntBitmap>) ReflectionTestUtils.getField(cache, "bitmaps");
+    }
+
+    private static Long key(int type, int commentId) {
+        return ((long) type << 32) | commentId;
+    }
+
+    private static long row(int commentId, int userId) {
+        return ((long) commentId << 32) | userId;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example1.demo2;
+
+import com.example1.demo2.util.DynamicSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicSamplerTest {
+
+    @Test
+    public void testRemovedKeysNeverSampled() {
+        DynamicSampler<String> sampler = new DynamicSampler<>(1);
+        for (int i = 0; i < 100; i++) {
+            sampler.put("P" + i, 1);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(sampler.remove("P" + i));
+        }
+        assertFalse(sampler.remove("P0"));
+        assertEquals(50, sampler.size());
+
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            int index = Integer.parseInt(sampler.sample(random).substring(1));
+            assertEquals(1, index % 2);
+            index = Integer.parseInt(sampler.sampleWeighted(0, random).substring(1));
+            assertEquals(1, index % 2);
+        }
+    }
+
+    @Test
+    public void testWeightedSamplingFollowsWeights() {
+        DynamicSampler<String> sampler = new DynamicSampler<>(2);
+        sampler.put("A", 1, 0);
+        sampler.put("B", 3, 0);
+        sampler.put("C", 0, 0);
+        sampler.addWeight("C", 1, 5);
+
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 40000; i++) {
+            counts.merge(sampler.sampleWeighted(0, random), 1, Integer::sum);
+        }
+        assertNull(counts.get("C"));
+        assertEquals(3.0, counts.get("B") / (double) counts.get("A"), 0.2);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("C", sampler.sampleWeighted(1, random));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.GalaxyCommentMapper;
+import com.example1.demo2.mapper.GalaxyMapper;
+import com.example1.demo2.pojo.GalaxyComment;
+import com.example1.demo2.pojo.KnowledgeGalaxy;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.GalaxyCommentDto;
+import com.example1.demo2.service.impl.CommentLikeCounter;
+import com.example1.demo2.service.impl.CommentLikerCache;
+import com.example1.demo2.service.impl.GalaxyCommentTreeLoader;
+import com.example1.demo2.service.impl.UserDataLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GalaxyCommentTreeLoaderTest {
+
+    @Mock
+    private GalaxyCommentMapper commentMapper;
+
+    @Mock
+    private GalaxyMapper galaxyMapper;
+
+    @Mock
+    private UserDataLoader userDataLoader;
+
+    @Spy
+    private CommentLikeCounter likeCounter = new CommentLikeCounter();
+
+    @Mock
+    private CommentLikerCache likerCache;
+
+    @InjectMocks
+    private GalaxyCommentTreeLoader loader;
+
+    @Test
+    public void testLoadTreeWithConstantQueries() {
+        GalaxyComment root1 = comment(1, 10, 0, 1, null);
+        GalaxyComment root2 = comment(2, 11, 0, 1, null);
+        GalaxyComment reply = comment(3, 11, 1, 2, 10);
+        GalaxyComment subReply = comment(4, 10, 3, 3, 11);
+
+        when(commentMapper.getReplyRowsByParentIds(List.of(1, 2))).thenReturn(List.of(reply));
+        when(commentMapper.getReplyRowsByParentIds(List.of(3))).thenReturn(List.of(subReply));
+        when(userDataLoader.loadMany(anyCollection())).thenReturn(Map.of(10, user(10, "a"), 11, user(11, "b")));
+        KnowledgeGalaxy galaxy = new KnowledgeGalaxy();
+        galaxy.setGalaxyId(100);
+        galaxy.setName("星系");
+        when(galaxyMapper.getKnowledgeGalaxyById(100)).thenReturn(galaxy);
+        when(likerCache.getLikedCommentIds(eq(CommentLikeCounter.GALAXY), eq(10), anyMap())).thenReturn(Set.of(3));
+
+        List<GalaxyCommentDto> tree = loader.loadTree(List.of(root1, root2), 10);
+
+        assertEquals(2, tree.size());
+        GalaxyCommentDto first = tree.get(0);
+        assertEquals("a", first.getUsername());
+        assertEquals("星系", first.getGalaxyName());
+        assertFalse(first.getIsLiked());
+        assertEquals(1, first.getReplies().size());
+
+        GalaxyCommentDto second = first.getReplies().get(0);
+        assertTrue(second.getIsLiked());
+        assertEquals("a", second.getReplyToUsername());
+        assertEquals("b", second.getReplies().get(0).getReplyToUsername());
+        assertTrue(tree.get(1).getReplies().isEmpty());
+
+        verify(commentMapper, times(2)).getReplyRowsByParentIds(anyList());
+        verify(userDataLoader, times(1)).loadMany(anyCollection());
+        verify(commentMapper, never()).isLiked(any(), any());
+    }
+
+    private GalaxyComment comment(int id, int userId, int parentId, int level, Integer replyTo) {
+        GalaxyComment comment = new GalaxyComment();
+        comment.setGalaxyCommentId(id);
+        comment.setUser(user(userId, null));
+        KnowledgeGalaxy galaxy = new KnowledgeGalaxy();
+        galaxy.setGalaxyId(100);
+        comment.setKnowledgeGalaxy(galaxy);
+        comment.setParentId(parentId);
+        comment.setLevel(level);
+        comment.setReplyToUserId(replyTo);
+        return comment;
+    }
+
+    private User user(int id, String nickname) {
+        User user = new User();
+        user.setUserId(id);
+        user.setNickname(nickname);
+        return user;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.GalaxyMapper;
+import com.example1.demo2.pojo.KnowledgeGalaxy;
+import com.example1.demo2.service.impl.GalaxyDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GalaxyDirectoryTest {
+
+    @Mock
+    private GalaxyMapper galaxyMapper;
+
+    @InjectMocks
+    private GalaxyDirectory directory;
+
+    private final Map<Integer, KnowledgeGalaxy> table = new LinkedHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        table.put(1, galaxy(1, 10, "数学星系", "数学, 代数"));
+        table.put(2, galaxy(2, 20, "数学竞赛", "数学#竞赛"));
+        table.put(3, galaxy(3, 20, "物理星系", "物理"));
+        table.put(4, galaxy(4, 30, "应用数学", "Math 统计"));
+
+        lenient().when(galaxyMapper.getDirectoryRows()).thenAnswer(inv -> new ArrayList<>(table.values()));
+        lenient().when(galaxyMapper.getGalaxiesByIds(anyList())).thenAnswer(inv -> {
+            List<Integer> ids = inv.getArgument(0);
+            return ids.stream().filter(table::containsKey).map(table::get).toList();
+        });
+        lenient().when(galaxyMapper.getKnowledgeGalaxyById(anyInt())).thenAnswer(inv -> table.get(inv.<Integer>getArgument(0)));
+
+        directory.start();
+        // 等待后台加载完成
+        long deadline = System.currentTimeMillis() + 5000;
+        while (directory.search("星系", null, null, null).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        directory.stop();
+    }
+
+    @Test
+    public void testNameLabelAndCreatorIntersection() {
+        assertEquals(List.of(1, 2, 4), ids(directory.search("数学", null, null, null)));
+        // 名称包含"数学" 且 标签属于{竞赛, math} 且 创建者不是30
+        assertEquals(List.of(2), ids(directory.search("数学", List.of("竞赛", "MATH"), null, 30)));
+        assertEquals(List.of(2, 3), ids(directory.search("", null, 20, null)));
+        assertEquals(List.of(1), ids(directory.search("星系", List.of("代数"), null, null)));
+        assertTrue(directory.search("化学", null, null, null).isEmpty());
+        assertTrue(directory.search("数学", List.of("物理"), null, null).isEmpty());
+    }
+
+    @Test
+    public void testRefreshAndDelete() {
+        table.get(3).setLabel("物理,竞赛");
+        table.get(3).setName("物理竞赛");
+        directory.refresh(3);
+        assertEquals(List.of(2, 3), ids(directory.search("竞赛", List.of("竞赛"), null, null)));
+        assertTrue(directory.search("星系", List.of("物理"), null, null).isEmpty());
+
+        table.remove(2);
+        directory.delete(2);
+        assertEquals(List.of(3), ids(directory.search("竞赛", null, null, null)));
+        assertEquals(List.of(3), ids(directory.search("", null, 20, null)));
+    }
+
+    @Test
+    public void testParseLabels() {
+        assertEquals(List.of("java", "并发", "jvm"), new ArrayList<>(GalaxyDirectory.parseLabels(" Java，并发、JVM ")));
+        assertTrue(GalaxyDirectory.parseLabels(null).isEmpty());
+    }
+
+    private static List<Integer> ids(List<KnowledgeGalaxy> galaxies) {
+        return galaxies.stream().map(KnowledgeGalaxy::getGalaxyId).toList();
+    }
+
+    private static KnowledgeGalaxy galaxy(Integer galaxyId, Integer userId, String name, String label) {
+        KnowledgeGalaxy galaxy = new KnowledgeGalaxy();
+        galaxy.setGalaxyId(galaxyId);
+        galaxy.setUserId(userId);
+        galaxy.setName(name);
+        galaxy.setLabel(label);
+        return galaxy;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.PlanetAccessMapper;
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.service.impl.HotPlanetLeaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HotPlanetLeaderboardTest {
+
+    @Mock
+    private PlanetAccessMapper planetAccessMapper;
+
+    @Mock
+    private PlanetMapper planetMapper;
+
+    // 模拟的星球表，榜单读取时按ID查询
+    private final Map<String, KnowledgePlanet> table = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(planetMapper.getPlanetsByIds(anyList())).thenAnswer(invocation -> {
+            List<KnowledgePlanet> rows = new ArrayList<>();
+            for (String planetId : (List<String>) invocation.getArgument(0)) {
+                if (table.containsKey(planetId)) {
+                    rows.add(table.get(planetId));
+                }
+            }
+            return rows;
+        });
+    }
+
+    @InjectMocks
+    private HotPlanetLeaderboard leaderboard;
+
+    @Test
+    public void testBoardsRankedByHeat() {
+        KnowledgePlanet a = planet("A", "1", 10);
+        KnowledgePlanet b = planet("B", "1", 20);
+        KnowledgePlanet c = planet("C", "2", 10);
+        leaderboard.onVisit(a);
+        leaderboard.onVisit(b);
+        leaderboard.onVisit(b);
+        leaderboard.onCommentLiked(c);
+
+        assertEquals(List.of("C", "B", "A"), ids(leaderboard.getTop(null, null, 10)));
+        assertEquals(List.of("B", "A"), ids(leaderboard.getTop("1", null, 10)));
+        assertEquals(List.of("C", "A"), ids(leaderboard.getTop(null, 10, 10)));
+        assertTrue(leaderboard.getTop("3", null, 10).isEmpty());
+        verifyNoInteractions(planetAccessMapper);
+    }
+
+    @Test
+    public void testTopReturnsCurrentPlanetRows() {
+        KnowledgePlanet a = planet("A", "1", 10);
+        a.setContentTitle("旧标题");
+        leaderboard.onVisit(a);
+
+        // 标题修改后不再有访问事件，榜单仍返回最新的星球信息
+        KnowledgePlanet renamed = planet("A", "1", 10);
+        renamed.setContentTitle("新标题");
+        table.put("A", renamed);
+        assertEquals("新标题", leaderboard.getTop(null, null, 10).get(0).getContentTitle());
+
+        // 已被删除的星球不返回，并移出榜单
+        table.remove("A");
+        assertTrue(leaderboard.getTop(null, null, 10).isEmpty());
+        table.put("A", renamed);
+        assertTrue(leaderboard.getTop(null, null, 10).isEmpty());
+    }
+
+    @Test
+    public void testPrivatePlanetLeavesBoards() {
+        KnowledgePlanet a = planet("A", "1", 10);
+        leaderboard.onVisit(a);
+        leaderboard.onVisit(planet("B", "1", 10));
+
+        a.setVisibility(0);
+        leaderboard.onVisit(a);
+
+        assertEquals(List.of("B"), ids(leaderboard.getTop(null, null, 10)));
+        assertEquals(List.of("B"), ids(leaderboard.getTop("1", null, 10)));
+    }
+
+    @Test
+    public void testRemoveAppliedOnlyAfterCommit() {
+        leaderboard.onVisit(planet("A", "1", 10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboard.remove("A");
+            assertEquals(List.of("A"), ids(leaderboard.getTop(null, null, 10)));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // 删除回滚，星球仍在榜单上
+        assertEquals(List.of("A"), ids(leaderboard.getTop(null, null, 10)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboard.remove("A");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(leaderboard.getTop(null, null, 10).isEmpty());
+    }
+
+    private KnowledgePlanet planet(String planetId, String galaxyId, Integer themeId) {
+        KnowledgePlanet planet = new KnowledgePlanet();
+        planet.setPlanetId(planetId);
+        planet.setGalaxyId(galaxyId);
+        planet.setThemeId(themeId);
+        planet.setVisibility(1);
+        table.put(planetId, planet);
+        return planet;
+    }
+
+    private List<String> ids(List<KnowledgePlanet> planets) {
+        return planets.stream().map(KnowledgePlanet::getPlanetId).toList();
+    }
+}
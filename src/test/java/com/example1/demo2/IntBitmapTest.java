@@ -0,0 +1,49 @@
+package com.example1.demo2;
+
+import com.example1.demo2.util.IntBitmap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntBitmapTest {
+
+    @Test
+    public void testAddRemoveAcrossChunks() {
+        IntBitmap bitmap = new IntBitmap();
+        assertTrue(bitmap.add(7));
+        assertFalse(bitmap.add(7));
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.add(Integer.MAX_VALUE));
+
+        assertTrue(bitmap.contains(7));
+        assertTrue(bitmap.contains(70000));
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.contains(8));
+        assertEquals(3, bitmap.getCardinality());
+
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertFalse(bitmap.contains(70000));
+        assertEquals(2, bitmap.getCardinality());
+    }
+
+    @Test
+    public void testDenseChunkSwitchesToBitmapAndBack() {
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < 10000; i++) {
+            bitmap.add(i * 3);
+        }
+        assertEquals(10000, bitmap.getCardinality());
+        assertTrue(bitmap.contains(3 * 9999));
+        assertFalse(bitmap.contains(3 * 9999 + 1));
+        // 稠密块用位图存放，不超过每块8KB加少量开销
+        assertTrue(bitmap.getSizeInBytes() < 20000);
+
+        for (int i = 0; i < 10000; i += 2) {
+            bitmap.remove(i * 3);
+        }
+        assertEquals(5000, bitmap.getCardinality());
+        assertTrue(bitmap.contains(3));
+        assertFalse(bitmap.contains(0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.service.impl.LastLoginRecorder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LastLoginRecorderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private LastLoginRecorder recorder;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRepeatLoginsMergedIntoOneBatch() throws InterruptedException {
+        Date stored = new Date(1000);
+        recorder.record(1);
+        Thread.sleep(5);
+        recorder.record(1);
+        recorder.record(2);
+        // 未写回前读取到的是内存中的时间
+        assertTrue(recorder.getLastLoginTime(1, stored).after(stored));
+        assertNull(recorder.getLastLoginTime(3, null));
+
+        Thread.sleep(5);
+        recorder.flush();
+        ArgumentCaptor<Map<Integer, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(userMapper, times(1)).updateLastLoginTimes(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        // 写回的是登录距今的微秒数，由数据库按now()换算
+        assertTrue(captor.getValue().get(1) >= 5000);
+        assertTrue(captor.getValue().get(1) < 60_000_000L);
+
+        // 写回后没有新的登录，不再更新
+        recorder.flush();
+        verify(userMapper, times(1)).updateLastLoginTimes(anyMap());
+        assertEquals(stored, recorder.getLastLoginTime(1, stored));
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        when(userMapper.updateLastLoginTimes(anyMap()))
+                .thenThrow(new RuntimeException("数据库不可用"))
+                .thenReturn(1);
+        recorder.record(1);
+        recorder.flush();
+        assertNotNull(recorder.getLastLoginTime(1, null));
+
+        recorder.flush();
+        verify(userMapper, times(2)).updateLastLoginTimes(anyMap());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example1.demo2;
+
+import com.example1.demo2.util.NGramIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NGramIndexTest {
+
+    private static List<Integer> search(NGramIndex index, String keyword) {
+        List<Integer> result = new ArrayList<>();
+        index.search(keyword, result::add);
+        return result;
+    }
+
+    private static List<Integer> prefix(NGramIndex index, String prefix) {
+        List<Integer> result = new ArrayList<>();
+        index.prefix(prefix, result::add);
+        return result;
+    }
+
+    @Test
+    public void testSubstringSearch() {
+        NGramIndex index = new NGramIndex();
+        index.put(1, "线性代数基础");
+        index.put(2, "高等代数");
+        index.put(3, "Java并发编程");
+
+        assertEquals(List.of(1, 2), search(index, "代数"));
+        assertEquals(List.of(1), search(index, "线性代数"));
+        assertEquals(List.of(3), search(index, "java"));
+        assertEquals(List.of(3), search(index, " JAVA并发 "));
+        assertTrue(search(index, "概率").isEmpty());
+        assertEquals(3, search(index, "").size());
+    }
+
+    @Test
+    public void testGramsPresentButNotContiguous() {
+        NGramIndex index = new NGramIndex();
+        // 包含"abcd"的两个三元组"abc"和"bcd"，但并不包含"abcd"本身
+        index.put(1, "abcxbcd");
+        index.put(2, "abcd");
+
+        assertEquals(List.of(2), search(index, "abcd"));
+    }
+
+    @Test
+    public void testPrefix() {
+        NGramIndex index = new NGramIndex();
+        index.put(1, "数据结构");
+        index.put(2, "数据库原理");
+        index.put(3, "大数据");
+
+        assertEquals(List.of(2, 1), prefix(index, "数据"));
+        assertEquals(List.of(2), prefix(index, "数据库"));
+        assertTrue(prefix(index, "").isEmpty());
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        NGramIndex index = new NGramIndex();
+        index.put(1, "操作系统");
+        index.put(1, "计算机网络");
+
+        assertTrue(search(index, "系统").isEmpty());
+        assertEquals(List.of(1), search(index, "网络"));
+
+        index.remove(1);
+        assertTrue(search(index, "网络").isEmpty());
+        assertTrue(prefix(index, "计算机").isEmpty());
+        assertEquals(0, index.size());
+    }
+}
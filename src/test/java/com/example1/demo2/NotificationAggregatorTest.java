@@ -0,0 +1,99 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.NotificationAggregator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationAggregatorTest {
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private NotificationAggregator aggregator;
+
+    @Test
+    public void testMergeBatchIntoNewRow() {
+        List<Notification> merged = aggregator.aggregate(List.of(like(10, "a"), like(11, "b"), like(12, "c"), like(10, "a")));
+
+        assertEquals(1, merged.size());
+        Notification notification = merged.get(0);
+        assertNull(notification.getNotificationId());
+        assertEquals("a 等3人赞了你的评论", notification.getTitle());
+        assertEquals("你的评论\"好评论\"获得了3个赞", notification.getContent());
+        verify(notificationMapper, never()).updateAggregatedNotification(any());
+    }
+
+    @Test
+    public void testUpdateExistingRowInPlace() throws Exception {
+        Notification existing = like(20, "old");
+        existing.setNotificationId(99);
+        existing.setExtraData("{\"actorCount\":12,\"targetText\":\"好评论\",\"recentActors\":[{\"userId\":20,\"nickname\":\"old\"}]}");
+        when(notificationMapper.getAggregationTarget(eq(1), eq(2), eq("5"), anyInt())).thenReturn(existing);
+
+        List<Notification> merged = aggregator.aggregate(List.of(like(10, "a")));
+
+        Notification notification = merged.get(0);
+        assertEquals(99, notification.getNotificationId());
+        assertEquals("a 等13人赞了你的评论", notification.getTitle());
+        Map<?, ?> extraData = objectMapper.readValue(notification.getExtraData(), Map.class);
+        assertEquals(13, extraData.get("actorCount"));
+        assertEquals(2, ((List<?>) extraData.get("recentActors")).size());
+        verify(notificationMapper).updateAggregatedNotification(notification);
+    }
+
+    @Test
+    public void testRepeatLikeBySameUserCountedOnce() throws Exception {
+        Notification existing = like(20, "old");
+        existing.setNotificationId(99);
+        existing.setExtraData("{\"actorCount\":2,\"actorIds\":[10,20],\"targetText\":\"好评论\"," +
+                "\"recentActors\":[{\"userId\":10,\"nickname\":\"a\"},{\"userId\":20,\"nickname\":\"old\"}]}");
+        when(notificationMapper.getAggregationTarget(eq(1), eq(2), eq("5"), anyInt())).thenReturn(existing);
+
+        // 10 取消后再次点赞，同一批次中 30 点赞两次
+        List<Notification> merged = aggregator.aggregate(List.of(like(10, "a"), like(30, "c"), like(30, "c")));
+
+        Notification notification = merged.get(0);
+        assertEquals("c 等3人赞了你的评论", notification.getTitle());
+        Map<?, ?> extraData = objectMapper.readValue(notification.getExtraData(), Map.class);
+        assertEquals(3, extraData.get("actorCount"));
+        assertEquals(List.of(10, 20, 30), extraData.get("actorIds"));
+    }
+
+    private Notification like(Integer senderId, String nickname) {
+        User receiver = new User();
+        receiver.setUserId(1);
+        User sender = new User();
+        sender.setUserId(senderId);
+        sender.setNickname(nickname);
+
+        Notification notification = new Notification();
+        notification.setReceiver(receiver);
+        notification.setSender(sender);
+        notification.setType(2);
+        notification.setTargetId("5");
+        notification.setTitle(nickname + " 赞了你的评论");
+        notification.setContent("你的评论\"好评论\"获得了一个赞");
+        notification.setExtraData("{\"targetText\":\"好评论\"}");
+        return notification;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.NotificationEvent;
+import com.example1.demo2.service.IBadgeCountService;
+import com.example1.demo2.service.impl.NotificationAggregator;
+import com.example1.demo2.service.impl.NotificationDeduplicator;
+import com.example1.demo2.service.impl.NotificationDispatcher;
+import com.example1.demo2.service.impl.SharedDedupStore;
+import com.example1.demo2.service.impl.UserDataLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDispatcherTest {
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private UserDataLoader userDataLoader;
+
+    @Mock
+    private IBadgeCountService badgeCountService;
+
+    @Mock
+    private NotificationAggregator aggregator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private NotificationDeduplicator deduplicator = new NotificationDeduplicator(100);
+
+    @InjectMocks
+    private NotificationDispatcher dispatcher;
+
+    private final SharedDedupStore sharedDedupStore = new SharedDedupStore();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(deduplicator, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(deduplicator, "sharedDedupStore", sharedDedupStore);
+        ReflectionTestUtils.setField(deduplicator, "sharedStoreEnabled", true);
+        ReflectionTestUtils.setField(dispatcher, "transactionTemplate", new TransactionTemplate(transactionManager));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(userDataLoader.loadMany(anyCollection())).thenReturn(Map.of(1, user(1), 2, user(2)));
+    }
+
+    @Test
+    public void testFailedInsertDoesNotBlockRetry() {
+        doThrow(new RuntimeException("数据库不可用")).doNothing()
+                .when(notificationMapper).insertNotificationBatch(anyList());
+
+        assertThrows(RuntimeException.class, () -> dispatcher.dispatch(List.of(reply())));
+        // 重试时不被当成重复
+        dispatcher.dispatch(List.of(reply()));
+        verify(notificationMapper, times(2)).insertNotificationBatch(anyList());
+
+        // 入库成功后才进入去重窗口
+        dispatcher.dispatch(List.of(reply()));
+        verify(notificationMapper, times(2)).insertNotificationBatch(anyList());
+    }
+
+    @Test
+    public void testDuplicatesWithinBatchInsertedOnce() {
+        dispatcher.dispatch(List.of(reply(), reply()));
+
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationMapper).insertNotificationBatch(captor.capture());
+        assertEquals(1, captor.getValue().size());
+    }
+
+    @Test
+    public void testDatabaseDuplicateReleasesSharedKey() {
+        when(notificationMapper.checkDuplicateNotification(anyInt(), anyInt(), anyInt(), anyString(), anyInt())).thenReturn(1);
+
+        dispatcher.dispatch(List.of(reply()));
+
+        verify(notificationMapper, never()).insertNotificationBatch(anyList());
+        // 数据库中已有相同通知：不发送，也不继续占用共享键
+        assertFalse(sharedDedupStore.contains("1:2:1:10"));
+    }
+
+    @Test
+    public void testAggregateRolledBackWhenInsertFails() {
+        Notification merged = new Notification();
+        merged.setNotificationId(9);
+        Notification fresh = new Notification();
+        fresh.setReceiver(user(1));
+        fresh.setType(1);
+        when(aggregator.isAggregatable(any())).thenReturn(true);
+        when(aggregator.aggregate(anyList())).thenReturn(List.of(merged, fresh));
+        doThrow(new RuntimeException("数据库不可用")).when(notificationMapper).insertNotificationBatch(anyList());
+
+        assertThrows(RuntimeException.class, () -> dispatcher.dispatch(List.of(reply())));
+
+        // 聚合更新与插入在同一个事务中一起回滚，未读数不变
+        InOrder inOrder = inOrder(transactionManager, aggregator, notificationMapper);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(aggregator).aggregate(anyList());
+        inOrder.verify(notificationMapper).insertNotificationBatch(anyList());
+        inOrder.verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verifyNoInteractions(badgeCountService);
+    }
+
+    private static NotificationEvent reply() {
+        return new NotificationEvent(1, 2, 1, 1, "10", "回复内容", null);
+    }
+
+    private static User user(int userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setNickname("u" + userId);
+        return user;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.NotificationMapper;
+import com.example1.demo2.pojo.Announcement;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.NotificationDto;
+import com.example1.demo2.service.IAnnouncementService;
+import com.example1.demo2.service.impl.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationPagingTest {
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private IAnnouncementService announcementService;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    public void testPagesHoldExactlySizeAndCoverTimeline() {
+        // 通知在偶数秒，公告在奇数秒，另有一条公告与通知同时
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            notifications.add(notification(100 + i, 1000 - i * 2));
+        }
+        List<Announcement> announcements = List.of(
+                announcement(1, 1001), announcement(2, 995), announcement(3, 994), announcement(4, 900));
+        stub(notifications, announcements);
+
+        List<String> seen = new ArrayList<>();
+        for (int page = 1; page <= 6; page++) {
+            List<NotificationDto> dtos = notificationService.getUserNotifications(1, null, null, page, 4);
+            assertTrue(dtos.size() <= 4);
+            if (page < 4) {
+                assertEquals(4, dtos.size());
+            }
+            for (NotificationDto dto : dtos) {
+                seen.add(key(dto));
+            }
+        }
+
+        assertEquals(List.of("a1", "n100", "n101", "n102", "a2", "n103", "a3", "n104", "n105", "n106",
+                "n107", "n108", "n109", "n110", "a4"), seen);
+    }
+
+    @Test
+    public void testDeepPageBeyondTimelineIsEmpty() {
+        stub(List.of(notification(100, 1000)), List.of(announcement(1, 999), announcement(2, 998)));
+
+        assertEquals(3, notificationService.getUserNotifications(1, null, null, 1, 5).size());
+        assertTrue(notificationService.getUserNotifications(1, null, null, 3, 2).isEmpty());
+    }
+
+    private void stub(List<Notification> notifications, List<Announcement> announcements) {
+        when(announcementService.getAnnouncements()).thenReturn(announcements);
+        when(announcementService.getReadUpTo(1)).thenReturn(0);
+        when(notificationMapper.getNotificationsByUser(eq(1), isNull(), isNull(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int offset = invocation.getArgument(3);
+                    int size = invocation.getArgument(4);
+                    int from = Math.min(offset, notifications.size());
+                    return notifications.subList(from, Math.min(from + size, notifications.size()));
+                });
+    }
+
+    private static String key(NotificationDto dto) {
+        if (dto.getNotificationId() != null) {
+            return "n" + dto.getNotificationId();
+        }
+        return "a" + dto.getExtraData().get("announcementId");
+    }
+
+    private static Notification notification(int notificationId, long second) {
+        User receiver = new User();
+        receiver.setUserId(1);
+        Notification notification = new Notification();
+        notification.setNotificationId(notificationId);
+        notification.setReceiver(receiver);
+        notification.setType(1);
+        notification.setIsRead(0);
+        notification.setCreateTime(new Date(second * 1000));
+        return notification;
+    }
+
+    private static Announcement announcement(int announcementId, long second) {
+        Announcement announcement = new Announcement();
+        announcement.setAnnouncementId(announcementId);
+        announcement.setCreateTime(new Date(second * 1000));
+        return announcement;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example1.demo2;
+
+import com.example1.demo2.service.impl.PasswordHasher;
+import com.example1.demo2.util.BCryptUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    private PasswordHasher start(int strength, int threads, int queueCapacity) {
+        hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "strength", strength);
+        ReflectionTestUtils.setField(hasher, "threads", threads);
+        ReflectionTestUtils.setField(hasher, "queueCapacity", queueCapacity);
+        hasher.start();
+        return hasher;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (hasher != null) {
+            hasher.stop();
+        }
+    }
+
+    @Test
+    public void testHashVerifyAndRehash() throws InterruptedException {
+        start(5, 2, 8);
+        String hashed = hasher.hash("secret");
+        assertEquals(5, BCryptUtil.getStrength(hashed));
+        assertTrue(hasher.verify("secret", hashed));
+        assertFalse(hasher.verify("wrong", hashed));
+        assertFalse(hasher.needsRehash(hashed));
+
+        // 旧强度的哈希在登录后按新强度重新哈希
+        String old = BCryptUtil.hashPassword("secret", 4);
+        assertTrue(hasher.needsRehash(old));
+        AtomicReference<String> rehashed = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        hasher.rehash("secret", newHash -> {
+            rehashed.set(newHash);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(5, BCryptUtil.getStrength(rehashed.get()));
+        assertTrue(BCryptUtil.verifyPassword("secret", rehashed.get()));
+
+        PasswordHasher.Stats stats = hasher.getStats();
+        assertEquals(2, stats.verifications());
+        assertEquals(2, stats.hashes());
+        assertEquals(1, stats.rehashes());
+    }
+
+    @Test
+    public void testRejectsWhenQueueFull() throws InterruptedException {
+        start(4, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 占住唯一的线程和唯一的排队位置
+        hasher.rehash("a", hash -> awaitQuietly(release));
+        hasher.rehash("b", hash -> awaitQuietly(release));
+        try {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> hasher.hash("c"));
+            assertEquals("服务繁忙，请稍后再试", e.getMessage());
+            assertEquals(1, hasher.getStats().rejected());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testGetStrength() {
+        assertEquals(10, BCryptUtil.getStrength("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, BCryptUtil.getStrength("plain"));
+        assertEquals(-1, BCryptUtil.getStrength(null));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
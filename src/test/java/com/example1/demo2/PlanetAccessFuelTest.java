@@ -0,0 +1,134 @@
+package com.example1.demo2;
+
+import com.example1.demo2.controller.PlanetAccessController;
+import com.example1.demo2.mapper.RewardTransactionMapper;
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.pojo.dto.ResponseMessage;
+import com.example1.demo2.service.IPlanetAccessService;
+import com.example1.demo2.service.impl.RewardLedger;
+import com.example1.demo2.service.impl.RewardService;
+import com.example1.demo2.util.ThreadLocalUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 燃料值不足时访问星球：扣减失败不能把控制器的事务标记为只能回滚，
+ * 否则提交时抛出 UnexpectedRollbackException，前端看不到"燃料值不足"
+ */
+@SpringJUnitConfig(PlanetAccessFuelTest.Config.class)
+public class PlanetAccessFuelTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+        @Bean
+        public DataSource dataSource() throws Exception {
+            Connection connection = mock(Connection.class);
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            return dataSource;
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public UserMapper userMapper() {
+            return mock(UserMapper.class);
+        }
+
+        @Bean
+        public RewardTransactionMapper rewardTransactionMapper() {
+            return mock(RewardTransactionMapper.class);
+        }
+
+        @Bean
+        public IPlanetAccessService planetAccessService() {
+            return mock(IPlanetAccessService.class);
+        }
+
+        @Bean
+        public RewardLedger rewardLedger() {
+            return new RewardLedger();
+        }
+
+        @Bean
+        public RewardService rewardService() {
+            return new RewardService();
+        }
+
+        @Bean
+        public PlanetAccessController planetAccessController() {
+            return new PlanetAccessController();
+        }
+    }
+
+    @Autowired
+    private PlanetAccessController controller;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private IPlanetAccessService planetAccessService;
+
+    @BeforeEach
+    public void setUp() {
+        ThreadLocalUtil.set(Map.of("userId", 1));
+        reset(userMapper, planetAccessService);
+        // 余额为0：条件扣减不更新任何行
+        when(userMapper.applyFuelDelta(any())).thenReturn(0);
+        User user = new User();
+        user.setUserId(1);
+        user.setFuelValue(0);
+        user.setKnowledgeDust(0);
+        when(userMapper.getRewardBalances(1)).thenReturn(user);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ThreadLocalUtil.remove();
+    }
+
+    @Test
+    public void testRandomAccessWithZeroFuel() {
+        ResponseMessage<?> response = controller.randomAccess(null);
+        assertEquals("燃料值不足，需要 1 点燃料值，当前只有 0 点", response.getMessage());
+        verify(planetAccessService, never()).findRandomPlanet(anyInt(), any());
+    }
+
+    @Test
+    public void testSearchWithStaleBalanceCache() {
+        // 缓存中还有1点燃料值，但数据库中已被其他请求用完
+        User cached = new User();
+        cached.setUserId(1);
+        cached.setFuelValue(1);
+        cached.setKnowledgeDust(0);
+        when(userMapper.getRewardBalances(1)).thenReturn(cached);
+        when(planetAccessService.findByTitle("数学")).thenReturn(List.of(new KnowledgePlanet()));
+
+        ResponseMessage<?> response = controller.search("数学");
+        assertTrue(response.getMessage().startsWith("燃料值不足"), response.getMessage());
+    }
+}
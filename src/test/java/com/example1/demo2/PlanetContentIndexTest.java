@@ -0,0 +1,156 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.pojo.dto.PlanetSearchHitDto;
+import com.example1.demo2.service.impl.PlanetContentIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetContentIndexTest {
+
+    @Mock
+    private PlanetMapper planetMapper;
+
+    @TempDir
+    Path indexDir;
+
+    private final Map<String, KnowledgePlanet> table = new LinkedHashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        table.put("P1", planet("P1", 1, 1, "线性代数", "矩阵与<向量>空间", "特征值和特征向量是线性代数的核心概念"));
+        table.put("P2", planet("P2", 2, 0, "私人笔记", "", "特征值的计算方法"));
+        table.put("P3", planet("P3", 3, 1, "Java并发", "线程池", "ThreadPoolExecutor 的参数"));
+
+        lenient().when(planetMapper.getContentIndexVersions()).thenAnswer(inv -> new ArrayList<>(table.values()));
+        lenient().when(planetMapper.getPlanetsByIds(anyList())).thenAnswer(inv -> {
+            List<String> ids = inv.getArgument(0);
+            return ids.stream().filter(table::containsKey).map(table::get).toList();
+        });
+    }
+
+    @Test
+    public void testSearchRespectsVisibilityAndOwnership() throws Exception {
+        PlanetContentIndex index = start();
+        try {
+            List<PlanetSearchHitDto> hits = await(index, "特征值", 1);
+            assertEquals(List.of("P1"), ids(hits));
+            assertTrue(hits.get(0).getHighlight().contains("<em>特征值</em>"));
+
+            // 私有星球只有创建者能搜到
+            assertEquals(Set.of("P1", "P2"), new HashSet<>(ids(index.search("特征值", 2, 10))));
+
+            // 多个关键词须全部命中；英文不区分大小写
+            assertEquals(List.of("P1"), ids(index.search("特征 线性", 2, 10)));
+            assertEquals(List.of("P3"), ids(index.search("threadpoolexecutor", null, 10)));
+            assertTrue(index.search("概率", null, 10).isEmpty());
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    public void testHighlightEscapesHtml() throws Exception {
+        PlanetContentIndex index = start();
+        try {
+            List<PlanetSearchHitDto> hits = await(index, "向量", 1);
+            // 详情里也有"向量"，摘要取详情；描述里的尖括号不会原样输出
+            assertEquals("特征值和特征<em>向量</em>是线性代数的核心概念", hits.get(0).getHighlight());
+
+            table.get("P1").setContentDetail("");
+            index.refresh("P1");
+            hits = awaitHighlight(index, "向量", "矩阵与&lt;<em>向量</em>&gt;空间");
+            assertEquals(1, hits.size());
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdateAndSnapshotReload() throws Exception {
+        PlanetContentIndex index = start();
+        await(index, "线程池", 1);
+
+        table.remove("P3");
+        index.refresh("P3");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!index.search("线程池", null, 10).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(index.search("线程池", null, 10).isEmpty());
+        index.stop();
+
+        // 重启后从快照加载，只重新查询 update_time 变化的星球
+        table.get("P2").setUpdateTime(new Date(2000));
+        clearInvocations(planetMapper);
+        PlanetContentIndex reloaded = start();
+        try {
+            assertEquals(List.of("P1"), ids(await(reloaded, "线性代数", 1)));
+            verify(planetMapper).getPlanetsByIds(List.of("P2"));
+        } finally {
+            reloaded.stop();
+        }
+    }
+
+    private PlanetContentIndex start() {
+        PlanetContentIndex index = new PlanetContentIndex();
+        ReflectionTestUtils.setField(index, "planetMapper", planetMapper);
+        ReflectionTestUtils.setField(index, "indexDir", indexDir.toString());
+        index.start();
+        return index;
+    }
+
+    // 索引在后台加载和更新，等待结果出现
+    private static List<PlanetSearchHitDto> await(PlanetContentIndex index, String keyword, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<PlanetSearchHitDto> hits = index.search(keyword, null, 10);
+        while (hits.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            hits = index.search(keyword, null, 10);
+        }
+        assertEquals(expected, hits.size());
+        return hits;
+    }
+
+    private static List<PlanetSearchHitDto> awaitHighlight(PlanetContentIndex index, String keyword, String highlight) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<PlanetSearchHitDto> hits = index.search(keyword, null, 10);
+        while (System.currentTimeMillis() < deadline && (hits.isEmpty() || !highlight.equals(hits.get(0).getHighlight()))) {
+            Thread.sleep(50);
+            hits = index.search(keyword, null, 10);
+        }
+        assertEquals(highlight, hits.get(0).getHighlight());
+        return hits;
+    }
+
+    private static List<String> ids(List<PlanetSearchHitDto> hits) {
+        return hits.stream().map(PlanetSearchHitDto::getPlanetId).toList();
+    }
+
+    private static KnowledgePlanet planet(String planetId, Integer userId, Integer visibility,
+                                          String title, String description, String detail) {
+        KnowledgePlanet planet = new KnowledgePlanet();
+        planet.setPlanetId(planetId);
+        planet.setUserId(userId);
+        planet.setVisibility(visibility);
+        planet.setContentTitle(title);
+        planet.setDescription(description);
+        planet.setContentDetail(detail);
+        planet.setUpdateTime(new Date(1000));
+        return planet;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.pojo.KnowledgePlanet;
+import com.example1.demo2.service.impl.PlanetTitleIndex;
+import com.example1.demo2.service.impl.PlanetVisitCounter;
+import com.example1.demo2.util.NGramIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetTitleIndexTest {
+
+    private static final String CHARS = "线性代数高等数学概率论统计物理化学生物历史地理编程算法数据结构网络系统设计基础入门进阶";
+
+    @Mock
+    private PlanetMapper planetMapper;
+
+    @InjectMocks
+    private PlanetTitleIndex titleIndex;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(titleIndex, "visitCounter", new PlanetVisitCounter());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        titleIndex.stop();
+    }
+
+    @Test
+    public void testDeleteDuringLoadNotReAdded() throws Exception {
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(planetMapper.getTitleIndexRows()).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(planet("p1", "线性代数", 10), planet("p2", "高等代数", 5));
+        });
+
+        titleIndex.start();
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        // 加载查询已读到p1，随后p1被删除
+        titleIndex.remove("p1");
+        release.countDown();
+        awaitReady();
+
+        assertEquals(List.of("p2"), titleIndex.search("代数", true, null, 10));
+    }
+
+    @Test
+    public void testChangesAppliedOnlyAfterCommit() throws Exception {
+        when(planetMapper.getTitleIndexRows()).thenReturn(List.of(planet("p1", "线性代数", 10)));
+        titleIndex.start();
+        awaitReady();
+
+        // 回滚的删除不影响索引
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            titleIndex.remove("p1");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of("p1"), titleIndex.search("代数", true, null, 10));
+
+        // 提交后才读取新标题
+        when(planetMapper.findByPlanetId("p1")).thenReturn(planet("p1", "高等数学", 10));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            titleIndex.refresh("p1");
+            verify(planetMapper, never()).findByPlanetId("p1");
+            assertEquals(List.of("p1"), titleIndex.search("代数", true, null, 10));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(), titleIndex.search("代数", true, null, 10));
+        assertEquals(List.of("p1"), titleIndex.search("数学", true, null, 10));
+    }
+
+    @Test
+    public void testVisitsReorderResults() throws Exception {
+        when(planetMapper.getTitleIndexRows()).thenReturn(List.of(planet("p1", "线性代数", 10), planet("p2", "高等代数", 9)));
+        titleIndex.start();
+        awaitReady();
+        assertEquals(List.of("p1", "p2"), titleIndex.search("代数", true, null, 10));
+
+        titleIndex.onVisit("p2");
+        titleIndex.onVisit("p2");
+        assertEquals(List.of("p2", "p1"), titleIndex.search("代数", true, null, 10));
+        assertEquals(List.of("高等代数"), titleIndex.suggest("高等", 10));
+    }
+
+    /**
+     * 与 LIKE '%关键词%' 路径对比：逐条核对标题是否包含关键词，即全表扫描在内存中的等价做法，结果必须一致
+     */
+    @Test
+    public void testSearchMatchesLikeScan() throws Exception {
+        Random random = new Random(7);
+        List<KnowledgePlanet> planets = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder title = new StringBuilder();
+            int length = 4 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                title.append(CHARS.charAt(random.nextInt(CHARS.length())));
+            }
+            planets.add(planet("p" + i, title.toString(), random.nextInt(1000)));
+        }
+        when(planetMapper.getTitleIndexRows()).thenReturn(planets);
+        titleIndex.start();
+        awaitReady();
+
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String title = planets.get(random.nextInt(planets.size())).getContentTitle();
+            int from = random.nextInt(title.length() - 2);
+            keywords.add(title.substring(from, from + 2 + random.nextInt(2)));
+        }
+
+        for (String keyword : keywords) {
+            String normalized = NGramIndex.normalize(keyword);
+            Set<String> scanned = new HashSet<>();
+            for (KnowledgePlanet planet : planets) {
+                if (NGramIndex.normalize(planet.getContentTitle()).contains(normalized)) {
+                    scanned.add(planet.getPlanetId());
+                }
+            }
+            assertEquals(scanned, new HashSet<>(titleIndex.search(keyword, false, null, Integer.MAX_VALUE)));
+        }
+    }
+
+    private void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 500 && !titleIndex.isReady(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(titleIndex.isReady());
+    }
+
+    private static KnowledgePlanet planet(String planetId, String title, int visits) {
+        KnowledgePlanet planet = new KnowledgePlanet();
+        planet.setPlanetId(planetId);
+        planet.setContentTitle(title);
+        planet.setVisibility(1);
+        planet.setUserId(1);
+        planet.setVisitCount(visits);
+        return planet;
+    }
+}
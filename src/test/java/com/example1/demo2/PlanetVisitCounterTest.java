@@ -0,0 +1,69 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.PlanetMapper;
+import com.example1.demo2.service.impl.PlanetVisitCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetVisitCounterTest {
+
+    @Mock
+    private PlanetMapper planetMapper;
+
+    @InjectMocks
+    private PlanetVisitCounter counter;
+
+    @Test
+    public void testPendingVisitsAddedToStoredCount() {
+        counter.increment("P1");
+        counter.increment("P1");
+
+        assertEquals(12, counter.getVisitCount("P1", 10));
+        assertEquals(5, counter.getVisitCount("P2", 5));
+
+        counter.flush();
+
+        verify(planetMapper).addVisitCounts(Map.of("P1", 2L));
+        assertEquals(10, counter.getVisitCount("P1", 10));
+    }
+
+    @Test
+    public void testNoVisitLostWhileFlushing() throws Exception {
+        AtomicLong written = new AtomicLong();
+        when(planetMapper.addVisitCounts(anyMap())).thenAnswer(invocation -> {
+            Map<String, Long> counts = invocation.getArgument(0);
+            counts.values().forEach(written::addAndGet);
+            return counts.size();
+        });
+
+        ExecutorService visitors = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            visitors.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    counter.increment("P" + (i % 3));
+                }
+            });
+        }
+        visitors.shutdown();
+        while (!visitors.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            counter.flush();
+        }
+        counter.flush();
+
+        assertEquals(80000, written.get());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.RewardTransactionMapper;
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.RewardTransaction;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.RewardLedger;
+import com.example1.demo2.service.impl.RewardLedger.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RewardLedgerTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RewardTransactionMapper rewardTransactionMapper;
+
+    @InjectMocks
+    private RewardLedger ledger;
+
+    // 模拟数据库中用户1的余额
+    private int fuel = 5;
+    private int dust = 30;
+
+    @BeforeEach
+    public void setUp() {
+        // 模拟条件更新：变动后不小于0才更新，并回填变动后的余额
+        lenient().when(userMapper.applyFuelDelta(any())).thenAnswer(inv -> {
+            RewardTransaction t = inv.getArgument(0);
+            if (t.getUserId() != 1 || fuel + t.getAmount() < 0) {
+                return 0;
+            }
+            fuel += t.getAmount();
+            t.setBalanceAfter(fuel);
+            return 1;
+        });
+        lenient().when(userMapper.applyKnowledgeDustDelta(any())).thenAnswer(inv -> {
+            RewardTransaction t = inv.getArgument(0);
+            if (t.getUserId() != 1 || dust + t.getAmount() < 0) {
+                return 0;
+            }
+            dust += t.getAmount();
+            t.setBalanceAfter(dust);
+            return 1;
+        });
+        lenient().when(userMapper.getRewardBalances(anyInt())).thenAnswer(inv -> {
+            if (inv.<Integer>getArgument(0) != 1) {
+                return null;
+            }
+            User user = new User();
+            user.setUserId(1);
+            user.setFuelValue(fuel);
+            user.setKnowledgeDust(dust);
+            return user;
+        });
+    }
+
+    @Test
+    public void testConditionalDebitAndCredit() {
+        assertEquals(4, ledger.debit(1, Currency.FUEL, 1, "planet_access"));
+        assertEquals(25, ledger.credit(1, Currency.FUEL, 21, "planet_creation"));
+        assertEquals(10, ledger.debit(1, Currency.KNOWLEDGE_DUST, 20, "galaxy_creation"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> ledger.debit(1, Currency.KNOWLEDGE_DUST, 20, "galaxy_creation"));
+        assertEquals("知识星云值不足，需要 20 点知识星云值，当前只有 10 点", e.getMessage());
+        assertEquals(10, dust);
+
+        e = assertThrows(RuntimeException.class, () -> ledger.credit(2, Currency.FUEL, 1, "planet_creation"));
+        assertEquals("用户不存在", e.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTransactionsFlushedInBatch() {
+        ledger.debit(1, Currency.FUEL, 1, "planet_access");
+        ledger.credit(1, Currency.KNOWLEDGE_DUST, 3, "planet_comment");
+        assertThrows(RuntimeException.class, () -> ledger.debit(1, Currency.FUEL, 100, "planet_access"));
+        verify(rewardTransactionMapper, never()).insertBatch(anyList());
+
+        ledger.flush();
+        ArgumentCaptor<List<RewardTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rewardTransactionMapper).insertBatch(captor.capture());
+        List<RewardTransaction> logged = captor.getValue();
+        // 失败的扣减不记流水
+        assertEquals(2, logged.size());
+        assertEquals(-1, logged.get(0).getAmount());
+        assertEquals(4, logged.get(0).getBalanceAfter());
+        assertEquals(RewardTransaction.KNOWLEDGE_DUST, logged.get(1).getCurrency());
+        assertEquals(33, logged.get(1).getBalanceAfter());
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        when(rewardTransactionMapper.insertBatch(anyList()))
+                .thenThrow(new RuntimeException("数据库不可用"))
+                .thenReturn(1);
+        ledger.debit(1, Currency.FUEL, 1, "planet_access");
+        ledger.flush();
+        ledger.flush();
+        verify(rewardTransactionMapper, times(2)).insertBatch(anyList());
+        ledger.flush();
+        verify(rewardTransactionMapper, times(2)).insertBatch(anyList());
+    }
+
+    @Test
+    public void testBalanceCacheInvalidatedOnChange() {
+        assertEquals(5, ledger.getBalances(1).fuelValue());
+        assertEquals(5, ledger.getBalances(1).fuelValue());
+        verify(userMapper, times(1)).getRewardBalances(1);
+
+        ledger.debit(1, Currency.FUEL, 2, "planet_access");
+        assertEquals(3, ledger.getBalances(1).fuelValue());
+        assertEquals(30, ledger.getBalances(1).knowledgeDust());
+        verify(userMapper, times(2)).getRewardBalances(1);
+        assertNull(ledger.getBalances(2));
+    }
+}
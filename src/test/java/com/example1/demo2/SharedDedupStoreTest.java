@@ -0,0 +1,41 @@
+package com.example1.demo2;
+
+import com.example1.demo2.service.impl.SharedDedupStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+
+public class SharedDedupStoreTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void testPutIfAbsentAndRemove() {
+        SharedDedupStore store = new SharedDedupStore();
+        assertTrue(store.putIfAbsent("a", MINUTE));
+        assertFalse(store.putIfAbsent("a", MINUTE));
+        assertTrue(store.contains("a"));
+
+        store.remove("a");
+        assertFalse(store.contains("a"));
+        assertTrue(store.putIfAbsent("a", MINUTE));
+    }
+
+    @Test
+    public void testLiveKeysCappedAtMaxKeys() {
+        SharedDedupStore store = new SharedDedupStore();
+        int maxKeys = (int) getField(SharedDedupStore.class, "MAX_KEYS");
+        Map<?, ?> expireAt = (Map<?, ?>) getField(store, "expireAt");
+
+        // 所有键都未过期时淘汰最早到期的键，总数不超过上限
+        for (int i = 0; i <= maxKeys; i++) {
+            assertTrue(store.putIfAbsent("k" + i, MINUTE + i));
+            assertTrue(expireAt.size() <= maxKeys);
+        }
+        assertTrue(store.contains("k" + maxKeys));
+        assertFalse(store.contains("k0"));
+    }
+}
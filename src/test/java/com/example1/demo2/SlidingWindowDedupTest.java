@@ -0,0 +1,42 @@
+package com.example1.demo2;
+
+import com.example1.demo2.util.SlidingWindowDedup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlidingWindowDedupTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void testColdStartThenWarm() {
+        SlidingWindowDedup dedup = new SlidingWindowDedup(5 * MINUTE, 5, 100, 0);
+
+        //刚启动时窗口未填满，未命中需要回查
+        assertEquals(SlidingWindowDedup.Result.UNKNOWN, dedup.check("a", MINUTE));
+        dedup.record("a", MINUTE);
+        assertEquals(SlidingWindowDedup.Result.DUPLICATE, dedup.check("a", 2 * MINUTE));
+
+        //窗口填满后，未命中即可确定不存在
+        assertEquals(SlidingWindowDedup.Result.DUPLICATE, dedup.check("a", 5 * MINUTE + 1000));
+        assertEquals(SlidingWindowDedup.Result.ABSENT, dedup.check("a", 6 * MINUTE));
+        assertEquals(SlidingWindowDedup.Result.ABSENT, dedup.check("b", 6 * MINUTE));
+    }
+
+    @Test
+    public void testOverflowFallsBackToUnknown() {
+        SlidingWindowDedup dedup = new SlidingWindowDedup(5 * MINUTE, 5, 2, 0);
+        long now = 10 * MINUTE;
+        dedup.record("a", now);
+        dedup.record("b", now);
+        dedup.record("c", now);
+
+        assertEquals(2, dedup.size());
+        assertEquals(SlidingWindowDedup.Result.DUPLICATE, dedup.check("a", now));
+        assertEquals(SlidingWindowDedup.Result.UNKNOWN, dedup.check("c", now));
+
+        //溢出的桶滑出窗口后恢复确定性
+        assertEquals(SlidingWindowDedup.Result.ABSENT, dedup.check("c", now + 6 * MINUTE));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example1.demo2;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example1.demo2.pojo.dto.UserPrincipal;
+import com.example1.demo2.service.impl.TokenPrincipalCache;
+import com.example1.demo2.util.JWTUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenPrincipalCacheTest {
+
+    private final TokenPrincipalCache cache = new TokenPrincipalCache();
+
+    @Test
+    public void testRepeatedTokenReusesPrincipal() {
+        String token = JWTUtil.GenToken(claims(7));
+        UserPrincipal first = cache.authenticate(token);
+        assertEquals(7, first.getUserId());
+        assertEquals("7", first.getName());
+        assertSame(first, cache.authenticate(token));
+        assertEquals(1, cache.size());
+
+        cache.invalidateUser(7);
+        assertEquals(0, cache.size());
+        assertNotSame(first, cache.authenticate(token));
+    }
+
+    @Test
+    public void testInvalidTokensRejected() {
+        assertThrows(RuntimeException.class, () -> cache.authenticate(null));
+        assertThrows(RuntimeException.class, () -> cache.authenticate("not-a-token"));
+        String forged = JWT.create()
+                .withClaim("claims", claims(7))
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60000))
+                .sign(Algorithm.HMAC256("other"));
+        assertThrows(RuntimeException.class, () -> cache.authenticate(forged));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiryHonored() {
+        String expired = JWT.create()
+                .withClaim("claims", claims(7))
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60000))
+                .sign(Algorithm.HMAC256("Planet"));
+        assertThrows(RuntimeException.class, () -> cache.authenticate(expired));
+
+        // 缓存命中时同样检查过期时间：缓存之后把时钟拨到过期时间之后
+        String shortLived = JWT.create()
+                .withClaim("claims", claims(8))
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60000))
+                .sign(Algorithm.HMAC256("Planet"));
+        assertEquals(8, cache.authenticate(shortLived).getUserId());
+        assertEquals(1, cache.size());
+        ReflectionTestUtils.setField(cache, "clock", Clock.offset(Clock.systemUTC(), Duration.ofMinutes(2)));
+        assertThrows(RuntimeException.class, () -> cache.authenticate(shortLived));
+        assertEquals(0, cache.size());
+    }
+
+    private static Map<String, Object> claims(Integer userId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("nickname", "旅行者");
+        return claims;
+    }
+}
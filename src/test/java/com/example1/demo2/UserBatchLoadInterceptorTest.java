@@ -0,0 +1,131 @@
+package com.example1.demo2;
+
+import com.example1.demo2.interceptors.UserBatchLoadInterceptor;
+import com.example1.demo2.pojo.Notification;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.UserDataLoader;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserBatchLoadInterceptorTest {
+
+    @Mock
+    private UserDataLoader userDataLoader;
+
+    @Mock
+    private Executor executor;
+
+    private UserBatchLoadInterceptor interceptor;
+
+    private final Configuration configuration = new Configuration();
+
+    @BeforeEach
+    public void setUp() {
+        interceptor = new UserBatchLoadInterceptor();
+        ReflectionTestUtils.setField(interceptor, "userDataLoader", userDataLoader);
+    }
+
+    @Test
+    public void testExpandsIdOnlyUsersWithOneLoad() throws Throwable {
+        List<Notification> rows = List.of(row(1, 10, 20), row(2, 11, 20), row(3, 10, null));
+        MappedStatement ms = statement("notification.select", "receiver.userId", "sender.userId");
+        when(userDataLoader.loadMany(anyCollection())).thenReturn(Map.of(10, user(10), 11, user(11), 20, user(20)));
+
+        Object result = intercept(ms, rows);
+
+        assertSame(rows, result);
+        assertEquals("u10", rows.get(0).getReceiver().getNickname());
+        assertEquals("u20", rows.get(0).getSender().getNickname());
+        assertEquals("u11", rows.get(1).getReceiver().getNickname());
+        assertNull(rows.get(2).getSender());
+        verify(userDataLoader, times(1)).loadMany(argThat((Collection<Integer> ids) -> Set.copyOf(ids).equals(Set.of(10, 11, 20))));
+    }
+
+    @Test
+    public void testMissingUserBecomesNull() throws Throwable {
+        List<Notification> rows = List.of(row(1, 10, 99));
+        MappedStatement ms = statement("notification.selectMissing", "receiver.userId", "sender.userId");
+        when(userDataLoader.loadMany(anyCollection())).thenReturn(Map.of(10, user(10)));
+
+        intercept(ms, rows);
+
+        assertEquals("u10", rows.get(0).getReceiver().getNickname());
+        assertNull(rows.get(0).getSender());
+    }
+
+    @Test
+    public void testStatementWithoutUserPropertiesUntouched() throws Throwable {
+        List<Notification> rows = List.of(row(1, 10, 20));
+        MappedStatement ms = statement("notification.selectPlain", "notificationId");
+
+        intercept(ms, rows);
+        intercept(ms, List.of());
+
+        assertNull(rows.get(0).getReceiver().getNickname());
+        verifyNoInteractions(userDataLoader);
+    }
+
+    private Object intercept(MappedStatement ms, List<?> rows) throws Throwable {
+        Object[] args = {ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER};
+        doReturn(rows).when(executor).query(ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        Method query = Executor.class.getMethod("query", MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class);
+        return interceptor.intercept(new Invocation(executor, query, args));
+    }
+
+    private MappedStatement statement(String id, String... properties) {
+        List<ResultMapping> mappings = new ArrayList<>();
+        for (String property : properties) {
+            mappings.add(new ResultMapping.Builder(configuration, property, property, Integer.class).build());
+        }
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-map", Notification.class, mappings).build();
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "SELECT 1"),
+                SqlCommandType.SELECT).resultMaps(List.of(resultMap)).build();
+    }
+
+    private static Notification row(int notificationId, Integer receiverId, Integer senderId) {
+        Notification notification = new Notification();
+        notification.setNotificationId(notificationId);
+        notification.setReceiver(stub(receiverId));
+        notification.setSender(senderId != null ? stub(senderId) : null);
+        return notification;
+    }
+
+    private static User stub(Integer userId) {
+        User user = new User();
+        user.setUserId(userId);
+        return user;
+    }
+
+    private static User user(int userId) {
+        User user = stub(userId);
+        user.setNickname("u" + userId);
+        return user;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.UserDataLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDataLoaderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private UserDataLoader loader;
+
+    @AfterEach
+    public void tearDown() {
+        loader.close();
+    }
+
+    @Test
+    public void testLoadManySkipsNullAndDuplicates() {
+        when(userMapper.findByIds(List.of(1, 2))).thenReturn(List.of(user(1), user(2)));
+
+        Map<Integer, User> users = loader.loadMany(Arrays.asList(1, null, 2, 1));
+
+        assertEquals(2, users.size());
+        assertEquals("u1", users.get(1).getNickname());
+        verify(userMapper, times(1)).findByIds(anyList());
+    }
+
+    @Test
+    public void testRequestCacheOnlyQueriesMissingUsers() {
+        loader.open();
+        when(userMapper.findByIds(List.of(1, 2))).thenReturn(List.of(user(1), user(2)));
+        when(userMapper.findByIds(List.of(3))).thenReturn(List.of(user(3)));
+
+        loader.loadMany(List.of(1, 2));
+        Map<Integer, User> users = loader.loadMany(List.of(2, 3));
+        // 全部命中缓存时不再查询
+        loader.loadMany(List.of(1, 3));
+
+        assertEquals(2, users.size());
+        assertSame(users.get(3), loader.loadMany(List.of(3)).get(3));
+        verify(userMapper, times(2)).findByIds(anyList());
+    }
+
+    @Test
+    public void testNoCacheOutsideRequest() {
+        when(userMapper.findByIds(List.of(1))).thenReturn(List.of(user(1)));
+
+        loader.loadMany(List.of(1));
+        loader.loadMany(List.of(1));
+
+        verify(userMapper, times(2)).findByIds(anyList());
+    }
+
+    @Test
+    public void testMissingUserAbsentFromResult() {
+        when(userMapper.findByIds(List.of(1, 9))).thenReturn(List.of(user(1)));
+
+        Map<Integer, User> users = loader.loadMany(List.of(1, 9));
+
+        assertTrue(users.containsKey(1));
+        assertFalse(users.containsKey(9));
+    }
+
+    private static User user(int userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setNickname("u" + userId);
+        return user;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example1.demo2;
+
+import com.example1.demo2.mapper.UserMapper;
+import com.example1.demo2.pojo.User;
+import com.example1.demo2.service.impl.UserDirectory;
+import com.example1.demo2.util.BloomFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDirectoryTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private UserDirectory directory;
+
+    private final Map<Integer, User> table = new LinkedHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        table.put(1, user(1, "星际旅行者", "traveler@example.com", 0));
+        table.put(2, user(2, "旅行家", "Wanderer@Example.com", 0));
+        table.put(3, user(3, "封禁的旅行者", "banned@example.com", 1));
+
+        lenient().when(userMapper.getDirectoryRows()).thenAnswer(inv -> new ArrayList<>(table.values()));
+        lenient().when(userMapper.findByIds(anyList())).thenAnswer(inv -> {
+            List<Integer> ids = inv.getArgument(0);
+            return ids.stream().filter(table::containsKey).map(table::get).toList();
+        });
+        lenient().when(userMapper.findById(anyInt())).thenAnswer(inv -> table.get(inv.<Integer>getArgument(0)));
+        lenient().when(userMapper.findByNickname(anyString())).thenAnswer(inv -> table.values().stream()
+                .filter(u -> u.getNickname().equals(inv.getArgument(0))).findFirst().orElse(null));
+
+        directory.start();
+        // 等待后台加载完成：加载前查重走数据库（findByEmail未打桩，返回null）
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!directory.isEmailTaken("traveler@example.com") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        directory.stop();
+    }
+
+    @Test
+    public void testUniquenessChecks() {
+        assertTrue(directory.isNicknameTaken("旅行家"));
+        assertFalse(directory.isNicknameTaken("旅行"));
+        // 与数据库排序规则一致：不区分大小写，忽略末尾空格
+        assertTrue(directory.isEmailTaken("wanderer@example.com "));
+        assertFalse(directory.isEmailTaken("nobody@example.com"));
+        verify(userMapper, never()).findByEmail("nobody@example.com");
+    }
+
+    @Test
+    public void testSearchSkipsBannedAndSelf() {
+        assertEquals(List.of(1, 2), ids(directory.search("旅行", null, 20)));
+        assertEquals(List.of(2), ids(directory.search("旅行", 1, 20)));
+        assertEquals(List.of(2), ids(directory.search("WANDERER", null, 20)));
+        assertEquals(List.of(1), ids(directory.search("旅行", null, 1)));
+    }
+
+    @Test
+    public void testKeptCurrentOnChanges() {
+        table.get(2).setNickname("新昵称");
+        directory.refresh(2);
+        assertFalse(directory.isNicknameTaken("旅行家"));
+        assertTrue(directory.isNicknameTaken("新昵称"));
+
+        table.get(3).setStatus(0);
+        directory.refresh(3);
+        assertEquals(List.of(1, 3), ids(directory.search("旅行者", null, 20)));
+
+        table.put(4, user(4, "新用户", "new@example.com", 0));
+        directory.onRegistered("新用户");
+        assertTrue(directory.isEmailTaken("new@example.com"));
+
+        table.remove(1);
+        directory.remove(1);
+        assertFalse(directory.isNicknameTaken("星际旅行者"));
+        assertEquals(List.of(3), ids(directory.search("旅行者", null, 20)));
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "误判过多：" + falsePositives);
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getUserId).toList();
+    }
+
+    private static User user(Integer userId, String nickname, String email, Integer status) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setNickname(nickname);
+        user.setEmail(email);
+        user.setStatus(status);
+        return user;
+    }
+}